@@ -0,0 +1,191 @@
+package com.bushidowallet.core.bitcoin;
+
+import com.bushidowallet.core.bitcoin.script.Script;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Locale;
+
+/**
+ * Native segwit address, a witness version and program encoded in bech32 (BIP173, version 0)
+ * or bech32m (BIP350, version 1 and above, e.g. Taproot)
+ */
+public class SegwitAddress {
+
+    public static final String MAINNET = "bc";
+    public static final String TESTNET = "tb";
+
+    private static final String CHARSET = "qpzry9x8gf2tvdw0s3jn54khce6mua7l";
+    private static final int[] GENERATOR = { 0x3b6a57b2, 0x26508e6d, 0x1ea119fa, 0x3d4233dd, 0x2a1462b3 };
+    private static final int BECH32_CONSTANT = 1;
+    private static final int BECH32M_CONSTANT = 0x2bc830a3;
+    private static final int CHECKSUM_LENGTH = 6;
+    private static final int MAX_LENGTH = 90;
+
+    private final String hrp;
+    private final int version;
+    private final byte[] program;
+
+    /**
+     * @param hrp - human readable part, MAINNET or TESTNET
+     * @param version - witness version, 0 to 16
+     * @param program - witness program, 20 or 32 bytes for version 0, 2 to 40 bytes otherwise
+     * @throws Exception - if the program does not fit the version
+     */
+    public SegwitAddress(String hrp, int version, byte[] program) throws Exception {
+        checkProgram(version, program);
+        this.hrp = hrp.toLowerCase(Locale.ROOT);
+        this.version = version;
+        this.program = program;
+    }
+
+    /**
+     * Parses an address
+     *
+     * @param address
+     * @throws Exception - if the address is malformed or its checksum does not match its version
+     */
+    public SegwitAddress(String address) throws Exception {
+        if (address.length() > MAX_LENGTH || (!address.equals(address.toLowerCase(Locale.ROOT))
+                && !address.equals(address.toUpperCase(Locale.ROOT)))) {
+            throw new Exception("Invalid segwit address: case or length");
+        }
+        String lower = address.toLowerCase(Locale.ROOT);
+        int separator = lower.lastIndexOf('1');
+        if (separator < 1 || separator + 1 + CHECKSUM_LENGTH + 1 > lower.length()) {
+            throw new Exception("Invalid segwit address: separator");
+        }
+        String hrp = lower.substring(0, separator);
+        byte[] data = new byte[lower.length() - separator - 1];
+        for (int i = 0; i < data.length; i++) {
+            int value = CHARSET.indexOf(lower.charAt(separator + 1 + i));
+            if (value < 0) {
+                throw new Exception("Invalid segwit address: character");
+            }
+            data[i] = (byte) value;
+        }
+        int version = data[0];
+        int constant = polymod(hrp, data, data.length);
+        if (constant != (version == 0 ? BECH32_CONSTANT : BECH32M_CONSTANT)) {
+            throw new Exception("Invalid segwit address: checksum");
+        }
+        byte[] program = convertBits(data, 1, data.length - CHECKSUM_LENGTH - 1, 5, 8, false);
+        checkProgram(version, program);
+        this.hrp = hrp;
+        this.version = version;
+        this.program = program;
+    }
+
+    /**
+     * Gets the mainnet address of a Taproot output key
+     *
+     * @param outputKey - 32 byte x-only output key
+     * @return
+     * @throws Exception
+     */
+    public static SegwitAddress fromTaprootKey(byte[] outputKey) throws Exception {
+        return new SegwitAddress(MAINNET, 1, outputKey);
+    }
+
+    /**
+     * @return output script, OP_n followed by the program
+     */
+    public Script getScript() throws Exception {
+        return Script.buildWitnessOut(version, program);
+    }
+
+    public String toString() {
+        byte[] data;
+        try {
+            data = convertBits(program, 0, program.length, 8, 5, true);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+        byte[] values = new byte[1 + data.length + CHECKSUM_LENGTH];
+        values[0] = (byte) version;
+        System.arraycopy(data, 0, values, 1, data.length);
+        int checksum = polymod(hrp, values, 1 + data.length) ^ (version == 0 ? BECH32_CONSTANT : BECH32M_CONSTANT);
+        for (int i = 0; i < CHECKSUM_LENGTH; i++) {
+            values[1 + data.length + i] = (byte) ((checksum >>> (5 * (CHECKSUM_LENGTH - 1 - i))) & 31);
+        }
+        StringBuilder sb = new StringBuilder(hrp.length() + 1 + values.length);
+        sb.append(hrp).append('1');
+        for (byte value : values) {
+            sb.append(CHARSET.charAt(value));
+        }
+        return sb.toString();
+    }
+
+    public String getHrp() {
+        return hrp;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public byte[] getProgram() {
+        return program;
+    }
+
+    private static void checkProgram(int version, byte[] program) throws Exception {
+        if (version < 0 || version > 16) {
+            throw new Exception("Invalid segwit address: version");
+        }
+        if (program == null || program.length < 2 || program.length > 40
+                || (version == 0 && program.length != 20 && program.length != 32)) {
+            throw new Exception("Invalid segwit address: program length");
+        }
+    }
+
+    //checksum of the expanded hrp and the first length values, with zeros in place of the checksum if not yet known
+    private static int polymod(String hrp, byte[] values, int length) {
+        int chk = 1;
+        for (int i = 0; i < hrp.length(); i++) {
+            chk = polymodStep(chk, hrp.charAt(i) >> 5);
+        }
+        chk = polymodStep(chk, 0);
+        for (int i = 0; i < hrp.length(); i++) {
+            chk = polymodStep(chk, hrp.charAt(i) & 31);
+        }
+        for (int i = 0; i < values.length; i++) {
+            chk = polymodStep(chk, i < length ? values[i] : 0);
+        }
+        return chk;
+    }
+
+    private static int polymodStep(int chk, int value) {
+        int top = chk >>> 25;
+        chk = (chk & 0x1ffffff) << 5 ^ value;
+        for (int i = 0; i < GENERATOR.length; i++) {
+            if (((top >>> i) & 1) != 0) {
+                chk ^= GENERATOR[i];
+            }
+        }
+        return chk;
+    }
+
+    private static byte[] convertBits(byte[] in, int offset, int length, int fromBits, int toBits, boolean pad) throws Exception {
+        int acc = 0;
+        int bits = 0;
+        int maxValue = (1 << toBits) - 1;
+        int maxAcc = (1 << (fromBits + toBits - 1)) - 1;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = offset; i < offset + length; i++) {
+            int value = in[i] & 0xff;
+            acc = ((acc << fromBits) | value) & maxAcc;
+            bits += fromBits;
+            while (bits >= toBits) {
+                bits -= toBits;
+                out.write((acc >>> bits) & maxValue);
+            }
+        }
+        if (pad) {
+            if (bits > 0) {
+                out.write((acc << (toBits - bits)) & maxValue);
+            }
+        } else if (bits >= fromBits || ((acc << (toBits - bits)) & maxValue) != 0) {
+            throw new Exception("Invalid segwit address: padding");
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,207 @@
+package com.bushidowallet.core.bitcoin;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.bip32.Hash;
+import com.bushidowallet.core.bitcoin.ecdsa.ECDSA;
+import com.bushidowallet.core.bitcoin.ecdsa.ECDSASignature;
+import com.bushidowallet.core.bitcoin.util.CompactInt;
+import com.bushidowallet.core.bitcoin.util.SharedPool;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.springframework.security.crypto.codec.Base64;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A message signed with the key of a pay to public key hash address (Bitcoin Core's signmessage / verifymessage)
+ *
+ * The signed hash is the double SHA256 of the magic prefix and the message, each preceded by its length as a varint.
+ * The signature is the base64 of its compact form (see ECDSASignature.toCompact), whose recovery id lets the
+ * public key be recovered from the signature itself: verification recovers the key and compares its hash
+ * with the address, no public key has to be known or looked up.
+ *
+ * Many messages (e.g. a file of ownership proofs) are verified at once with the static verify methods.
+ */
+public class SignedMessage {
+
+    public static final String MAGIC = "Bitcoin Signed Message:\n";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final byte[] MAGIC_BYTES = MAGIC.getBytes(UTF8);
+    //messages verified by one task of the shared pool
+    private static final int CHUNK_SIZE = 64;
+
+    private final String message;
+    private final String signature;
+    private final String address;
+
+    /**
+     * @param message
+     * @param signature - base64 compact signature
+     * @param address - base58 pay to public key hash address of the signer
+     */
+    public SignedMessage(String message, String signature, String address) {
+        this.message = message;
+        this.signature = signature;
+        this.address = address;
+    }
+
+    /**
+     * Signs a message, with a deterministic (RFC6979) nonce as Bitcoin Core does
+     *
+     * @param message
+     * @param key - private key, its compression flag selects the address
+     * @return signed message carrying the address of the key
+     * @throws Exception
+     */
+    public static SignedMessage sign(String message, ECKey key) throws Exception {
+        ECDSASignature signature = new ECDSA(hash(message), key, "big").sign();
+        String encoded = new String(Base64.encode(signature.toCompact()), UTF8);
+        return new SignedMessage(message, encoded, new Address(key.getPublicKeyHash()).toString());
+    }
+
+    /**
+     * Double SHA256 of the magic prefix and the message, as signed
+     *
+     * @param message
+     * @return
+     */
+    public static byte[] hash(String message) {
+        byte[] messageBytes = message.getBytes(UTF8);
+        byte[] magicLength = CompactInt.toBytes(MAGIC_BYTES.length);
+        byte[] messageLength = CompactInt.toBytes(messageBytes.length);
+        byte[] data = new byte[magicLength.length + MAGIC_BYTES.length + messageLength.length + messageBytes.length];
+        int offset = 0;
+        System.arraycopy(magicLength, 0, data, offset, magicLength.length);
+        offset += magicLength.length;
+        System.arraycopy(MAGIC_BYTES, 0, data, offset, MAGIC_BYTES.length);
+        offset += MAGIC_BYTES.length;
+        System.arraycopy(messageLength, 0, data, offset, messageLength.length);
+        offset += messageLength.length;
+        System.arraycopy(messageBytes, 0, data, offset, messageBytes.length);
+        return Hash.hash(data);
+    }
+
+    /**
+     * Recovers the public key of the signer
+     *
+     * @return public key, null if the signature matches no key
+     * @throws Exception - if the signature is malformed
+     */
+    public ECKey recover() throws Exception {
+        byte[] compact;
+        try {
+            compact = Base64.decode(signature.getBytes(UTF8));
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Invalid compact signature: base64");
+        }
+        return ECDSA.recoverPublicKey(hash(message), ECDSASignature.fromCompact(compact), "big");
+    }
+
+    /**
+     * Checks that the message was signed by the key of the address
+     *
+     * @return false if the signature is malformed, invalid or made by another key
+     */
+    public boolean verify() {
+        try {
+            byte[] addressBytes = ByteUtil.fromBase58WithChecksum(address);
+            if (addressBytes.length != 21 || addressBytes[0] != 0x0) {
+                //not a pay to public key hash address
+                return false;
+            }
+            ECKey key = recover();
+            return key != null && Arrays.equals(key.getPublicKeyHash(), Arrays.copyOfRange(addressBytes, 1, 21));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Verifies signed messages on the shared ForkJoinPool
+     *
+     * @param messages
+     * @return validity of each message, in order
+     */
+    public static boolean[] verify(List<SignedMessage> messages) {
+        boolean[] results = new boolean[messages.size()];
+        SharedPool.get().invoke(new VerifyTask(messages, results, 0, results.length));
+        return results;
+    }
+
+    /**
+     * Verifies signed messages on a caller supplied executor
+     *
+     * @param messages
+     * @param executor - executor running the chunks
+     * @return validity of each message, in order
+     * @throws Exception
+     */
+    public static boolean[] verify(final List<SignedMessage> messages, ExecutorService executor) throws Exception {
+        final boolean[] results = new boolean[messages.size()];
+        List<Callable<Void>> chunks = new ArrayList<Callable<Void>>();
+        for (int start = 0; start < results.length; start += CHUNK_SIZE) {
+            final int chunkStart = start;
+            final int chunkEnd = Math.min(results.length, start + CHUNK_SIZE);
+            chunks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    verifyChunk(messages, results, chunkStart, chunkEnd);
+                    return null;
+                }
+            });
+        }
+        SharedPool.invokeAll(executor, chunks);
+        return results;
+    }
+
+    private static void verifyChunk(List<SignedMessage> messages, boolean[] results, int start, int end) {
+        for (int i = start; i < end; i++) {
+            results[i] = messages.get(i).verify();
+        }
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    private static class VerifyTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<SignedMessage> messages;
+        private final boolean[] results;
+        private final int start;
+        private final int end;
+
+        VerifyTask(List<SignedMessage> messages, boolean[] results, int start, int end) {
+            this.messages = messages;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= CHUNK_SIZE) {
+                verifyChunk(messages, results, start, end);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new VerifyTask(messages, results, start, middle), new VerifyTask(messages, results, middle, end));
+            }
+        }
+    }
+}
@@ -1,32 +1,71 @@
 package com.bushidowallet.core.bitcoin.bip32;
 
+import com.bushidowallet.core.bitcoin.Address;
+import com.bushidowallet.core.bitcoin.util.LRUCache;
+import com.bushidowallet.core.bitcoin.util.SharedPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Created by Jesion on 2015-01-19.
+ *
+ * Intermediate nodes (every proper prefix of a derived path, e.g. m/k and m/k/0) are kept in a bounded cache
+ * keyed by their DerivationPath, so deriving consecutive keys of an account costs a single child derivation each.
+ * Hot paths should compile their DerivationPath once and reuse it rather than deriving by String.
+ * Derived keys are never modified once constructed, so cached nodes are safely shared between threads.
  */
 public class Derivation {
 
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    //number of consecutive keys a single task derives before work is split further
+    private static final int RANGE_BATCH_SIZE = 64;
+    private static final int MAX_INDEX = 0x7fffffff;
+
     private ExtendedKey root;
 
+    private LRUCache<DerivationPath, ExtendedKey> cache;
+
     public Derivation(ExtendedKey root) {
+        this(root, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param root - Master key all paths are derived from
+     * @param cacheSize - Maximum number of intermediate nodes kept
+     */
+    public Derivation(ExtendedKey root, int cacheSize) {
         this.root = root;
+        this.cache = new LRUCache<DerivationPath, ExtendedKey>(cacheSize);
     }
 
+    /**
+     * Derives a key by path such as m/44'/0'/0'/0/5, see DerivationPath.parse
+     *
+     * @param path
+     * @return
+     * @throws Exception
+     */
     public ExtendedKey derive(String path) throws Exception {
-        String[] p = path.split("/");
-        if (p.length == 2) {
-            int sequence = Integer.parseInt(p[1]);
-            return basic(sequence);
-        } else if (p.length == 3) {
-            int accountType = Integer.parseInt(p[2]);
-            int account = Integer.parseInt(p[1]);
-            return accountMaster(accountType, account);
-        } else if (p.length == 4) {
-            int accountType = Integer.parseInt(p[2]);
-            int account = Integer.parseInt(p[1]);
-            int key = Integer.parseInt(p[3]);
-            return accountKey(accountType, account, key);
+        return derive(DerivationPath.parse(path));
+    }
+
+    /**
+     * Derives a key by a compiled path, starting from its deepest cached ancestor
+     *
+     * @param path
+     * @return
+     * @throws Exception
+     */
+    public ExtendedKey derive(DerivationPath path) throws Exception {
+        if (path.isRoot()) {
+            return root;
         }
-        throw new Exception("Invalid derivation path");
+        return node(path.parent()).derive(path.last());
     }
 
     /**
@@ -39,7 +78,7 @@ public class Derivation {
      * @throws Exception
      */
     public ExtendedKey basic(int sequence) throws Exception {
-        return root.derive(sequence);
+        return node(DerivationPath.ROOT.child(sequence));
     }
 
     /**
@@ -71,8 +110,7 @@ public class Derivation {
      * @throws Exception
      */
     public ExtendedKey externalAccountMaster(int account) throws Exception {
-        ExtendedKey base = root.derive(account);
-        return base.derive(0);
+        return node(new DerivationPath(account, 0));
     }
 
     /**
@@ -85,8 +123,7 @@ public class Derivation {
      * @throws Exception
      */
     public ExtendedKey internalAccountMaster(int account) throws Exception {
-        ExtendedKey base = root.derive(account);
-        return base.derive(1);
+        return node(new DerivationPath(account, 1));
     }
 
     /**
@@ -104,4 +141,149 @@ public class Derivation {
         ExtendedKey base = accountMaster(accountType, account);
         return base.derive(key);
     }
+
+    /**
+     * Derives keys m/k/c/from .. m/k/c/(from + count - 1), spreading the work over a shared ForkJoinPool
+     *
+     * @param account
+     * @param chain - 0 for external, 1 for internal chain
+     * @param from - index of the first key
+     * @param count - number of keys
+     * @return keys, public keys and addresses in index order
+     * @throws Exception
+     */
+    public KeyRange deriveRange(int account, int chain, int from, int count) throws Exception {
+        final RangeDerivation range = new RangeDerivation(accountMaster(chain, account), from, count);
+        try {
+            SharedPool.get().invoke(new RangeTask(range, 0, count));
+        } catch (RangeException e) {
+            throw (Exception) e.getCause();
+        }
+        return range.toKeyRange();
+    }
+
+    /**
+     * Derives keys m/k/c/from .. m/k/c/(from + count - 1) on a caller supplied executor
+     *
+     * @param account
+     * @param chain - 0 for external, 1 for internal chain
+     * @param from - index of the first key
+     * @param count - number of keys
+     * @param executor - executor running the derivation batches
+     * @return keys, public keys and addresses in index order
+     * @throws Exception
+     */
+    public KeyRange deriveRange(int account, int chain, int from, int count, ExecutorService executor) throws Exception {
+        final RangeDerivation range = new RangeDerivation(accountMaster(chain, account), from, count);
+        List<Callable<Void>> batches = new ArrayList<Callable<Void>>();
+        for (int start = 0; start < count; start += RANGE_BATCH_SIZE) {
+            final int batchStart = start;
+            final int batchEnd = Math.min(count, start + RANGE_BATCH_SIZE);
+            batches.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    range.derive(batchStart, batchEnd);
+                    return null;
+                }
+            });
+        }
+        SharedPool.invokeAll(executor, batches);
+        return range.toKeyRange();
+    }
+
+    /**
+     * Gets the intermediate node cache, exposing its size and hit/miss statistics
+     * @return
+     */
+    public LRUCache<DerivationPath, ExtendedKey> getCache() {
+        return cache;
+    }
+
+    private ExtendedKey node(DerivationPath path) throws Exception {
+        if (path.isRoot()) {
+            return root;
+        }
+        ExtendedKey node = cache.get(path);
+        if (node == null) {
+            //two threads may race to derive the same node, both results are equal so either may win
+            node = node(path.parent()).derive(path.last());
+            cache.put(path, node);
+        }
+        return node;
+    }
+
+    /**
+     * Output arrays of a range derivation, every position is written by exactly one batch
+     */
+    private static class RangeDerivation {
+
+        private final ExtendedKey parent;
+        private final int from;
+        private final ExtendedKey[] keys;
+        private final byte[][] publicKeys;
+        private final Address[] addresses;
+
+        RangeDerivation(ExtendedKey parent, int from, int count) throws Exception {
+            if (from < 0 || count < 0 || (long) from + count - 1 > MAX_INDEX) {
+                throw new Exception("Invalid derivation range");
+            }
+            this.parent = parent;
+            this.from = from;
+            this.keys = new ExtendedKey[count];
+            this.publicKeys = new byte[count][];
+            this.addresses = new Address[count];
+        }
+
+        void derive(int start, int end) throws Exception {
+            for (int i = start; i < end; i++) {
+                ExtendedKey key = parent.derive(from + i);
+                keys[i] = key;
+                publicKeys[i] = key.getPublic();
+                addresses[i] = key.getAddress();
+            }
+        }
+
+        KeyRange toKeyRange() {
+            return new KeyRange(from, keys, publicKeys, addresses);
+        }
+    }
+
+    private static class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeDerivation range;
+        private final int start;
+        private final int end;
+
+        RangeTask(RangeDerivation range, int start, int end) {
+            this.range = range;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= RANGE_BATCH_SIZE) {
+                try {
+                    range.derive(start, end);
+                } catch (Exception e) {
+                    throw new RangeException(e);
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RangeTask(range, start, middle), new RangeTask(range, middle, end));
+            }
+        }
+    }
+
+    //carries checked derivation failures out of fork/join tasks
+    private static class RangeException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        RangeException(Exception cause) {
+            super(cause);
+        }
+    }
 }
@@ -0,0 +1,176 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import java.util.Arrays;
+
+/**
+ * A compiled BIP32 derivation path, e.g. m/44'/0'/0'/0/5
+ *
+ * Parsed once into child indices, hardened indices having the top bit set (i + 2^31).
+ * Instances are immutable; the parent path and hash code are memoized, so a compiled path can be kept and reused
+ * on hot paths (and as a cache key) without re-parsing or allocating.
+ */
+public final class DerivationPath {
+
+    public static final int HARDENED = 0x80000000;
+
+    public static final DerivationPath ROOT = new DerivationPath(new int[0], false);
+
+    private final int[] indices;
+    private int hash;
+    private volatile DerivationPath parent;
+
+    /**
+     * @param indices - child indices from the root, hardened ones with HARDENED bit set
+     */
+    public DerivationPath(int... indices) {
+        this(indices.clone(), false);
+    }
+
+    private DerivationPath(int[] indices, boolean unused) {
+        this.indices = indices;
+    }
+
+    /**
+     * Parses a path such as m/0'/1/2h, the m/ prefix is optional and ' or h mark hardened indices
+     *
+     * @param path
+     * @return
+     * @throws Exception
+     */
+    public static DerivationPath parse(String path) throws Exception {
+        if (path == null) {
+            throw new Exception("Invalid derivation path");
+        }
+        String p = path.trim();
+        if (p.equals("m") || p.equals("M") || p.length() == 0) {
+            return ROOT;
+        }
+        if (p.startsWith("m/") || p.startsWith("M/")) {
+            p = p.substring(2);
+        }
+        String[] segments = p.split("/", -1);
+        int[] indices = new int[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            indices[i] = parseIndex(segments[i], path);
+        }
+        return new DerivationPath(indices, false);
+    }
+
+    private static int parseIndex(String segment, String path) throws Exception {
+        boolean hardened = false;
+        String digits = segment;
+        if (segment.endsWith("'") || segment.endsWith("h") || segment.endsWith("H")) {
+            hardened = true;
+            digits = segment.substring(0, segment.length() - 1);
+        }
+        if (digits.length() == 0 || digits.length() > 10) {
+            throw new Exception("Invalid derivation path: " + path);
+        }
+        long index = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new Exception("Invalid derivation path: " + path);
+            }
+            index = index * 10 + (c - '0');
+        }
+        if (index > Integer.MAX_VALUE) {
+            throw new Exception("Derivation index out of range: " + path);
+        }
+        return hardened ? hardened((int) index) : (int) index;
+    }
+
+    public static int hardened(int index) {
+        return index | HARDENED;
+    }
+
+    public static boolean isHardened(int index) {
+        return (index & HARDENED) != 0;
+    }
+
+    public int depth() {
+        return indices.length;
+    }
+
+    public boolean isRoot() {
+        return indices.length == 0;
+    }
+
+    /**
+     * Gets child index at a given level, 0 being the child of the root
+     *
+     * @param level
+     * @return
+     */
+    public int get(int level) {
+        return indices[level];
+    }
+
+    /**
+     * Gets the index of the last derivation step
+     * @return
+     */
+    public int last() {
+        return indices[indices.length - 1];
+    }
+
+    public int[] toArray() {
+        return indices.clone();
+    }
+
+    public DerivationPath child(int index) {
+        int[] c = Arrays.copyOf(indices, indices.length + 1);
+        c[indices.length] = index;
+        DerivationPath path = new DerivationPath(c, false);
+        path.parent = this;
+        return path;
+    }
+
+    public DerivationPath hardenedChild(int index) {
+        return child(hardened(index));
+    }
+
+    /**
+     * Gets the path without its last step, memoized
+     *
+     * @return
+     */
+    public DerivationPath parent() {
+        if (isRoot()) {
+            return null;
+        }
+        DerivationPath p = parent;
+        if (p == null) {
+            p = indices.length == 1 ? ROOT : new DerivationPath(Arrays.copyOf(indices, indices.length - 1), false);
+            parent = p;
+        }
+        return p;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DerivationPath && Arrays.equals(indices, ((DerivationPath) obj).indices);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Arrays.hashCode(indices);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("m");
+        for (int index : indices) {
+            sb.append('/').append(index & ~HARDENED);
+            if (isHardened(index)) {
+                sb.append('\'');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,10 +1,12 @@
 package com.bushidowallet.core.bitcoin.bip32;
 
+import com.bushidowallet.core.bitcoin.ecdsa.ECDSASignature;
+import com.bushidowallet.core.bitcoin.ecdsa.FixedBaseMultiplier;
+import com.bushidowallet.core.bitcoin.ecdsa.GLVMultiplier;
+import com.bushidowallet.core.bitcoin.ecdsa.PointCache;
+import com.bushidowallet.core.bitcoin.ecdsa.Schnorr;
+import com.bushidowallet.core.bitcoin.ecdsa.Taproot;
 import com.bushidowallet.core.crypto.util.ByteUtil;
-import org.bouncycastle.asn1.ASN1InputStream;
-import org.bouncycastle.asn1.ASN1Integer;
-import org.bouncycastle.asn1.DERSequenceGenerator;
-import org.bouncycastle.asn1.DLSequence;
 import org.bouncycastle.asn1.sec.SECNamedCurves;
 import org.bouncycastle.asn1.x9.X9ECParameters;
 import org.bouncycastle.crypto.digests.SHA256Digest;
@@ -13,9 +15,9 @@ import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
 import org.bouncycastle.crypto.params.ECPublicKeyParameters;
 import org.bouncycastle.crypto.signers.ECDSASigner;
 import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.util.Arrays;
 
-import java.io.ByteArrayOutputStream;
 import java.math.BigInteger;
 
 /**
@@ -27,12 +29,14 @@ import java.math.BigInteger;
  */
 public class ECKey {
 
-    public static final X9ECParameters curve = SECNamedCurves.getByName("secp256k1");
+    //secp256k1, multiplying points by arbitrary scalars through the GLV endomorphism
+    public static final X9ECParameters curve = GLVMultiplier.configure(SECNamedCurves.getByName("secp256k1"));
     public static final ECDomainParameters params = new ECDomainParameters(curve.getCurve(), curve.getG(), curve.getN(), curve.getH());
 
     private BigInteger priv;
-    private byte[] pub;
-    private byte[] pubKeyHash;
+    //public key and its hash are computed on first use when constructed from a private key
+    private volatile byte[] pub;
+    private volatile byte[] pubKeyHash;
     private boolean compressed;
 
     //l is unsigned byte[] - coming from left part of bitcoin key hash
@@ -47,9 +51,15 @@ public class ECKey {
 
         if (parent.hasPrivate()) {
             this.priv = new BigInteger(1, l).add(parent.priv).mod(curve.getN());
-            setPub(parent.compressed, true, null);
+            this.compressed = parent.compressed;
         } else {
-            throw new Error("Support derived ECKey with public key only");
+            //public parent (CKDpub), child point is parent point + l*G
+            ECPoint point = parent.getPoint().add(FixedBaseMultiplier.multiplyG(new BigInteger(1, l))).normalize();
+            if (point.isInfinity()) {
+                throw new Error("Derived public key is the point at infinity");
+            }
+            this.compressed = parent.compressed;
+            this.pub = point.getEncoded(parent.compressed);
         }
     }
 
@@ -58,11 +68,11 @@ public class ECKey {
     //isPrivate is set to true in this case,
     //otherwise its a public key only
     public ECKey(byte[] bytes, boolean compressed, boolean isPrivate) {
+        this.compressed = compressed;
         if (isPrivate == true) {
             this.priv = new BigInteger (1, bytes);
-            setPub(compressed, true, null);
         } else {
-            setPub(compressed, false, bytes);
+            this.pub = bytes;
         }
     }
 
@@ -74,24 +84,72 @@ public class ECKey {
         ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
         signer.init(true, new ECPrivateKeyParameters(priv, params));
         BigInteger[] signature = signer.generateSignature(message);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        DERSequenceGenerator seqGen = new DERSequenceGenerator(outputStream);
-        seqGen.addObject(new ASN1Integer(signature[0]));
-        seqGen.addObject(new ASN1Integer(signature[1]));
-        seqGen.close();
-        return outputStream.toByteArray();
+        return new ECDSASignature(signature[0], signature[1], compressed).toDER();
     }
 
     public boolean verify(byte[] message, byte[] signature) throws Exception
     {
-        ASN1InputStream asn1 = new ASN1InputStream(signature);
+        //strict DER, rejected before any curve arithmetic
+        ECDSASignature parsed = ECDSASignature.fromDER(signature, 0, signature.length);
         ECDSASigner signer = new ECDSASigner();
         //not for signing...
-        signer.init(false, new ECPublicKeyParameters(curve.getCurve().decodePoint(pub), params));
-        DLSequence seq = (DLSequence) asn1.readObject();
-        BigInteger r = ((ASN1Integer) seq.getObjectAt(0)).getPositiveValue();
-        BigInteger s = ((ASN1Integer) seq.getObjectAt(1)).getPositiveValue();
-        return signer.verifySignature(message, r, s);
+        signer.init(false, new ECPublicKeyParameters(getPoint(), params));
+        return signer.verifySignature(message, parsed.r, parsed.s);
+    }
+
+    /**
+     * Signs a message with BIP340 Schnorr, with fresh auxiliary randomness
+     *
+     * @param message
+     * @return 64 byte signature
+     * @throws Exception
+     */
+    public byte[] signSchnorr(byte[] message) throws Exception {
+        if (priv == null) {
+            throw new Exception("Unable to sign");
+        }
+        return Schnorr.sign(priv, message);
+    }
+
+    /**
+     * Signs a message with BIP340 Schnorr
+     *
+     * @param message
+     * @param auxRand - 32 bytes, all zero for deterministic signatures
+     * @return 64 byte signature
+     * @throws Exception
+     */
+    public byte[] signSchnorr(byte[] message, byte[] auxRand) throws Exception {
+        if (priv == null) {
+            throw new Exception("Unable to sign");
+        }
+        return Schnorr.sign(priv, message, auxRand);
+    }
+
+    public boolean verifySchnorr(byte[] message, byte[] signature) {
+        return Schnorr.verify(getXOnlyPublic(), message, signature);
+    }
+
+    /**
+     * Gets the BIP340 x-only public key, the x coordinate of the public key
+     * @return
+     */
+    public byte[] getXOnlyPublic() {
+        return Schnorr.toXOnly(getPublic());
+    }
+
+    /**
+     * Tweaks this key, as the internal key of a Taproot output, into the output key (BIP341)
+     *
+     * @param merkleRoot - 32 bytes, null for key path only outputs (BIP86)
+     * @return output key, with a private key if this key has one, its x-only public key is placed in the output
+     * @throws Exception
+     */
+    public ECKey tweakTaproot(byte[] merkleRoot) throws Exception {
+        if (priv != null) {
+            return new ECKey(Taproot.tweakPrivateKey(priv, merkleRoot).toByteArray(), true);
+        }
+        return new ECKey(Taproot.tweakPublicKey(getXOnlyPublic(), merkleRoot).getEncoded(true), true, false);
     }
 
     public byte[] getPrivate()
@@ -125,11 +183,53 @@ public class ECKey {
     }
 
     public byte[] getPublicKeyHash() {
-        return pubKeyHash;
+        byte[] hash = pubKeyHash;
+        if (hash == null) {
+            synchronized (this) {
+                hash = pubKeyHash;
+                if (hash == null) {
+                    hash = new Hash(getPublic()).keyHash();
+                    pubKeyHash = hash;
+                }
+            }
+        }
+        return hash;
     }
 
     public byte[] getPublic() {
-        return pub;
+        byte[] p = pub;
+        if (p == null) {
+            synchronized (this) {
+                p = pub;
+                if (p == null) {
+                    p = FixedBaseMultiplier.multiplyG(priv).getEncoded(compressed);
+                    pub = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Gets the public key as a validated curve point, decoded through the default PointCache
+     * @return
+     */
+    public ECPoint getPoint() {
+        return PointCache.getDefault().decode(getPublic());
+    }
+
+    /**
+     * Gets an Integer representation of the first 4 bytes of public key hash, as used by BIP32 to identify a parent key
+     * @return
+     */
+    public int getFingerprint() {
+        byte[] hash = getPublicKeyHash();
+        int fingerprint = 0;
+        for (int i = 0; i < 4; i++) {
+            fingerprint <<= 8;
+            fingerprint |= hash[i] & 0xff;
+        }
+        return fingerprint;
     }
 
     public String getPublicHex() {
@@ -149,16 +249,6 @@ public class ECKey {
         return false;
     }
 
-    private void setPub(boolean compressed, boolean fromPrivate, byte[] bytes) {
-        this.compressed = compressed;
-        if (fromPrivate == true) {
-            pub = curve.getG().multiply(priv).getEncoded(compressed);
-        } else {
-            pub = bytes;
-        }
-        pubKeyHash = new Hash(pub).keyHash();
-    }
-
     private byte[] getWIFBytes() throws Exception {
         if (hasPrivate() == true) {
             byte[] k = getPrivate();
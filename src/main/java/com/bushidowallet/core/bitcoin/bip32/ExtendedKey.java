@@ -1,12 +1,10 @@
 package com.bushidowallet.core.bitcoin.bip32;
 
 import com.bushidowallet.core.bitcoin.Address;
+import com.bushidowallet.core.bitcoin.SegwitAddress;
 import com.bushidowallet.core.crypto.util.ByteUtil;
 import org.bouncycastle.util.Arrays;
 
-import javax.crypto.Mac;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.ByteArrayOutputStream;
 
 /**
@@ -25,6 +23,10 @@ public class ExtendedKey {
     private int sequence;
     private int depth;
     private int parentFingerprint;
+    //set for derived children, parent fingerprint is then computed only when serializing or comparing
+    private ECKey parentKey;
+    //HMAC key schedule of chainCode, built on first child derivation
+    private volatile HmacSHA512Key chainCodeKey;
 
     /**
      * Constructing master
@@ -77,6 +79,14 @@ public class ExtendedKey {
         }
     }
 
+    /**
+     * Constructing a child key, see getChild
+     */
+    private ExtendedKey(byte[] keyHash, int sequence, int depth, ECKey parent) {
+        this(keyHash, parent.isCompressed(), sequence, depth, 0, parent);
+        this.parentKey = parent;
+    }
+
     /**
      * Constructing a parsed key
      *
@@ -97,7 +107,7 @@ public class ExtendedKey {
     public String serializePublic() throws Exception {
         return new ExtendedKeySerializer().serialize(xpub,
                 this.depth,
-                this.parentFingerprint,
+                getParentFingerprint(),
                 this.sequence,
                 this.chainCode,
                 this.ecKey.getPublic()
@@ -108,7 +118,7 @@ public class ExtendedKey {
         if (ecKey.hasPrivate()) {
             return new ExtendedKeySerializer().serialize(xprv,
                     this.depth,
-                    this.parentFingerprint,
+                    getParentFingerprint(),
                     this.sequence,
                     this.chainCode,
                     this.ecKey.getPrivate()
@@ -135,8 +145,8 @@ public class ExtendedKey {
 
     /**
      * Derives a child key from a valid instance of key
-     * Currently only supports simple derivation (m/i', where m is master and i is level-1 derivation of master)
-     * Key derivation spec is much richer and includes accounts with internal/external key chains as well, due to be implemented
+     * Indices with the top bit set (see DerivationPath.hardened) derive hardened children, which requires a private key
+     * If this key holds a public key only (i.e. was parsed from xpub), the child holds a public key only as well
      * @return
      */
     public ExtendedKey derive(int i) throws Exception {
@@ -144,23 +154,54 @@ public class ExtendedKey {
         return getChild(i);
     }
 
+    /**
+     * Derives a descendant key following every step of the path, relative to this key
+     *
+     * @param path
+     * @return
+     * @throws Exception
+     */
+    public ExtendedKey derive(DerivationPath path) throws Exception {
+        ExtendedKey key = this;
+        for (int level = 0; level < path.depth(); level++) {
+            key = key.getChild(path.get(level));
+        }
+        return key;
+    }
+
     private ExtendedKey getChild(int i) throws Exception {
 
         //Hmac hashing algo, which is using parents chainCode as its key
-        Mac mac = Mac.getInstance("HmacSHA512", "BC");
-        SecretKey key = new SecretKeySpec(chainCode, "HmacSHA512");
-        mac.init (key);
-        //treating master's pub key as base... not sure why but simple m/i derivation goes by pub only but has to be tested a lot
-        byte[] pub = this.ecKey.getPublic();
-        byte[] child = new byte[pub.length + 4];
-        System.arraycopy(pub, 0, child, 0, pub.length);
+        HmacSHA512Key key = chainCodeKey;
+        if (key == null) {
+            key = new HmacSHA512Key(chainCode);
+            chainCodeKey = key;
+        }
+        byte[] child;
+        int offset;
+        if (DerivationPath.isHardened(i)) {
+            //hardened children are derived from 0x00 || private key, so they can't be derived from xpub
+            if (!this.ecKey.hasPrivate()) {
+                throw new Exception("Hardened derivation requires a private key");
+            }
+            byte[] priv = this.ecKey.getPrivate();
+            child = new byte[1 + priv.length + 4];
+            System.arraycopy(priv, 0, child, 1, priv.length);
+            offset = 1 + priv.length;
+        } else {
+            //normal children are derived from the public key
+            byte[] pub = this.ecKey.getPublic();
+            child = new byte[pub.length + 4];
+            System.arraycopy(pub, 0, child, 0, pub.length);
+            offset = pub.length;
+        }
         //now some byte shifting
-        child[pub.length] = (byte) ((i >>> 24) & 0xff);
-        child[pub.length + 1] = (byte) ((i >>> 16) & 0xff);
-        child[pub.length + 2] = (byte) ((i >>> 8) & 0xff);
-        child[pub.length + 3] = (byte) (i & 0xff);
-        byte[] keyHash = mac.doFinal(child);
-        return new ExtendedKey(keyHash, this.ecKey.isCompressed(), i, this.depth + 1, getFingerPrint(), this.ecKey);
+        child[offset] = (byte) ((i >>> 24) & 0xff);
+        child[offset + 1] = (byte) ((i >>> 16) & 0xff);
+        child[offset + 2] = (byte) ((i >>> 8) & 0xff);
+        child[offset + 3] = (byte) (i & 0xff);
+        byte[] keyHash = key.mac(child);
+        return new ExtendedKey(keyHash, i, this.depth + 1, this.ecKey);
     }
 
     /**
@@ -169,12 +210,11 @@ public class ExtendedKey {
      */
     public int getFingerPrint()
     {
-        int fingerprint = 0;
-        for (int i = 0; i < 4; i++) {
-            fingerprint <<= 8;
-            fingerprint |= this.ecKey.getPublicKeyHash()[i] & 0xff;
-        }
-        return fingerprint;
+        return this.ecKey.getFingerprint();
+    }
+
+    private int getParentFingerprint() {
+        return parentKey != null ? parentKey.getFingerprint() : parentFingerprint;
     }
 
     public byte[] getChainCode() {
@@ -203,6 +243,24 @@ public class ExtendedKey {
         return new Address(this.ecKey.getPublicKeyHash());
     }
 
+    /**
+     * Gets the Taproot output key of this key, committing to no script (BIP86)
+     * @return key tweaked as in BIP341, with a private key if this key has one
+     * @throws Exception
+     */
+    public ECKey getTaprootKey() throws Exception {
+        return this.ecKey.tweakTaproot(null);
+    }
+
+    /**
+     * Gets the BIP86 pay to Taproot address, derive m/86'/0'/0'/change/index first
+     * @return
+     * @throws Exception
+     */
+    public SegwitAddress getTaprootAddress() throws Exception {
+        return SegwitAddress.fromTaprootKey(getTaprootKey().getXOnlyPublic());
+    }
+
     /**
      * Gets public key bytes
      * @return
@@ -227,7 +285,7 @@ public class ExtendedKey {
             return ecKey.equals(((ExtendedKey) obj).ecKey)
                     && Arrays.areEqual(chainCode, ((ExtendedKey) obj).chainCode)
                     && depth == ((ExtendedKey) obj).depth
-                    && parentFingerprint == ((ExtendedKey) obj).parentFingerprint
+                    && getParentFingerprint() == ((ExtendedKey) obj).getParentFingerprint()
                     && sequence == ((ExtendedKey) obj).sequence;
         }
         return false;
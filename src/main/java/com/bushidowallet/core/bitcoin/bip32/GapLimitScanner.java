@@ -0,0 +1,170 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import com.bushidowallet.core.bitcoin.Address;
+import com.bushidowallet.core.bitcoin.util.SharedPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * BIP44 style address discovery
+ *
+ * Scans the external (m/k/0) and internal (m/k/1) chains of an account until gapLimit consecutive unused addresses are found.
+ * Keys are derived in batches; while the addresses of one batch are queried, the next batch is derived on an executor,
+ * so derivation and lookup latency overlap instead of adding up.
+ */
+public class GapLimitScanner {
+
+    public static final int DEFAULT_GAP_LIMIT = 20;
+
+    private static final int EXTERNAL = 0;
+    private static final int INTERNAL = 1;
+    private static final int MAX_INDEX = 0x7fffffff;
+
+    private final Derivation derivation;
+    private final UsageLookup lookup;
+    private final int gapLimit;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    public GapLimitScanner(Derivation derivation, UsageLookup lookup) {
+        this(derivation, lookup, DEFAULT_GAP_LIMIT, DEFAULT_GAP_LIMIT, SharedPool.get());
+    }
+
+    /**
+     * @param derivation - derivation of the wallet root
+     * @param lookup - address usage lookup
+     * @param gapLimit - number of consecutive unused addresses ending a chain
+     * @param batchSize - number of keys derived ahead of the lookup
+     * @param executor - executor deriving batches
+     */
+    public GapLimitScanner(Derivation derivation, UsageLookup lookup, int gapLimit, int batchSize, ExecutorService executor) {
+        if (gapLimit <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Gap limit and batch size must be positive");
+        }
+        this.derivation = derivation;
+        this.lookup = lookup;
+        this.gapLimit = gapLimit;
+        this.batchSize = batchSize;
+        this.executor = executor;
+    }
+
+    /**
+     * Scans both chains of an account
+     *
+     * @param account
+     * @return
+     * @throws Exception
+     */
+    public Result scan(int account) throws Exception {
+        return new Result(scanChain(account, EXTERNAL), scanChain(account, INTERNAL));
+    }
+
+    /**
+     * Scans a single chain of an account
+     *
+     * @param account
+     * @param chain - 0 for external, 1 for internal chain
+     * @return
+     * @throws Exception
+     */
+    public ChainResult scanChain(int account, int chain) throws Exception {
+        final ChainResult result = new ChainResult();
+        int gap = 0;
+        Future<KeyRange> next = submit(account, chain, 0);
+        try {
+            while (next != null) {
+                KeyRange range = SharedPool.await(next);
+                int nextFrom = range.getFrom() + range.size();
+                //derive ahead while this batch is being looked up
+                next = range.size() == batchSize && nextFrom <= MAX_INDEX - batchSize ? submit(account, chain, nextFrom) : null;
+                for (int i = 0; i < range.size() && gap < gapLimit; i++) {
+                    Address address = range.getAddress(i);
+                    result.scanned++;
+                    if (lookup.isUsed(address.getHash())) {
+                        result.indices.add(range.getFrom() + i);
+                        result.addresses.add(address);
+                        gap = 0;
+                    } else {
+                        gap++;
+                    }
+                }
+                if (gap >= gapLimit) {
+                    break;
+                }
+            }
+        } finally {
+            if (next != null) {
+                next.cancel(true);
+            }
+        }
+        return result;
+    }
+
+    private Future<KeyRange> submit(final int account, final int chain, final int from) {
+        return executor.submit(new Callable<KeyRange>() {
+            @Override
+            public KeyRange call() throws Exception {
+                return derivation.deriveRange(account, chain, from, batchSize);
+            }
+        });
+    }
+
+    public static class Result {
+
+        private final ChainResult external;
+        private final ChainResult internal;
+
+        Result(ChainResult external, ChainResult internal) {
+            this.external = external;
+            this.internal = internal;
+        }
+
+        public ChainResult getExternal() {
+            return external;
+        }
+
+        public ChainResult getInternal() {
+            return internal;
+        }
+    }
+
+    public static class ChainResult {
+
+        private final List<Integer> indices = new ArrayList<Integer>();
+        private final List<Address> addresses = new ArrayList<Address>();
+        private int scanned;
+
+        /**
+         * Gets indices of used addresses, ascending
+         * @return
+         */
+        public List<Integer> getUsedIndices() {
+            return Collections.unmodifiableList(indices);
+        }
+
+        public List<Address> getUsedAddresses() {
+            return Collections.unmodifiableList(addresses);
+        }
+
+        /**
+         * Gets the index following the last used address, i.e. the next address to hand out
+         * @return
+         */
+        public int getNextIndex() {
+            return indices.isEmpty() ? 0 : indices.get(indices.size() - 1) + 1;
+        }
+
+        /**
+         * Gets the number of addresses queried
+         * @return
+         */
+        public int getScanned() {
+            return scanned;
+        }
+    }
+}
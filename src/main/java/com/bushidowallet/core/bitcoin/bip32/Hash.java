@@ -14,7 +14,8 @@ public class Hash {
 
     private static String SHA256 = "SHA-256";
     private static String HmacSHA256 = "HmacSHA256";
-    private static String HmacSHA512 = "HmacSHA512";
+    //key schedule of the master key HMAC is the same for every wallet
+    private static final HmacSHA512Key bitcoinSeedKey = new HmacSHA512Key(Seed.BITCOIN_SEED.getBytes());
     private byte[] input;
     private int rounds = 50000;
     private String func = SHA256;
@@ -63,10 +64,10 @@ public class Hash {
      * @throws Exception
      */
     public byte[] getHmacSHA512(String keyStr) throws Exception {
-        final SecretKeySpec key = new SecretKeySpec(keyStr.getBytes(), HmacSHA512);
-        final Mac mac = Mac.getInstance(HmacSHA512, "BC");
-        mac.init(key);
-        return mac.doFinal(this.input);
+        if (Seed.BITCOIN_SEED.equals(keyStr)) {
+            return bitcoinSeedKey.mac(this.input);
+        }
+        return new HmacSHA512Key(keyStr.getBytes()).mac(this.input);
     }
 
     public byte[] getHmacSHA256(byte[] keyBytes) throws Exception {
@@ -0,0 +1,348 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Membership index of 20 byte hash160s (public key hashes and script hashes) of derived keys,
+ * mapping each to the id of the root it was derived from and its derivation path.
+ *
+ * Open addressing with linear probing; hash bytes, root ids and leaf indices are stored in primitive arrays and
+ * the path of a key as a reference to the path of its chain, shared by all keys indexed by putAll, so the index
+ * holds no object per key. The table is kept at most half full.
+ * Hash160s are uniformly distributed, so their leading bytes serve as the hash directly.
+ *
+ * Writers are serialized and lookups take no lock: a slot is published with a volatile write of its chain after its
+ * other values are in place and never written again, a replaced hash is moved to a new slot (the old one is only
+ * marked removed), and a growing table is rebuilt aside, then swapped in.
+ * Lookups through a Table (see snapshot) allocate nothing; get wraps the values of a hit into an Entry.
+ */
+public class Hash160Index {
+
+    public static final int HASH_LENGTH = 20;
+
+    private static final int MIN_CAPACITY = 16;
+    //chain of a root key, whose path has no index
+    private static final DerivationPath NO_CHAIN = new DerivationPath();
+
+    private volatile Table table;
+    private int size;
+    //occupied slots, removed ones included
+    private int used;
+
+    public Hash160Index() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize - number of hashes the index is sized for upfront
+     */
+    public Hash160Index(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative");
+        }
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds a hash or replaces the root id and path it maps to
+     *
+     * @param hash160
+     * @param rootId - caller assigned id of the root key
+     * @param path - path of the key relative to its root
+     * @return true if the hash was not indexed yet
+     */
+    public boolean put(byte[] hash160, int rootId, DerivationPath path) {
+        if (path.isRoot()) {
+            return put(hash160, rootId, NO_CHAIN, 0);
+        }
+        return put(hash160, rootId, path.parent(), path.last());
+    }
+
+    /**
+     * Adds a hash or replaces the root id and path it maps to
+     *
+     * @param hash160
+     * @param rootId - caller assigned id of the root key
+     * @param chainPath - path of the parent of the key, referenced as is
+     * @param index - child index of the key
+     * @return true if the hash was not indexed yet
+     */
+    public synchronized boolean put(byte[] hash160, int rootId, DerivationPath chainPath, int index) {
+        if (hash160 == null || hash160.length != HASH_LENGTH) {
+            throw new IllegalArgumentException("Invalid hash160 length");
+        }
+        if (chainPath == null) {
+            throw new IllegalArgumentException("Chain path must not be null");
+        }
+        Table t = table;
+        long k0 = readLong(hash160, 0);
+        long k1 = readLong(hash160, 8);
+        int k2 = readInt(hash160, 16);
+        int slot = t.slotOf(k0, k1, k2);
+        final boolean added = t.chains.get(slot) == null;
+        if ((used + 1) * 2 > t.capacity()) {
+            t = t.grow();
+            slot = t.slotOf(k0, k1, k2);
+            used = size;
+        }
+        if (added) {
+            t.insert(slot, k0, k1, k2, rootId, chainPath, index);
+            size++;
+        } else {
+            //the new slot is further along the probe sequence, lookups find the old one until it is removed
+            t.insert(t.freeSlotAfter(slot), k0, k1, k2, rootId, chainPath, index);
+            t.chains.set(slot, new Removed((DerivationPath) t.chains.get(slot)));
+        }
+        used++;
+        table = t;
+        return added;
+    }
+
+    /**
+     * Indexes public key hash of the key at path
+     *
+     * @param key
+     * @param rootId
+     * @param path
+     * @return true if the hash was not indexed yet
+     */
+    public boolean put(ExtendedKey key, int rootId, DerivationPath path) {
+        return put(key.getECKey().getPublicKeyHash(), rootId, path);
+    }
+
+    /**
+     * Indexes public key hashes of all keys of a range derived from the chain at chainPath
+     *
+     * @param range
+     * @param rootId
+     * @param chainPath - path of the range parent, e.g. m/k/0
+     */
+    public void putAll(KeyRange range, int rootId, DerivationPath chainPath) {
+        for (int i = 0; i < range.size(); i++) {
+            put(range.getAddress(i).getHash(), rootId, chainPath, range.getFrom() + i);
+        }
+    }
+
+    /**
+     * Gets the current table, for lookups that allocate nothing. A slot found in it keeps its values whatever
+     * is put later; hashes put later are found in it until the index grows and replaces it
+     *
+     * @return
+     */
+    public Table snapshot() {
+        return table;
+    }
+
+    public Entry get(byte[] hash160) {
+        return get(hash160, 0);
+    }
+
+    /**
+     * Looks up the 20 bytes of buf starting at offset, e.g. the hash pushed by an output script
+     *
+     * @param buf
+     * @param offset
+     * @return the entry or null if the hash is not indexed
+     */
+    public Entry get(byte[] buf, int offset) {
+        Table t = table;
+        int slot = t.find(buf, offset);
+        if (slot < 0) {
+            return null;
+        }
+        return new Entry(t.rootIdAt(slot), t.chainAt(slot), t.indexAt(slot));
+    }
+
+    public boolean contains(byte[] hash160) {
+        return contains(hash160, 0);
+    }
+
+    public boolean contains(byte[] buf, int offset) {
+        return table.find(buf, offset) >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static long readLong(byte[] buf, int offset) {
+        return ((long) readInt(buf, offset) << 32) | (readInt(buf, offset + 4) & 0xffffffffL);
+    }
+
+    private static int readInt(byte[] buf, int offset) {
+        return (buf[offset] & 0xff) << 24
+                | (buf[offset + 1] & 0xff) << 16
+                | (buf[offset + 2] & 0xff) << 8
+                | (buf[offset + 3] & 0xff);
+    }
+
+    /**
+     * Root id and path a hash160 was derived at, read from a Table by get; getPath builds the full path
+     */
+    public static final class Entry {
+
+        private final int rootId;
+        //null for a root key
+        private final DerivationPath chain;
+        private final int index;
+
+        Entry(int rootId, DerivationPath chain, int index) {
+            this.rootId = rootId;
+            this.chain = chain;
+            this.index = index;
+        }
+
+        public int getRootId() {
+            return rootId;
+        }
+
+        public DerivationPath getPath() {
+            return chain == null ? DerivationPath.ROOT : chain.child(index);
+        }
+
+        /**
+         * @return path of the parent of the key, as passed to putAll, null for a root key
+         */
+        public DerivationPath getChainPath() {
+            return chain;
+        }
+
+        /**
+         * @return child index of the key, 0 for a root key
+         */
+        public int getIndex() {
+            return index;
+        }
+    }
+
+    /**
+     * Slots of the index at some point, see snapshot. Values are read by the slot returned by find,
+     * on the same Table
+     */
+    public static final class Table {
+
+        private final int mask;
+        private final long[] k0;
+        private final long[] k1;
+        private final int[] k2;
+        private final int[] rootIds;
+        private final int[] leafIndex;
+        //a slot is occupied once its chain is set, the other arrays are written before that and never after;
+        //a replaced one holds its chain in a Removed
+        private final AtomicReferenceArray<Object> chains;
+
+        Table(int capacity) {
+            this.mask = capacity - 1;
+            this.k0 = new long[capacity];
+            this.k1 = new long[capacity];
+            this.k2 = new int[capacity];
+            this.rootIds = new int[capacity];
+            this.leafIndex = new int[capacity];
+            this.chains = new AtomicReferenceArray<Object>(capacity);
+        }
+
+        /**
+         * Looks up the 20 bytes of buf starting at offset
+         *
+         * @param buf
+         * @param offset
+         * @return slot of the hash, or -1 if it is not indexed
+         */
+        public int find(byte[] buf, int offset) {
+            int slot = slotOf(readLong(buf, offset), readLong(buf, offset + 8), readInt(buf, offset + 16));
+            return chains.get(slot) == null ? -1 : slot;
+        }
+
+        /**
+         * @param slot - slot returned by find
+         * @return caller assigned id of the root key
+         */
+        public int rootIdAt(int slot) {
+            return rootIds[slot];
+        }
+
+        /**
+         * @param slot - slot returned by find
+         * @return path of the parent of the key, as passed to putAll, null for a root key
+         */
+        public DerivationPath chainAt(int slot) {
+            Object value = chains.get(slot);
+            DerivationPath chain = value instanceof Removed ? ((Removed) value).chain : (DerivationPath) value;
+            return chain == NO_CHAIN ? null : chain;
+        }
+
+        /**
+         * @param slot - slot returned by find
+         * @return child index of the key, 0 for a root key
+         */
+        public int indexAt(int slot) {
+            return leafIndex[slot];
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        /**
+         * Gets the slot holding the key, or the empty slot ending its probe sequence
+         */
+        int slotOf(long key0, long key1, int key2) {
+            int slot = (int) (key0 ^ (key0 >>> 32)) & mask;
+            while (true) {
+                Object chain = chains.get(slot);
+                if (chain == null
+                        || (!(chain instanceof Removed) && k0[slot] == key0 && k1[slot] == key1 && k2[slot] == key2)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        int freeSlotAfter(int slot) {
+            do {
+                slot = (slot + 1) & mask;
+            } while (chains.get(slot) != null);
+            return slot;
+        }
+
+        void insert(int slot, long key0, long key1, int key2, int rootId, DerivationPath chain, int index) {
+            k0[slot] = key0;
+            k1[slot] = key1;
+            k2[slot] = key2;
+            rootIds[slot] = rootId;
+            leafIndex[slot] = index;
+            chains.set(slot, chain);
+        }
+
+        Table grow() {
+            Table grown = new Table(capacity() << 1);
+            for (int i = 0; i <= mask; i++) {
+                Object chain = chains.get(i);
+                if (chain != null && !(chain instanceof Removed)) {
+                    grown.insert(grown.slotOf(k0[i], k1[i], k2[i]), k0[i], k1[i], k2[i], rootIds[i], (DerivationPath) chain, leafIndex[i]);
+                }
+            }
+            return grown;
+        }
+    }
+
+    /**
+     * Chain of a slot whose hash was replaced in a later slot
+     */
+    private static final class Removed {
+
+        private final DerivationPath chain;
+
+        Removed(DerivationPath chain) {
+            this.chain = chain;
+        }
+    }
+}
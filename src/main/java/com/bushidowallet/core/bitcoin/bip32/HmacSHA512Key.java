@@ -0,0 +1,84 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import org.bouncycastle.crypto.digests.SHA512Digest;
+
+/**
+ * HMAC-SHA512 with a precomputed key schedule
+ *
+ * The digest states after absorbing the inner and outer padded key are computed once in the constructor,
+ * so every MAC costs only the compressions of the message and of the inner hash.
+ * Those keyed states are never modified after construction; MACs are computed on a per-thread working digest
+ * restored from them, so one instance is safely shared between threads and no JCA provider lookup is involved.
+ */
+public final class HmacSHA512Key {
+
+    private static final int BLOCK_LENGTH = 128;
+    private static final int MAC_LENGTH = 64;
+
+    private static final ThreadLocal<Workspace> workspace = new ThreadLocal<Workspace>() {
+        @Override
+        protected Workspace initialValue() {
+            return new Workspace();
+        }
+    };
+
+    private final SHA512Digest inner;
+    private final SHA512Digest outer;
+
+    public HmacSHA512Key(byte[] key) {
+        byte[] block = new byte[BLOCK_LENGTH];
+        if (key.length > BLOCK_LENGTH) {
+            SHA512Digest digest = new SHA512Digest();
+            digest.update(key, 0, key.length);
+            digest.doFinal(block, 0);
+        } else {
+            System.arraycopy(key, 0, block, 0, key.length);
+        }
+        byte[] pad = new byte[BLOCK_LENGTH];
+        inner = new SHA512Digest();
+        for (int i = 0; i < BLOCK_LENGTH; i++) {
+            pad[i] = (byte) (block[i] ^ 0x36);
+        }
+        inner.update(pad, 0, BLOCK_LENGTH);
+        outer = new SHA512Digest();
+        for (int i = 0; i < BLOCK_LENGTH; i++) {
+            pad[i] = (byte) (block[i] ^ 0x5c);
+        }
+        outer.update(pad, 0, BLOCK_LENGTH);
+    }
+
+    public byte[] mac(byte[] data) {
+        return mac(data, 0, data.length);
+    }
+
+    public byte[] mac(byte[] data, int offset, int length) {
+        byte[] out = new byte[MAC_LENGTH];
+        mac(data, offset, length, out, 0);
+        return out;
+    }
+
+    /**
+     * Computes the MAC of data into a caller supplied buffer
+     *
+     * @param data
+     * @param offset
+     * @param length
+     * @param out - receives 64 bytes
+     * @param outOffset
+     */
+    public void mac(byte[] data, int offset, int length, byte[] out, int outOffset) {
+        Workspace w = workspace.get();
+        w.digest.reset(inner);
+        w.digest.update(data, offset, length);
+        w.digest.doFinal(w.innerHash, 0);
+        w.digest.reset(outer);
+        w.digest.update(w.innerHash, 0, MAC_LENGTH);
+        w.digest.doFinal(out, outOffset);
+    }
+
+    private static class Workspace {
+
+        final SHA512Digest digest = new SHA512Digest();
+        final byte[] innerHash = new byte[MAC_LENGTH];
+    }
+}
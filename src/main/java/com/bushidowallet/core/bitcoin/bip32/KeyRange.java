@@ -0,0 +1,63 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import com.bushidowallet.core.bitcoin.Address;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A contiguous range of keys derived from a single chain, see Derivation.deriveRange
+ *
+ * Keys, public keys and addresses are held in index order, element 0 being the key at index getFrom()
+ */
+public class KeyRange {
+
+    private final int from;
+    private final ExtendedKey[] keys;
+    private final byte[][] publicKeys;
+    private final Address[] addresses;
+
+    KeyRange(int from, ExtendedKey[] keys, byte[][] publicKeys, Address[] addresses) {
+        this.from = from;
+        this.keys = keys;
+        this.publicKeys = publicKeys;
+        this.addresses = addresses;
+    }
+
+    /**
+     * Gets the derivation index of the first key in this range
+     * @return
+     */
+    public int getFrom() {
+        return from;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public ExtendedKey getKey(int position) {
+        return keys[position];
+    }
+
+    public byte[] getPublicKey(int position) {
+        return publicKeys[position];
+    }
+
+    public Address getAddress(int position) {
+        return addresses[position];
+    }
+
+    public List<ExtendedKey> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    public List<byte[]> getPublicKeys() {
+        return Collections.unmodifiableList(Arrays.asList(publicKeys));
+    }
+
+    public List<Address> getAddresses() {
+        return Collections.unmodifiableList(Arrays.asList(addresses));
+    }
+}
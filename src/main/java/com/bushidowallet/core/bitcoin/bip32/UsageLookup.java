@@ -0,0 +1,16 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+/**
+ * Tells whether an address has ever been used, e.g. backed by a blockchain index or a wallet database
+ *
+ * Implementations are called from the scanning thread only, but may be slow (remote), see GapLimitScanner
+ */
+public interface UsageLookup {
+
+    /**
+     * @param hash160 - 20 byte public key hash of a P2PKH address
+     * @return true if the address has any transaction history
+     * @throws Exception
+     */
+    boolean isUsed(byte[] hash160) throws Exception;
+}
@@ -0,0 +1,284 @@
+package com.bushidowallet.core.bitcoin.bip39;
+
+import com.bushidowallet.core.bitcoin.bip32.ExtendedKey;
+import com.bushidowallet.core.bitcoin.bip32.Hash;
+import com.bushidowallet.core.bitcoin.bip32.Seed;
+import com.bushidowallet.core.bitcoin.util.SharedPool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * BIP39 mnemonic sentence (English wordlist)
+ *
+ * Sentences are validated against the wordlist and their checksum when constructed.
+ * The seed is PBKDF2-HMAC-SHA512 of the sentence salted with "mnemonic" + passphrase, 2048 rounds.
+ * The HMAC key schedule of the sentence is computed once per seed, so each round costs two SHA512 compressions
+ * (see Pbkdf2HmacSHA512). toSeeds derives seeds of many mnemonics in parallel.
+ */
+public class Mnemonic {
+
+    public static final int PBKDF2_ROUNDS = 2048;
+    public static final int SEED_LENGTH = 64;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String SALT_PREFIX = "mnemonic";
+
+    private final String[] words;
+    private final byte[] entropy;
+
+    /**
+     * Parses and validates a mnemonic sentence
+     *
+     * @param sentence - words separated by whitespace
+     * @throws Exception - if a word is not in the wordlist, the word count is invalid or the checksum does not match
+     */
+    public Mnemonic(String sentence) throws Exception {
+        if (sentence == null) {
+            throw new Exception("Invalid mnemonic");
+        }
+        String normalized = Normalizer.normalize(sentence, Normalizer.Form.NFKD).trim();
+        this.words = normalized.length() == 0 ? new String[0] : normalized.split("\\s+");
+        this.entropy = toEntropy(words);
+    }
+
+    private Mnemonic(String[] words, byte[] entropy) {
+        this.words = words;
+        this.entropy = entropy;
+    }
+
+    /**
+     * Encodes entropy as a mnemonic sentence
+     *
+     * @param entropy - 16 to 32 bytes, a multiple of 4
+     * @return
+     * @throws Exception
+     */
+    public static Mnemonic fromEntropy(byte[] entropy) throws Exception {
+        if (entropy == null || entropy.length < 16 || entropy.length > 32 || entropy.length % 4 != 0) {
+            throw new Exception("Invalid entropy length");
+        }
+        int entropyBits = entropy.length * 8;
+        byte[] checksum = new Hash(entropy).sha256();
+        String[] words = new String[(entropyBits + entropyBits / 32) / 11];
+        for (int w = 0; w < words.length; w++) {
+            int index = 0;
+            for (int b = w * 11; b < w * 11 + 11; b++) {
+                index <<= 1;
+                index |= b < entropyBits ? bit(entropy, b) : bit(checksum, b - entropyBits);
+            }
+            words[w] = Wordlist.WORDS[index];
+        }
+        return new Mnemonic(words, entropy.clone());
+    }
+
+    public byte[] getEntropy() {
+        return entropy.clone();
+    }
+
+    public List<String> getWords() {
+        return Collections.unmodifiableList(Arrays.asList(words));
+    }
+
+    /**
+     * Derives the 64 byte BIP39 seed
+     *
+     * @param passphrase - optional passphrase, null is treated as empty
+     * @return
+     */
+    public byte[] toSeed(String passphrase) {
+        String salt = SALT_PREFIX + (passphrase == null ? "" : Normalizer.normalize(passphrase, Normalizer.Form.NFKD));
+        return Pbkdf2HmacSHA512.derive(toString().getBytes(UTF8), salt.getBytes(UTF8), PBKDF2_ROUNDS);
+    }
+
+    /**
+     * Derives the BIP32 master key of this mnemonic
+     *
+     * @param passphrase - optional passphrase, null is treated as empty
+     * @return
+     * @throws Exception
+     */
+    public ExtendedKey toExtendedKey(String passphrase) throws Exception {
+        return new ExtendedKey(new Hash(toSeed(passphrase)).getHmacSHA512(Seed.BITCOIN_SEED));
+    }
+
+    /**
+     * Derives seeds of many mnemonics sharing a passphrase, spreading the work over a shared ForkJoinPool
+     *
+     * @param mnemonics
+     * @param passphrase - optional passphrase, null is treated as empty
+     * @return seeds in the order of mnemonics
+     */
+    public static List<byte[]> toSeeds(List<Mnemonic> mnemonics, String passphrase) {
+        byte[][] seeds = new byte[mnemonics.size()][];
+        SharedPool.get().invoke(new SeedTask(mnemonics, passphrase, seeds, 0, seeds.length));
+        return Arrays.asList(seeds);
+    }
+
+    /**
+     * Derives seeds of many mnemonics sharing a passphrase on a caller supplied executor
+     *
+     * @param mnemonics
+     * @param passphrase - optional passphrase, null is treated as empty
+     * @param executor - executor running the derivations
+     * @return seeds in the order of mnemonics
+     * @throws Exception
+     */
+    public static List<byte[]> toSeeds(List<Mnemonic> mnemonics, final String passphrase, ExecutorService executor) throws Exception {
+        List<Callable<byte[]>> tasks = new ArrayList<Callable<byte[]>>(mnemonics.size());
+        for (final Mnemonic mnemonic : mnemonics) {
+            tasks.add(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    return mnemonic.toSeed(passphrase);
+                }
+            });
+        }
+        return SharedPool.invokeAll(executor, tasks);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(words[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Mnemonic && Arrays.equals(words, ((Mnemonic) obj).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    private static byte[] toEntropy(String[] words) throws Exception {
+        if (words.length < 12 || words.length > 24 || words.length % 3 != 0) {
+            throw new Exception("Invalid mnemonic word count");
+        }
+        int totalBits = words.length * 11;
+        int checksumBits = totalBits / 33;
+        byte[] bits = new byte[(totalBits + 7) / 8];
+        for (int w = 0; w < words.length; w++) {
+            Integer index = Wordlist.INDICES.get(words[w]);
+            if (index == null) {
+                throw new Exception("Invalid mnemonic word: " + words[w]);
+            }
+            for (int b = 0; b < 11; b++) {
+                if ((index & (1 << (10 - b))) != 0) {
+                    int position = w * 11 + b;
+                    bits[position / 8] |= 1 << (7 - position % 8);
+                }
+            }
+        }
+        byte[] entropy = Arrays.copyOf(bits, (totalBits - checksumBits) / 8);
+        byte[] checksum = new Hash(entropy).sha256();
+        for (int b = 0; b < checksumBits; b++) {
+            if (bit(bits, entropy.length * 8 + b) != bit(checksum, b)) {
+                throw new Exception("Invalid mnemonic checksum");
+            }
+        }
+        return entropy;
+    }
+
+    private static int bit(byte[] data, int position) {
+        return (data[position / 8] >>> (7 - position % 8)) & 1;
+    }
+
+    private static class SeedTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Mnemonic> mnemonics;
+        private final String passphrase;
+        private final byte[][] seeds;
+        private final int start;
+        private final int end;
+
+        SeedTask(List<Mnemonic> mnemonics, String passphrase, byte[][] seeds, int start, int end) {
+            this.mnemonics = mnemonics;
+            this.passphrase = passphrase;
+            this.seeds = seeds;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            //a single seed is thousands of compressions, worth a task of its own
+            if (end - start <= 1) {
+                if (start < end) {
+                    seeds[start] = mnemonics.get(start).toSeed(passphrase);
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new SeedTask(mnemonics, passphrase, seeds, start, middle),
+                        new SeedTask(mnemonics, passphrase, seeds, middle, end));
+            }
+        }
+    }
+
+    /**
+     * BIP39 English wordlist, loaded on first use
+     */
+    private static class Wordlist {
+
+        static final String[] WORDS = load();
+        static final Map<String, Integer> INDICES = index(WORDS);
+
+        private static String[] load() {
+            InputStream in = Mnemonic.class.getResourceAsStream("english.txt");
+            if (in == null) {
+                throw new Error("BIP39 wordlist not found");
+            }
+            List<String> words = new ArrayList<String>(2048);
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.trim().length() > 0) {
+                            words.add(line.trim());
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                throw new Error("Unable to read BIP39 wordlist", e);
+            }
+            if (words.size() != 2048) {
+                throw new Error("Invalid BIP39 wordlist");
+            }
+            return words.toArray(new String[words.size()]);
+        }
+
+        private static Map<String, Integer> index(String[] words) {
+            Map<String, Integer> indices = new HashMap<String, Integer>(4096);
+            for (int i = 0; i < words.length; i++) {
+                indices.put(words[i], i);
+            }
+            return indices;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.bushidowallet.core.bitcoin.bip39;
+
+import com.bushidowallet.core.bitcoin.bip32.HmacSHA512Key;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+
+/**
+ * PBKDF2-HMAC-SHA512 producing a single 64 byte block, as used by BIP39
+ *
+ * After the first round every HMAC input is a previous 64 byte output, so each of the two hashes of a round
+ * is exactly one SHA512 compression of a fixed layout block: the 8 words of the previous hash followed by constant padding.
+ * The loop therefore runs compressions directly on long words, starting from the precomputed inner and outer
+ * key states, with no byte conversion, digest copying or allocation per round.
+ */
+final class Pbkdf2HmacSHA512 {
+
+    private static final int BLOCK_LENGTH = 128;
+    private static final int HASH_WORDS = 8;
+    //64 bytes of message after one 128 byte key block, in bits
+    private static final long PADDED_LENGTH = (BLOCK_LENGTH + 64) * 8;
+
+    private static final long[] IV = new long[] {
+            0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L,
+            0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L
+    };
+
+    private static final long[] K = new long[] {
+            0x428a2f98d728ae22L, 0x7137449123ef65cdL, 0xb5c0fbcfec4d3b2fL, 0xe9b5dba58189dbbcL,
+            0x3956c25bf348b538L, 0x59f111f1b605d019L, 0x923f82a4af194f9bL, 0xab1c5ed5da6d8118L,
+            0xd807aa98a3030242L, 0x12835b0145706fbeL, 0x243185be4ee4b28cL, 0x550c7dc3d5ffb4e2L,
+            0x72be5d74f27b896fL, 0x80deb1fe3b1696b1L, 0x9bdc06a725c71235L, 0xc19bf174cf692694L,
+            0xe49b69c19ef14ad2L, 0xefbe4786384f25e3L, 0x0fc19dc68b8cd5b5L, 0x240ca1cc77ac9c65L,
+            0x2de92c6f592b0275L, 0x4a7484aa6ea6e483L, 0x5cb0a9dcbd41fbd4L, 0x76f988da831153b5L,
+            0x983e5152ee66dfabL, 0xa831c66d2db43210L, 0xb00327c898fb213fL, 0xbf597fc7beef0ee4L,
+            0xc6e00bf33da88fc2L, 0xd5a79147930aa725L, 0x06ca6351e003826fL, 0x142929670a0e6e70L,
+            0x27b70a8546d22ffcL, 0x2e1b21385c26c926L, 0x4d2c6dfc5ac42aedL, 0x53380d139d95b3dfL,
+            0x650a73548baf63deL, 0x766a0abb3c77b2a8L, 0x81c2c92e47edaee6L, 0x92722c851482353bL,
+            0xa2bfe8a14cf10364L, 0xa81a664bbc423001L, 0xc24b8b70d0f89791L, 0xc76c51a30654be30L,
+            0xd192e819d6ef5218L, 0xd69906245565a910L, 0xf40e35855771202aL, 0x106aa07032bbd1b8L,
+            0x19a4c116b8d2d0c8L, 0x1e376c085141ab53L, 0x2748774cdf8eeb99L, 0x34b0bcb5e19b48a8L,
+            0x391c0cb3c5c95a63L, 0x4ed8aa4ae3418acbL, 0x5b9cca4f7763e373L, 0x682e6ff3d6b2b8a3L,
+            0x748f82ee5defb2fcL, 0x78a5636f43172f60L, 0x84c87814a1f0ab72L, 0x8cc702081a6439ecL,
+            0x90befffa23631e28L, 0xa4506cebde82bde9L, 0xbef9a3f7b2c67915L, 0xc67178f2e372532bL,
+            0xca273eceea26619cL, 0xd186b8c721c0c207L, 0xeada7dd6cde0eb1eL, 0xf57d4f7fee6ed178L,
+            0x06f067aa72176fbaL, 0x0a637dc5a2c898a6L, 0x113f9804bef90daeL, 0x1b710b35131c471bL,
+            0x28db77f523047d84L, 0x32caab7b40c72493L, 0x3c9ebe0a15c9bebcL, 0x431d67c49c100d4cL,
+            0x4cc5d4becb3e42b6L, 0x597f299cfc657e2aL, 0x5fcb6fab3ad6faecL, 0x6c44198c4a475817L
+    };
+
+    private Pbkdf2HmacSHA512() {
+    }
+
+    /**
+     * @param password
+     * @param salt
+     * @param rounds
+     * @return 64 byte derived key
+     */
+    static byte[] derive(byte[] password, byte[] salt, int rounds) {
+        byte[] key = new byte[BLOCK_LENGTH];
+        if (password.length > BLOCK_LENGTH) {
+            SHA512Digest digest = new SHA512Digest();
+            digest.update(password, 0, password.length);
+            digest.doFinal(key, 0);
+        } else {
+            System.arraycopy(password, 0, key, 0, password.length);
+        }
+        long[] w = new long[80];
+        long[] inner = keyState(key, (byte) 0x36, w);
+        long[] outer = keyState(key, (byte) 0x5c, w);
+
+        //U1 = HMAC(salt || INT(1)) takes an arbitrary length message
+        byte[] block = new byte[salt.length + 4];
+        System.arraycopy(salt, 0, block, 0, salt.length);
+        block[block.length - 1] = 1;
+        byte[] first = new HmacSHA512Key(password).mac(block);
+
+        long[] u = new long[HASH_WORDS];
+        long[] h = new long[HASH_WORDS];
+        long[] t = new long[HASH_WORDS];
+        for (int i = 0; i < HASH_WORDS; i++) {
+            u[i] = readLong(first, i * 8);
+            t[i] = u[i];
+        }
+        w[8] = 0x8000000000000000L;
+        for (int i = 9; i < 15; i++) {
+            w[i] = 0;
+        }
+        w[15] = PADDED_LENGTH;
+        for (int round = 1; round < rounds; round++) {
+            System.arraycopy(u, 0, w, 0, HASH_WORDS);
+            System.arraycopy(inner, 0, h, 0, HASH_WORDS);
+            compress(h, w);
+            System.arraycopy(h, 0, w, 0, HASH_WORDS);
+            System.arraycopy(outer, 0, u, 0, HASH_WORDS);
+            compress(u, w);
+            for (int i = 0; i < HASH_WORDS; i++) {
+                t[i] ^= u[i];
+            }
+        }
+        byte[] out = new byte[HASH_WORDS * 8];
+        for (int i = 0; i < HASH_WORDS; i++) {
+            writeLong(t[i], out, i * 8);
+        }
+        return out;
+    }
+
+    private static long[] keyState(byte[] key, byte pad, long[] w) {
+        for (int i = 0; i < 16; i++) {
+            long word = 0;
+            for (int j = 0; j < 8; j++) {
+                word = (word << 8) | ((key[i * 8 + j] ^ pad) & 0xff);
+            }
+            w[i] = word;
+        }
+        long[] state = IV.clone();
+        compress(state, w);
+        return state;
+    }
+
+    /**
+     * SHA512 compression of the block in w[0..15] into state, w[16..79] is used for the message schedule
+     */
+    private static void compress(long[] state, long[] w) {
+        for (int i = 16; i < 80; i++) {
+            long x = w[i - 2];
+            long y = w[i - 15];
+            long s1 = ((x >>> 19) | (x << 45)) ^ ((x >>> 61) | (x << 3)) ^ (x >>> 6);
+            long s0 = ((y >>> 1) | (y << 63)) ^ ((y >>> 8) | (y << 56)) ^ (y >>> 7);
+            w[i] = s1 + w[i - 7] + s0 + w[i - 16];
+        }
+        long a = state[0];
+        long b = state[1];
+        long c = state[2];
+        long d = state[3];
+        long e = state[4];
+        long f = state[5];
+        long g = state[6];
+        long h = state[7];
+        for (int i = 0; i < 80; i++) {
+            long t1 = h + (((e >>> 14) | (e << 50)) ^ ((e >>> 18) | (e << 46)) ^ ((e >>> 41) | (e << 23)))
+                    + ((e & f) ^ (~e & g)) + K[i] + w[i];
+            long t2 = (((a >>> 28) | (a << 36)) ^ ((a >>> 34) | (a << 30)) ^ ((a >>> 39) | (a << 25)))
+                    + ((a & b) ^ (a & c) ^ (b & c));
+            h = g;
+            g = f;
+            f = e;
+            e = d + t1;
+            d = c;
+            c = b;
+            b = a;
+            a = t1 + t2;
+        }
+        state[0] += a;
+        state[1] += b;
+        state[2] += c;
+        state[3] += d;
+        state[4] += e;
+        state[5] += f;
+        state[6] += g;
+        state[7] += h;
+    }
+
+    private static long readLong(byte[] buf, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buf[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static void writeLong(long value, byte[] buf, int offset) {
+        for (int i = 7; i >= 0; i--) {
+            buf[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.util.SharedPool;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Verifies many ECDSA signatures at once, giving a result per signature
+ *
+ * Signatures are verified in chunks spread over the available cores. Within a chunk the inverses of all s values
+ * are computed with a single modular inversion (Montgomery's trick), and all points u1*G + u2*Q are normalized
+ * together (ECCurve.normalizeAll), again with a single field inversion.
+ * u1*G is computed with the FixedBaseMultiplier table, public keys are decoded through the default PointCache.
+ *
+ * Items are added by a single thread before verify is called; an instance may be verified repeatedly.
+ */
+public class ECDSABatchVerifier {
+
+    //signatures sharing an inversion, large enough to amortize it, small enough to keep all cores busy
+    private static final int CHUNK_SIZE = 64;
+
+    private final String endian;
+    private final List<byte[]> hashes = new ArrayList<byte[]>();
+    private final List<ECDSASignature> signatures = new ArrayList<ECDSASignature>();
+    private final List<byte[]> publicKeys = new ArrayList<byte[]>();
+
+    /**
+     * @param endian - byte order of the hashes, as taken by ECDSA
+     */
+    public ECDSABatchVerifier(String endian) {
+        this.endian = endian;
+    }
+
+    /**
+     * Adds a signature to verify
+     *
+     * @param hashbuf - 32 byte signed hash
+     * @param signature
+     * @param publicKey - encoded public key
+     * @return this verifier
+     */
+    public ECDSABatchVerifier add(byte[] hashbuf, ECDSASignature signature, byte[] publicKey) {
+        hashes.add(hashbuf);
+        signatures.add(signature);
+        publicKeys.add(publicKey);
+        return this;
+    }
+
+    public ECDSABatchVerifier add(byte[] hashbuf, ECDSASignature signature, ECKey key) {
+        return add(hashbuf, signature, key.getPublic());
+    }
+
+    public int size() {
+        return hashes.size();
+    }
+
+    /**
+     * Verifies all added signatures on the shared ForkJoinPool
+     *
+     * @return validity of each signature, in the order they were added
+     */
+    public boolean[] verify() {
+        boolean[] results = new boolean[size()];
+        SharedPool.get().invoke(new VerifyTask(results, 0, results.length));
+        return results;
+    }
+
+    /**
+     * Verifies all added signatures on a caller supplied executor
+     *
+     * @param executor - executor running the chunks
+     * @return validity of each signature, in the order they were added
+     * @throws Exception
+     */
+    public boolean[] verify(ExecutorService executor) throws Exception {
+        final boolean[] results = new boolean[size()];
+        List<Callable<Void>> chunks = new ArrayList<Callable<Void>>();
+        for (int start = 0; start < results.length; start += CHUNK_SIZE) {
+            final int chunkStart = start;
+            final int chunkEnd = Math.min(results.length, start + CHUNK_SIZE);
+            chunks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    verifyChunk(results, chunkStart, chunkEnd);
+                    return null;
+                }
+            });
+        }
+        SharedPool.invokeAll(executor, chunks);
+        return results;
+    }
+
+    private void verifyChunk(boolean[] results, int start, int end) {
+        final BigInteger n = ECKey.params.getN();
+        final int count = end - start;
+        final ECPoint[] keys = new ECPoint[count];
+        //prefix products of s over the well formed items, for the shared inversion
+        final BigInteger[] prefix = new BigInteger[count];
+        BigInteger product = BigInteger.ONE;
+        for (int i = 0; i < count; i++) {
+            keys[i] = parse(start + i);
+            if (keys[i] != null) {
+                product = product.multiply(signatures.get(start + i).s).mod(n);
+            }
+            prefix[i] = product;
+        }
+        BigInteger inverse = product.modInverse(n);
+
+        final ECPoint[] points = new ECPoint[count];
+        int pointCount = 0;
+        final int[] positions = new int[count];
+        for (int i = count - 1; i >= 0; i--) {
+            if (keys[i] == null) {
+                continue;
+            }
+            ECDSASignature signature = signatures.get(start + i);
+            //inverse holds 1 / (s_0 * .. * s_i) here
+            BigInteger sinv = i > 0 ? inverse.multiply(prefix[i - 1]).mod(n) : inverse;
+            inverse = inverse.multiply(signature.s).mod(n);
+
+            BigInteger e = toBigInteger(hashes.get(start + i));
+            BigInteger u1 = sinv.multiply(e).mod(n);
+            BigInteger u2 = sinv.multiply(signature.r).mod(n);
+            ECPoint p = FixedBaseMultiplier.multiplyGProjective(u1).add(keys[i].multiply(u2));
+            if (!p.isInfinity()) {
+                points[pointCount] = p;
+                positions[pointCount] = i;
+                pointCount++;
+            }
+        }
+        final ECPoint[] normalized = pointCount == count ? points : Arrays.copyOf(points, pointCount);
+        ECKey.curve.getCurve().normalizeAll(normalized);
+        for (int j = 0; j < pointCount; j++) {
+            int i = positions[j];
+            BigInteger x = normalized[j].getAffineXCoord().toBigInteger();
+            results[start + i] = x.mod(n).equals(signatures.get(start + i).r);
+        }
+    }
+
+    /**
+     * Decodes the public key of an item whose hash and signature are well formed
+     *
+     * @return the public key point, null if the item is malformed
+     */
+    private ECPoint parse(int index) {
+        final BigInteger n = ECKey.params.getN();
+        byte[] hash = hashes.get(index);
+        ECDSASignature signature = signatures.get(index);
+        byte[] publicKey = publicKeys.get(index);
+        if (hash == null || hash.length != 32 || signature == null || publicKey == null) {
+            return null;
+        }
+        if (signature.r.signum() <= 0 || signature.r.compareTo(n) >= 0
+                || signature.s.signum() <= 0 || signature.s.compareTo(n) >= 0) {
+            return null;
+        }
+        try {
+            return PointCache.getDefault().decode(publicKey);
+        } catch (RuntimeException e) {
+            //not a point on the curve
+            return null;
+        }
+    }
+
+    private BigInteger toBigInteger(byte[] hash) {
+        if (endian != null && endian.equals("little")) {
+            return new BigInteger(1, ByteUtil.reverseBytes(hash));
+        }
+        return new BigInteger(1, hash);
+    }
+
+    private class VerifyTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean[] results;
+        private final int start;
+        private final int end;
+
+        VerifyTask(boolean[] results, int start, int end) {
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= CHUNK_SIZE) {
+                verifyChunk(results, start, end);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new VerifyTask(results, start, middle), new VerifyTask(results, middle, end));
+            }
+        }
+    }
+}
@@ -1,48 +1,250 @@
 package com.bushidowallet.core.bitcoin.ecdsa;
 
-import org.bouncycastle.asn1.ASN1Integer;
-import org.bouncycastle.asn1.DERSequenceGenerator;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.math.BigInteger;
 
 /**
  * Created by Jesion on 2015-04-11.
+ *
+ * DER encoding follows BIP66: SEQUENCE { INTEGER r, INTEGER s } with minimal lengths and integers,
+ * encoded and parsed directly, without ASN.1 objects. Transaction signatures carry the sighash type as one
+ * extra byte after the DER encoding (see the sigType variants).
+ * Signed messages use the compact form instead, which also carries the recovery id.
  */
 public class ECDSASignature {
 
+    //0x30 len 0x02 lenR r 0x02 lenS s, r and s at most 33 bytes each
+    public static final int MAX_DER_LENGTH = 72;
+    private static final int MIN_DER_LENGTH = 8;
+    //header byte, r and s as 32 bytes each
+    public static final int COMPACT_LENGTH = 65;
+    private static final int COMPACT_HEADER = 27;
+
     public BigInteger r;
 
     public BigInteger s;
 
     public boolean compressed;
 
+    //recovery id (0 to 3) of the nonce point, known for signatures made by ECDSA.sign, -1 otherwise
+    public int recId = -1;
+
     public ECDSASignature(BigInteger r, BigInteger s, boolean compressed) {
         this.r = r;
         this.s = s;
         this.compressed = compressed;
     }
 
-    public byte[] toDER() {
-        return toDER(r, s);
+    /**
+     * Parses a strict (BIP66) DER signature
+     *
+     * @param buf
+     * @param offset
+     * @param length - length of the DER encoding
+     * @return signature, flagged as compressed
+     * @throws Exception - if the encoding is not strict DER
+     */
+    public static ECDSASignature fromDER(byte[] buf, int offset, int length) throws Exception {
+        int lengthR = checkDER(buf, offset, length);
+        int lengthS = length - lengthR - 6;
+        BigInteger r = readInteger(buf, offset + 4, lengthR);
+        BigInteger s = readInteger(buf, offset + 6 + lengthR, lengthS);
+        return new ECDSASignature(r, s, true);
+    }
+
+    public static ECDSASignature fromDER(byte[] der) throws Exception {
+        return fromDER(der, 0, der.length);
     }
 
-    private static byte[] toDER(BigInteger r, BigInteger s) {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream(72);
-        DERSequenceGenerator seq = null;
-        byte[] res = new byte[0];
+    /**
+     * Parses a transaction signature, a strict DER signature followed by the sighash type byte
+     *
+     * @param buf
+     * @param offset
+     * @param length - length including the sighash type
+     * @return
+     * @throws Exception - if the encoding is not strict DER
+     */
+    public static ECDSASignature fromDERWithSigType(byte[] buf, int offset, int length) throws Exception {
+        if (length < 1) {
+            throw new Exception("Invalid DER signature: missing sighash type");
+        }
+        return fromDER(buf, offset, length - 1);
+    }
+
+    /**
+     * Gets the sighash type of a transaction signature (DER followed by the type byte)
+     */
+    public static int getSigType(byte[] buf, int offset, int length) {
+        return buf[offset + length - 1] & 0xff;
+    }
+
+    /**
+     * Checks the BIP66 encoding rules without parsing
+     *
+     * @param buf
+     * @param offset
+     * @param length - length of the DER encoding
+     * @return
+     */
+    public static boolean isStrictDER(byte[] buf, int offset, int length) {
         try {
-            seq = new DERSequenceGenerator(bos);
-            seq.addObject(new ASN1Integer(r));
-            seq.addObject(new ASN1Integer(s));
-            seq.close();
-            res = bos.toByteArray();
-            return res;
-        } catch (IOException e) {
+            checkDER(buf, offset, length);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return length of the DER encoding
+     */
+    public int getDERLength() {
+        return 6 + integerLength(r) + integerLength(s);
+    }
+
+    /**
+     * Encodes the signature into a caller supplied buffer
+     *
+     * @param out - at least getDERLength() bytes from offset
+     * @param offset
+     * @return number of bytes written
+     */
+    public int toDER(byte[] out, int offset) {
+        int lengthR = integerLength(r);
+        int lengthS = integerLength(s);
+        out[offset] = 0x30;
+        out[offset + 1] = (byte) (4 + lengthR + lengthS);
+        out[offset + 2] = 0x02;
+        out[offset + 3] = (byte) lengthR;
+        writeInteger(r, out, offset + 4, lengthR);
+        out[offset + 4 + lengthR] = 0x02;
+        out[offset + 5 + lengthR] = (byte) lengthS;
+        writeInteger(s, out, offset + 6 + lengthR, lengthS);
+        return 6 + lengthR + lengthS;
+    }
+
+    /**
+     * Encodes the signature followed by the sighash type byte, as placed in scripts
+     *
+     * @return number of bytes written
+     */
+    public int toDER(byte[] out, int offset, int sigType) {
+        int length = toDER(out, offset);
+        out[offset + length] = (byte) sigType;
+        return length + 1;
+    }
+
+    public byte[] toDER() {
+        byte[] der = new byte[getDERLength()];
+        toDER(der, 0);
+        return der;
+    }
+
+    public byte[] toDER(int sigType) {
+        byte[] der = new byte[getDERLength() + 1];
+        toDER(der, 0, sigType);
+        return der;
+    }
 
+    /**
+     * Encodes the signature in the 65 byte compact form of signed messages: a header byte
+     * (27 + recovery id, plus 4 if the key is compressed) followed by r and s, 32 bytes each
+     *
+     * @return
+     * @throws Exception - if the recovery id is not known
+     */
+    public byte[] toCompact() throws Exception {
+        if (recId < 0 || recId > 3) {
+            throw new Exception("Recovery id not known");
         }
-        return null;
+        byte[] compact = new byte[COMPACT_LENGTH];
+        compact[0] = (byte) (COMPACT_HEADER + recId + (compressed ? 4 : 0));
+        writeInteger(r, compact, 1, 32);
+        writeInteger(s, compact, 33, 32);
+        return compact;
+    }
+
+    /**
+     * Parses a compact signature, taking the recovery id and compression flag from its header
+     *
+     * @param compact - 65 bytes
+     * @return
+     * @throws Exception - if the length or header is invalid
+     */
+    public static ECDSASignature fromCompact(byte[] compact) throws Exception {
+        if (compact == null || compact.length != COMPACT_LENGTH) {
+            throw new Exception("Invalid compact signature: length");
+        }
+        int header = (compact[0] & 0xff) - COMPACT_HEADER;
+        if (header < 0 || header > 7) {
+            throw new Exception("Invalid compact signature: header");
+        }
+        ECDSASignature signature = new ECDSASignature(readInteger(compact, 1, 32), readInteger(compact, 33, 32), header >= 4);
+        signature.recId = header & 3;
+        return signature;
+    }
+
+    /**
+     * Validates a DER signature of the given length, as IsValidSignatureEncoding of BIP66 minus the sighash byte
+     *
+     * @return length of r
+     */
+    private static int checkDER(byte[] buf, int offset, int length) throws Exception {
+        if (length < MIN_DER_LENGTH || length > MAX_DER_LENGTH) {
+            throw new Exception("Invalid DER signature: length");
+        }
+        if (buf[offset] != 0x30 || (buf[offset + 1] & 0xff) != length - 2) {
+            throw new Exception("Invalid DER signature: sequence");
+        }
+        int lengthR = buf[offset + 3] & 0xff;
+        if (5 + lengthR >= length) {
+            throw new Exception("Invalid DER signature: r length");
+        }
+        int lengthS = buf[offset + 5 + lengthR] & 0xff;
+        if (lengthR + lengthS + 6 != length) {
+            throw new Exception("Invalid DER signature: s length");
+        }
+        checkInteger(buf, offset + 2, lengthR, "r");
+        checkInteger(buf, offset + 4 + lengthR, lengthS, "s");
+        return lengthR;
+    }
+
+    //a positive integer with no unnecessary leading zero, tag at position
+    private static void checkInteger(byte[] buf, int position, int length, String name) throws Exception {
+        if (buf[position] != 0x02) {
+            throw new Exception("Invalid DER signature: " + name + " is not an integer");
+        }
+        if (length == 0) {
+            throw new Exception("Invalid DER signature: " + name + " is empty");
+        }
+        if ((buf[position + 2] & 0x80) != 0) {
+            throw new Exception("Invalid DER signature: " + name + " is negative");
+        }
+        if (length > 1 && buf[position + 2] == 0 && (buf[position + 3] & 0x80) == 0) {
+            throw new Exception("Invalid DER signature: " + name + " has a leading zero");
+        }
+    }
+
+    private static BigInteger readInteger(byte[] buf, int offset, int length) {
+        byte[] magnitude = new byte[length];
+        System.arraycopy(buf, offset, magnitude, 0, length);
+        return new BigInteger(1, magnitude);
+    }
+
+    //minimal two's complement length of a non negative integer
+    private static int integerLength(BigInteger value) {
+        return value.bitLength() / 8 + 1;
     }
-}
 
+    //big-endian, read from the bits so no intermediate array is made
+    private static void writeInteger(BigInteger value, byte[] out, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            int bitOffset = 8 * (length - 1 - i);
+            int b = 0;
+            for (int bit = 7; bit >= 0; bit--) {
+                b = b << 1 | (value.testBit(bitOffset + bit) ? 1 : 0);
+            }
+            out[offset + i] = (byte) b;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic modulo the secp256k1 field prime p = 2^256 - 2^32 - 977 on fixed-width numbers
+ *
+ * A number is an int[8] of 32 bit limbs, least significant first, always fully reduced (0 <= a < p).
+ * Results are written to a caller supplied array which may be one of the operands, nothing is allocated.
+ * Products are reduced with 2^256 = 2^32 + 977 (mod p) instead of a division.
+ * Multiplication needs a 16 limb scratch buffer, so it is an instance method; an instance belongs to a single thread.
+ */
+final class Field {
+
+    static final int LIMBS = 8;
+    static final long M = 0xffffffffL;
+
+    //p, least significant limb first
+    static final int[] P = { 0xfffffc2f, 0xfffffffe, -1, -1, -1, -1, -1, -1 };
+
+    private final int[] wide = new int[2 * LIMBS];
+    private final int[] x2 = new int[LIMBS];
+    private final int[] x3 = new int[LIMBS];
+    private final int[] x22 = new int[LIMBS];
+    private final int[] x44 = new int[LIMBS];
+    private final int[] x88 = new int[LIMBS];
+    private final int[] t = new int[LIMBS];
+
+    static int[] create() {
+        return new int[LIMBS];
+    }
+
+    static void set(int[] a, int[] r) {
+        System.arraycopy(a, 0, r, 0, LIMBS);
+    }
+
+    static void setInt(int value, int[] r) {
+        r[0] = value;
+        for (int i = 1; i < LIMBS; i++) {
+            r[i] = 0;
+        }
+    }
+
+    static boolean isZero(int[] a) {
+        int bits = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            bits |= a[i];
+        }
+        return bits == 0;
+    }
+
+    static boolean equal(int[] a, int[] b) {
+        int bits = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            bits |= a[i] ^ b[i];
+        }
+        return bits == 0;
+    }
+
+    /**
+     * Unsigned comparison of two 256 bit numbers
+     */
+    static int compare(int[] a, int[] b) {
+        for (int i = LIMBS - 1; i >= 0; i--) {
+            if (a[i] != b[i]) {
+                return (a[i] & M) < (b[i] & M) ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads a 32 byte big-endian number, reducing it mod p
+     */
+    static void fromBytes(byte[] bytes, int offset, int[] r) {
+        readBytes(bytes, offset, r);
+        if (compare(r, P) >= 0) {
+            subtractModulus(r);
+        }
+    }
+
+    /**
+     * Reads a 32 byte big-endian number as is
+     */
+    static void readBytes(byte[] bytes, int offset, int[] r) {
+        for (int i = 0; i < LIMBS; i++) {
+            int j = offset + 28 - 4 * i;
+            r[i] = (bytes[j] & 0xff) << 24 | (bytes[j + 1] & 0xff) << 16 | (bytes[j + 2] & 0xff) << 8 | (bytes[j + 3] & 0xff);
+        }
+    }
+
+    static void toBytes(int[] a, byte[] bytes, int offset) {
+        for (int i = 0; i < LIMBS; i++) {
+            int j = offset + 28 - 4 * i;
+            bytes[j] = (byte) (a[i] >>> 24);
+            bytes[j + 1] = (byte) (a[i] >>> 16);
+            bytes[j + 2] = (byte) (a[i] >>> 8);
+            bytes[j + 3] = (byte) a[i];
+        }
+    }
+
+    /**
+     * Reads a non negative BigInteger below 2^256 bit by bit, without allocating
+     */
+    static void fromBigInteger(BigInteger value, int[] r) {
+        for (int i = 0; i < LIMBS; i++) {
+            int limb = 0;
+            for (int bit = 31; bit >= 0; bit--) {
+                limb = limb << 1 | (value.testBit(32 * i + bit) ? 1 : 0);
+            }
+            r[i] = limb;
+        }
+    }
+
+    static BigInteger toBigInteger(int[] a) {
+        byte[] bytes = new byte[4 * LIMBS];
+        toBytes(a, bytes, 0);
+        return new BigInteger(1, bytes);
+    }
+
+    static void add(int[] a, int[] b, int[] r) {
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (a[i] & M) + (b[i] & M);
+            r[i] = (int) c;
+            c >>>= 32;
+        }
+        reduce(r, c);
+    }
+
+    static void subtract(int[] a, int[] b, int[] r) {
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (a[i] & M) - (b[i] & M);
+            r[i] = (int) c;
+            c >>= 32;
+        }
+        if (c != 0) {
+            //went below zero, add p back (the carry out cancels the borrow)
+            c = 0;
+            for (int i = 0; i < LIMBS; i++) {
+                c += (r[i] & M) + (P[i] & M);
+                r[i] = (int) c;
+                c >>>= 32;
+            }
+        }
+    }
+
+    static void negate(int[] a, int[] r) {
+        if (isZero(a)) {
+            setInt(0, r);
+            return;
+        }
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (P[i] & M) - (a[i] & M);
+            r[i] = (int) c;
+            c >>= 32;
+        }
+    }
+
+    static void twice(int[] a, int[] r) {
+        add(a, a, r);
+    }
+
+    void multiply(int[] a, int[] b, int[] r) {
+        multiplyWide(a, b, wide);
+        //wide = lo + hi * 2^256 = lo + hi * (2^32 + 977)
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (wide[i] & M) + (wide[LIMBS + i] & M) * 977L;
+            if (i > 0) {
+                c += wide[LIMBS + i - 1] & M;
+            }
+            r[i] = (int) c;
+            c >>>= 32;
+        }
+        c += wide[2 * LIMBS - 1] & M;
+        reduce(r, c);
+    }
+
+    void square(int[] a, int[] r) {
+        multiply(a, a, r);
+    }
+
+    /**
+     * r = a^(p - 2) = 1 / a, with the addition chain of libsecp256k1 (255 squarings, 15 multiplications)
+     *
+     * @param a - non zero, may be the same array as r
+     */
+    void invert(int[] a, int[] r) {
+        //t = a^(2^223 - 1)
+        power223(a);
+        squareTimes(t, 23, t);
+        multiply(t, x22, t);
+        squareTimes(t, 5, t);
+        multiply(t, a, t);
+        squareTimes(t, 3, t);
+        multiply(t, x2, t);
+        squareTimes(t, 2, t);
+        multiply(t, a, r);
+    }
+
+    /**
+     * r = a^((p + 1) / 4), a square root of a if there is one, with the chain of libsecp256k1
+     *
+     * @param a - may be the same array as r
+     * @return true if a is a square, i.e. r^2 = a
+     */
+    boolean sqrt(int[] a, int[] r) {
+        power223(a);
+        squareTimes(t, 23, t);
+        multiply(t, x22, t);
+        squareTimes(t, 6, t);
+        multiply(t, x2, t);
+        squareTimes(t, 2, t);
+        //a is kept in x44, r may be the same array
+        set(a, x44);
+        set(t, r);
+        square(r, t);
+        return equal(t, x44);
+    }
+
+    //leaves a^3 in x2, a^(2^22 - 1) in x22 and a^(2^223 - 1) in t
+    private void power223(int[] a) {
+        square(a, x2);
+        multiply(x2, a, x2);
+        square(x2, x3);
+        multiply(x3, a, x3);
+        squareTimes(x3, 3, t);
+        multiply(t, x3, t);
+        //t = x6
+        squareTimes(t, 3, t);
+        multiply(t, x3, t);
+        //t = x9
+        squareTimes(t, 2, t);
+        multiply(t, x2, t);
+        //t = x11
+        squareTimes(t, 11, x22);
+        multiply(x22, t, x22);
+        squareTimes(x22, 22, x44);
+        multiply(x44, x22, x44);
+        squareTimes(x44, 44, t);
+        multiply(t, x44, t);
+        //t = x88
+        set(t, x88);
+        squareTimes(x88, 88, t);
+        multiply(t, x88, t);
+        //t = x176
+        squareTimes(t, 44, t);
+        multiply(t, x44, t);
+        //t = x220
+        squareTimes(t, 3, t);
+        multiply(t, x3, t);
+    }
+
+    private void squareTimes(int[] a, int times, int[] r) {
+        square(a, r);
+        for (int i = 1; i < times; i++) {
+            square(r, r);
+        }
+    }
+
+    /**
+     * 512 bit product of two 256 bit numbers, schoolbook
+     */
+    static void multiplyWide(int[] a, int[] b, int[] wide) {
+        for (int i = 0; i < 2 * LIMBS; i++) {
+            wide[i] = 0;
+        }
+        for (int i = 0; i < LIMBS; i++) {
+            long ai = a[i] & M;
+            long c = 0;
+            for (int j = 0; j < LIMBS; j++) {
+                //at most (2^32 - 1)^2 + 2 * (2^32 - 1) = 2^64 - 1, read unsigned
+                c += ai * (b[j] & M) + (wide[i + j] & M);
+                wide[i + j] = (int) c;
+                c >>>= 32;
+            }
+            wide[i + LIMBS] = (int) c;
+        }
+    }
+
+    /**
+     * Reduces r + top * 2^256 (top < 2^34) mod p
+     */
+    private static void reduce(int[] r, long top) {
+        if (top != 0) {
+            long c = (r[0] & M) + top * 977L;
+            r[0] = (int) c;
+            c >>>= 32;
+            c += (r[1] & M) + top;
+            r[1] = (int) c;
+            c >>>= 32;
+            for (int i = 2; i < LIMBS && c != 0; i++) {
+                c += r[i] & M;
+                r[i] = (int) c;
+                c >>>= 32;
+            }
+            if (c != 0) {
+                //wrapped once more, r is now small
+                c = (r[0] & M) + 977L;
+                r[0] = (int) c;
+                c >>>= 32;
+                c += (r[1] & M) + 1;
+                r[1] = (int) c;
+                c >>>= 32;
+                for (int i = 2; i < LIMBS && c != 0; i++) {
+                    c += r[i] & M;
+                    r[i] = (int) c;
+                    c >>>= 32;
+                }
+            }
+        }
+        if (compare(r, P) >= 0) {
+            subtractModulus(r);
+        }
+    }
+
+    //r - p = r + 2^32 + 977 - 2^256, for p <= r < 2^256
+    private static void subtractModulus(int[] r) {
+        long c = (r[0] & M) + 977L;
+        r[0] = (int) c;
+        c >>>= 32;
+        c += (r[1] & M) + 1;
+        r[1] = (int) c;
+        c >>>= 32;
+        for (int i = 2; i < LIMBS && c != 0; i++) {
+            c += r[i] & M;
+            r[i] = (int) c;
+            c >>>= 32;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.math.BigInteger;
+
+/**
+ * Fixed-base multiplication by the secp256k1 generator G
+ *
+ * The scalar is split into 32 windows of 8 bits. For every window i the table holds d * 2^(8i) * G for d in 1..255,
+ * normalized to affine coordinates, so k*G costs at most 32 mixed point additions and no doublings,
+ * compared to ~256 doublings plus additions done by the generic multiplier.
+ *
+ * The table (8160 points) is built on first use, once per JVM, and is read-only afterwards, so it is shared by all threads.
+ */
+public class FixedBaseMultiplier {
+
+    private static final int WIDTH = 8;
+    private static final int WINDOWS = (256 + WIDTH - 1) / WIDTH;
+    private static final int ENTRIES = (1 << WIDTH) - 1;
+
+    /**
+     * Computes k*G
+     *
+     * @param k - scalar, reduced mod n if out of range
+     * @return normalized point, infinity if k is a multiple of n
+     */
+    public static ECPoint multiplyG(BigInteger k) {
+        return multiplyGProjective(k).normalize();
+    }
+
+    /**
+     * Computes k*G without normalizing the result, for callers normalizing many points at once (see ECCurve.normalizeAll)
+     *
+     * @param k - scalar, reduced mod n if out of range
+     * @return
+     */
+    static ECPoint multiplyGProjective(BigInteger k) {
+        final BigInteger n = ECKey.params.getN();
+        if (k.signum() < 0 || k.compareTo(n) >= 0) {
+            k = k.mod(n);
+        }
+        final ECPoint[][] table = Table.POINTS;
+        ECPoint result = ECKey.curve.getCurve().getInfinity();
+        for (int window = 0; window < WINDOWS; window++) {
+            int digit = 0;
+            int offset = window * WIDTH;
+            for (int bit = WIDTH - 1; bit >= 0; bit--) {
+                digit = (digit << 1) | (k.testBit(offset + bit) ? 1 : 0);
+            }
+            if (digit != 0) {
+                result = result.add(table[window][digit - 1]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forces the table to be built, e.g. at application start up rather than on the first signature
+     */
+    public static void precompute() {
+        //touching the holder class builds the table
+        ECPoint[][] points = Table.POINTS;
+    }
+
+    /**
+     * The table, read-only: entry [i][d - 1] is d * 2^(8i) * G
+     */
+    static ECPoint[][] table() {
+        return Table.POINTS;
+    }
+
+    //initialization-on-demand holder, the JVM guarantees the table is built exactly once
+    private static class Table {
+
+        static final ECPoint[][] POINTS = build();
+
+        private static ECPoint[][] build() {
+            ECPoint[][] points = new ECPoint[WINDOWS][ENTRIES];
+            ECPoint[] all = new ECPoint[WINDOWS * ENTRIES];
+            ECPoint base = ECKey.curve.getG();
+            for (int window = 0; window < WINDOWS; window++) {
+                ECPoint p = base;
+                for (int d = 0; d < ENTRIES; d++) {
+                    all[window * ENTRIES + d] = p;
+                    p = p.add(base);
+                }
+                //p is now 2^WIDTH * base, the base of the next window
+                base = p.normalize();
+            }
+            //one shared inversion for all points
+            ECKey.curve.getCurve().normalizeAll(all);
+            for (int window = 0; window < WINDOWS; window++) {
+                System.arraycopy(all, window * ENTRIES, points[window], 0, ENTRIES);
+            }
+            return points;
+        }
+    }
+}
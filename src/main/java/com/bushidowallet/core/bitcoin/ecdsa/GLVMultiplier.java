@@ -0,0 +1,153 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.math.ec.AbstractECMultiplier;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECFieldElement;
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.math.BigInteger;
+
+/**
+ * Variable-base scalar multiplication on secp256k1 using the GLV endomorphism
+ *
+ * secp256k1 has an endomorphism phi(x, y) = (beta*x, y) = lambda*P, costing a single field multiplication.
+ * The scalar k is decomposed into k1 + k2*lambda mod n with k1, k2 of at most 128 bits,
+ * and k*P = k1*P + k2*phi(P) is computed with interleaved width-5 NAFs, sharing one chain of ~128 doublings
+ * instead of ~256. The odd multiples of P are normalized together and mapped through phi to get those of phi(P).
+ *
+ * Installed as the multiplier of ECKey.curve (see configure), so ECPoint.multiply on that curve uses it.
+ */
+public class GLVMultiplier extends AbstractECMultiplier {
+
+    //cube roots of unity in the field (beta) and the scalar group (lambda), with phi(P) = lambda*P
+    static final BigInteger BETA = new BigInteger("7ae96a2b657c07106e64479eac3434e99cf0497512f58995c1396c28719501ee", 16);
+    static final BigInteger LAMBDA = new BigInteger("5363ad4cc05c30e0a5261c028812645a122e22ea20816678df02967c1b23bd72", 16);
+
+    //short basis of the lattice {(a, b) : a + b*lambda = 0 mod n}
+    private static final BigInteger V1A = new BigInteger("3086d221a7d46bcde86c90e49284eb15", 16);
+    private static final BigInteger V1B = new BigInteger("-e4437ed6010e88286f547fa90abfe4c3", 16);
+    private static final BigInteger V2A = new BigInteger("114ca50f7a8e2f3f657c1108d9d44cfd8", 16);
+    private static final BigInteger V2B = new BigInteger("3086d221a7d46bcde86c90e49284eb15", 16);
+    //round(2^384 * V2B / n) and round(-2^384 * V1B / n), so the rounding divisions by n become shifts
+    private static final BigInteger G1 = new BigInteger("3086d221a7d46bcde86c90e49284eb153daa8a1471e8ca7fe893209a45dbb031", 16);
+    private static final BigInteger G2 = new BigInteger("e4437ed6010e88286f547fa90abfe4c4221208ac9df506c61571b4ae8ac47f71", 16);
+    private static final int SHIFT = 384;
+
+    private static final int WIDTH = 5;
+    private static final int TABLE_SIZE = 1 << (WIDTH - 2);
+
+    private final BigInteger n;
+
+    /**
+     * @param n - order of the secp256k1 group
+     */
+    public GLVMultiplier(BigInteger n) {
+        this.n = n;
+    }
+
+    /**
+     * Gets secp256k1 parameters whose curve multiplies points with a GLVMultiplier
+     *
+     * @param plain - secp256k1 parameters, as returned by SECNamedCurves
+     * @return
+     */
+    public static X9ECParameters configure(X9ECParameters plain) {
+        ECCurve curve = plain.getCurve().configure().setMultiplier(new GLVMultiplier(plain.getN())).create();
+        return new X9ECParameters(curve, curve.importPoint(plain.getG()), plain.getN(), plain.getH(), plain.getSeed());
+    }
+
+    @Override
+    protected ECPoint multiplyPositive(ECPoint p, BigInteger k) {
+        if (k.compareTo(n) >= 0) {
+            k = k.mod(n);
+        }
+        ECCurve curve = p.getCurve();
+        if (k.signum() == 0) {
+            return curve.getInfinity();
+        }
+        BigInteger[] split = decompose(k);
+
+        //odd multiples P, 3P, .., (2^(WIDTH-1) - 1)P in affine coordinates, then their images under phi
+        ECPoint[] table = new ECPoint[TABLE_SIZE];
+        table[0] = p;
+        ECPoint twice = p.twice();
+        for (int i = 1; i < TABLE_SIZE; i++) {
+            table[i] = table[i - 1].add(twice);
+        }
+        curve.normalizeAll(table);
+        ECFieldElement beta = curve.fromBigInteger(BETA);
+        ECPoint[] phiTable = new ECPoint[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            phiTable[i] = curve.createPoint(table[i].getAffineXCoord().multiply(beta).toBigInteger(),
+                    table[i].getAffineYCoord().toBigInteger());
+        }
+
+        int[] naf1 = windowNaf(split[0].abs());
+        int[] naf2 = windowNaf(split[1].abs());
+        boolean negative1 = split[0].signum() < 0;
+        boolean negative2 = split[1].signum() < 0;
+        ECPoint result = curve.getInfinity();
+        for (int i = Math.max(naf1.length, naf2.length) - 1; i >= 0; i--) {
+            result = result.twice();
+            if (i < naf1.length && naf1[i] != 0) {
+                result = result.add(lookup(table, naf1[i], negative1));
+            }
+            if (i < naf2.length && naf2[i] != 0) {
+                result = result.add(lookup(phiTable, naf2[i], negative2));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits k (0 <= k < n) into k1, k2 with k = k1 + k2*lambda mod n, |k1|, |k2| < 2^128
+     *
+     * @param k
+     * @return { k1, k2 }
+     */
+    static BigInteger[] decompose(BigInteger k) {
+        BigInteger c1 = roundedShift(k.multiply(G1));
+        BigInteger c2 = roundedShift(k.multiply(G2));
+        BigInteger k1 = k.subtract(c1.multiply(V1A)).subtract(c2.multiply(V2A));
+        BigInteger k2 = c1.multiply(V1B).add(c2.multiply(V2B)).negate();
+        return new BigInteger[] { k1, k2 };
+    }
+
+    private static BigInteger roundedShift(BigInteger x) {
+        boolean roundUp = x.testBit(SHIFT - 1);
+        x = x.shiftRight(SHIFT);
+        return roundUp ? x.add(BigInteger.ONE) : x;
+    }
+
+    private static ECPoint lookup(ECPoint[] table, int digit, boolean negate) {
+        ECPoint point = table[Math.abs(digit) >>> 1];
+        return (digit < 0) != negate ? point.negate() : point;
+    }
+
+    /**
+     * Width-w NAF of a non negative integer, least significant digit first: digits are 0 or odd with |d| < 2^(w-1)
+     */
+    private static int[] windowNaf(BigInteger k) {
+        int[] naf = new int[k.bitLength() + 1];
+        int length = 0;
+        int position = 0;
+        int modulus = 1 << WIDTH;
+        while (k.signum() > 0) {
+            if (k.testBit(0)) {
+                int digit = k.intValue() & (modulus - 1);
+                if (digit >= modulus >>> 1) {
+                    digit -= modulus;
+                }
+                naf[position] = digit;
+                k = k.subtract(BigInteger.valueOf(digit));
+                length = position + 1;
+            }
+            k = k.shiftRight(1);
+            position++;
+        }
+        int[] trimmed = new int[length];
+        System.arraycopy(naf, 0, trimmed, 0, length);
+        return trimmed;
+    }
+}
@@ -0,0 +1,135 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.util.LRUCache;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECFieldElement;
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of decoded public key points, keyed by their encoding
+ *
+ * Decoding a compressed key takes a modular square root, decoding an uncompressed one a curve equation check;
+ * keys verified against repeatedly (e.g. cosigner keys) are decoded once. Points are validated before being cached
+ * and are immutable, so they are shared between threads. Lookups do not copy the encoding, inserts do.
+ *
+ * ECKey.getPoint decodes through the default instance, whose size can be changed with setDefault.
+ */
+public class PointCache {
+
+    public static final int DEFAULT_SIZE = 4096;
+
+    private static volatile PointCache defaultCache = new PointCache(DEFAULT_SIZE);
+
+    private final LRUCache<Encoding, ECPoint> cache;
+
+    /**
+     * @param maxSize - maximum number of points kept
+     */
+    public PointCache(int maxSize) {
+        this.cache = new LRUCache<Encoding, ECPoint>(maxSize);
+    }
+
+    public static PointCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Replaces the cache used by ECKey.getPoint, e.g. with one sized for the number of keys in use
+     *
+     * @param cache
+     */
+    public static void setDefault(PointCache cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("Point cache must not be null");
+        }
+        defaultCache = cache;
+    }
+
+    /**
+     * Decodes and validates an encoded public key, returning a cached point where possible
+     *
+     * @param encoded - compressed or uncompressed public key
+     * @return normalized point on the curve
+     * @throws IllegalArgumentException - if the encoding is invalid or the point is not on the curve
+     */
+    public ECPoint decode(byte[] encoded) {
+        ECPoint point = cache.get(new Encoding(encoded));
+        if (point == null) {
+            //concurrent misses of the same key decode twice, both results are equal
+            point = validate(ECKey.curve.getCurve().decodePoint(encoded));
+            cache.put(new Encoding(encoded.clone()), point);
+        }
+        return point;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return cache.getMaxSize();
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public double getHitRate() {
+        return cache.getHitRate();
+    }
+
+    public void resetStatistics() {
+        cache.resetStatistics();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private static ECPoint validate(ECPoint point) {
+        if (point.isInfinity()) {
+            throw new IllegalArgumentException("Public key is the point at infinity");
+        }
+        //decompressed points are on the curve by construction, uncompressed ones are taken as given by decodePoint
+        ECPoint p = point.normalize();
+        ECCurve curve = p.getCurve();
+        ECFieldElement x = p.getAffineXCoord();
+        ECFieldElement y = p.getAffineYCoord();
+        ECFieldElement rhs = x.square().add(curve.getA()).multiply(x).add(curve.getB());
+        if (!y.square().equals(rhs)) {
+            throw new IllegalArgumentException("Public key is not on the curve");
+        }
+        return p;
+    }
+
+    /**
+     * Encoded key bytes with value equality
+     */
+    private static final class Encoding {
+
+        private final byte[] bytes;
+        private final int hash;
+
+        Encoding(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Encoding && Arrays.equals(bytes, ((Encoding) obj).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
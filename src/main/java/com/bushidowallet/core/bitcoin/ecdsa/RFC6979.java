@@ -0,0 +1,158 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * RFC6979 deterministic nonce generation with HMAC-SHA256
+ *
+ * Each thread reuses its own digests and V/K buffers. Keying HMAC hashes the padded key into an inner and an outer
+ * digest once, every MAC under that key starts from copies of their states, so generating a nonce
+ * allocates nothing but its result. V, K and the key schedule are cleared once the nonce is computed.
+ * The hash is used as given (no bits2octets reduction), as ECDSA always did.
+ */
+public final class RFC6979 {
+
+    private static final int LENGTH = 32;
+    private static final int BLOCK_LENGTH = 64;
+
+    //n, big-endian, candidates are compared to it bytewise
+    private static final byte[] N = ECKey.params.getN().toByteArray();
+
+    private static final ThreadLocal<Generator> generators = new ThreadLocal<Generator>() {
+        @Override
+        protected Generator initialValue() {
+            return new Generator();
+        }
+    };
+
+    private RFC6979() {
+    }
+
+    /**
+     * Generates the nonce for a private key and message hash
+     *
+     * @param priv - 32 byte private key
+     * @param hash - message hash
+     * @param badrs - number of candidates to skip, non zero when previous nonces gave an invalid signature
+     * @return
+     */
+    public static BigInteger generateK(byte[] priv, byte[] hash, int badrs) {
+        byte[] k = new byte[LENGTH];
+        generateK(priv, hash, badrs, k);
+        return new BigInteger(1, k);
+    }
+
+    /**
+     * Generates the nonce into a caller supplied buffer
+     *
+     * @param priv - 32 byte private key
+     * @param hash - message hash
+     * @param badrs - number of candidates to skip
+     * @param k - receives the 32 byte big-endian nonce, 0 < k < n
+     */
+    public static void generateK(byte[] priv, byte[] hash, int badrs, byte[] k) {
+        generators.get().generate(priv, hash, badrs, k);
+    }
+
+    private static boolean inRange(byte[] t) {
+        //N has a leading zero byte (sign), t is unsigned
+        int sign = 0;
+        int zero = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            int a = t[i] & 0xff;
+            int b = N[i + 1] & 0xff;
+            zero |= a;
+            if (sign == 0 && a != b) {
+                sign = a < b ? -1 : 1;
+            }
+        }
+        return zero != 0 && sign < 0;
+    }
+
+    private static final class Generator {
+
+        private final SHA256Digest inner = new SHA256Digest();
+        private final SHA256Digest outer = new SHA256Digest();
+        private final SHA256Digest mac = new SHA256Digest();
+        private final byte[] pad = new byte[BLOCK_LENGTH];
+        private final byte[] innerHash = new byte[LENGTH];
+        private final byte[] v = new byte[LENGTH];
+        private final byte[] k = new byte[LENGTH];
+
+        void generate(byte[] priv, byte[] hash, int badrs, byte[] out) {
+            try {
+                Arrays.fill(v, (byte) 0x01);
+                Arrays.fill(k, (byte) 0x00);
+                //K = HMAC_K(V || 0x00 || x || h), V = HMAC_K(V)
+                seed((byte) 0x00, priv, hash);
+                //K = HMAC_K(V || 0x01 || x || h), V = HMAC_K(V)
+                seed((byte) 0x01, priv, hash);
+                //T = V = HMAC_K(V)
+                nextV();
+                for (int i = 0; i < badrs || !inRange(v); i++) {
+                    //K = HMAC_K(V || 0x00), V = HMAC_K(V), T = V = HMAC_K(V)
+                    mac.reset(inner);
+                    mac.update(v, 0, LENGTH);
+                    mac.update((byte) 0x00);
+                    finish(k);
+                    key(k);
+                    nextV();
+                    nextV();
+                }
+                System.arraycopy(v, 0, out, 0, LENGTH);
+            } finally {
+                Arrays.fill(v, (byte) 0x00);
+                Arrays.fill(k, (byte) 0x00);
+                Arrays.fill(innerHash, (byte) 0x00);
+                inner.reset();
+                outer.reset();
+                mac.reset();
+            }
+        }
+
+        private void seed(byte separator, byte[] priv, byte[] hash) {
+            key(k);
+            mac.reset(inner);
+            mac.update(v, 0, LENGTH);
+            mac.update(separator);
+            mac.update(priv, 0, priv.length);
+            mac.update(hash, 0, hash.length);
+            finish(k);
+            key(k);
+            nextV();
+        }
+
+        //hashes the inner and outer padded key, the starting states of every MAC under it
+        private void key(byte[] key) {
+            for (int i = 0; i < BLOCK_LENGTH; i++) {
+                pad[i] = (byte) ((i < key.length ? key[i] : 0) ^ 0x36);
+            }
+            inner.reset();
+            inner.update(pad, 0, BLOCK_LENGTH);
+            for (int i = 0; i < BLOCK_LENGTH; i++) {
+                pad[i] ^= 0x36 ^ 0x5c;
+            }
+            outer.reset();
+            outer.update(pad, 0, BLOCK_LENGTH);
+            Arrays.fill(pad, (byte) 0x00);
+        }
+
+        private void finish(byte[] out) {
+            mac.doFinal(innerHash, 0);
+            mac.reset(outer);
+            mac.update(innerHash, 0, LENGTH);
+            mac.doFinal(out, 0);
+        }
+
+        //V = HMAC_K(V), under the current K
+        private void nextV() {
+            mac.reset(inner);
+            mac.update(v, 0, LENGTH);
+            finish(v);
+        }
+    }
+}
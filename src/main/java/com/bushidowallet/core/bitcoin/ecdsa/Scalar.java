@@ -0,0 +1,214 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import static com.bushidowallet.core.bitcoin.ecdsa.Field.LIMBS;
+import static com.bushidowallet.core.bitcoin.ecdsa.Field.M;
+
+/**
+ * Arithmetic modulo the secp256k1 group order n on fixed-width numbers, laid out as in Field
+ *
+ * Products are reduced with 2^256 = 2^256 - n (mod n), a 129 bit constant, folding the high half in
+ * until the number fits 256 bits. Multiplication, inversion and the GLV split need scratch space,
+ * so they are instance methods; an instance belongs to a single thread.
+ */
+final class Scalar {
+
+    //n, least significant limb first
+    static final int[] N = { 0xd0364141, 0xbfd25e8c, 0xaf48a03b, 0xbaaedce6, 0xfffffffe, -1, -1, -1 };
+    //floor(n / 2), signatures with a larger s are not canonical
+    static final int[] HALF_N = { 0x681b20a0, 0xdfe92f46, 0x57a4501d, 0x5d576e73, -1, -1, -1, 0x7fffffff };
+    //2^256 - n
+    private static final int[] C = { 0x2fc9bebf, 0x402da173, 0x50b75fc4, 0x45512319, 0x1 };
+    //n - 2, the inversion exponent
+    private static final int[] N_MINUS_2 = { 0xd036413f, 0xbfd25e8c, 0xaf48a03b, 0xbaaedce6, 0xfffffffe, -1, -1, -1 };
+
+    //GLV split constants (see GLVMultiplier): round(2^384 * b2 / n), round(-2^384 * b1 / n), -b1, -b2 mod n, -lambda mod n
+    private static final int[] G1 = { 0x45dbb031, 0xe893209a, 0x71e8ca7f, 0x3daa8a14, 0x9284eb15, 0xe86c90e4, 0xa7d46bcd, 0x3086d221 };
+    private static final int[] G2 = { 0x8ac47f71, 0x1571b4ae, 0x9df506c6, 0x221208ac, 0x0abfe4c4, 0x6f547fa9, 0x010e8828, 0xe4437ed6 };
+    private static final int[] MINUS_B1 = { 0x0abfe4c3, 0x6f547fa9, 0x010e8828, 0xe4437ed6, 0, 0, 0, 0 };
+    private static final int[] MINUS_B2 = { 0x3db1562c, 0xd765cda8, 0x0774346d, 0x8a280ac5, 0xfffffffe, -1, -1, -1 };
+    private static final int[] MINUS_LAMBDA = { 0xb51283cf, 0xe0cfc810, 0x8ec739c2, 0xa880b9fc, 0x77ed9ba4, 0x5ad9e3fd, 0x3fa3cf1f, 0xac9c52b3 };
+
+    private final int[] wide = new int[2 * LIMBS];
+    private final int[] fold1 = new int[2 * LIMBS];
+    private final int[] fold2 = new int[2 * LIMBS];
+    private final int[][] powers = new int[16][LIMBS];
+    private final int[] c1 = new int[LIMBS];
+    private final int[] c2 = new int[LIMBS];
+
+    static boolean isZero(int[] a) {
+        return Field.isZero(a);
+    }
+
+    /**
+     * @return true if a is larger than n / 2
+     */
+    static boolean isHigh(int[] a) {
+        return Field.compare(a, HALF_N) > 0;
+    }
+
+    /**
+     * Reads a 32 byte hash as a number mod n
+     *
+     * @param littleEndian - true if the hash is stored least significant byte first
+     */
+    static void fromHash(byte[] hash, boolean littleEndian, int[] r) {
+        if (littleEndian) {
+            for (int i = 0; i < LIMBS; i++) {
+                int j = 4 * i;
+                r[i] = (hash[j + 3] & 0xff) << 24 | (hash[j + 2] & 0xff) << 16 | (hash[j + 1] & 0xff) << 8 | (hash[j] & 0xff);
+            }
+        } else {
+            Field.readBytes(hash, 0, r);
+        }
+        reduceOnce(r);
+    }
+
+    /**
+     * Reduces a number below 2^256 (e.g. a field element) mod n; 2^256 < 2n, so one subtraction is enough
+     */
+    static void reduceOnce(int[] r) {
+        if (Field.compare(r, N) >= 0) {
+            long c = 0;
+            for (int i = 0; i < LIMBS; i++) {
+                c += (r[i] & M) - (N[i] & M);
+                r[i] = (int) c;
+                c >>= 32;
+            }
+        }
+    }
+
+    static void add(int[] a, int[] b, int[] r) {
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (a[i] & M) + (b[i] & M);
+            r[i] = (int) c;
+            c >>>= 32;
+        }
+        if (c != 0) {
+            //a + b - n = r + 2^256 - n, the carry out cancels
+            c = 0;
+            for (int i = 0; i < LIMBS; i++) {
+                c += (r[i] & M) + (i < C.length ? C[i] & M : 0);
+                r[i] = (int) c;
+                c >>>= 32;
+            }
+        } else {
+            reduceOnce(r);
+        }
+    }
+
+    static void negate(int[] a, int[] r) {
+        if (isZero(a)) {
+            Field.setInt(0, r);
+            return;
+        }
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (N[i] & M) - (a[i] & M);
+            r[i] = (int) c;
+            c >>= 32;
+        }
+    }
+
+    void multiply(int[] a, int[] b, int[] r) {
+        Field.multiplyWide(a, b, wide);
+        reduce(wide, r);
+    }
+
+    /**
+     * r = a^(n - 2) = 1 / a, with 4 bit fixed windows (252 squarings, at most 63 multiplications)
+     *
+     * @param a - non zero, may be the same array as r
+     */
+    void invert(int[] a, int[] r) {
+        Field.setInt(1, powers[0]);
+        Field.set(a, powers[1]);
+        for (int i = 2; i < powers.length; i++) {
+            multiply(powers[i - 1], a, powers[i]);
+        }
+        Field.set(powers[N_MINUS_2[LIMBS - 1] >>> 28], r);
+        for (int nibble = 8 * LIMBS - 2; nibble >= 0; nibble--) {
+            multiply(r, r, r);
+            multiply(r, r, r);
+            multiply(r, r, r);
+            multiply(r, r, r);
+            int digit = (N_MINUS_2[nibble >>> 3] >>> (4 * (nibble & 7))) & 0xf;
+            if (digit != 0) {
+                multiply(r, powers[digit], r);
+            }
+        }
+    }
+
+    /**
+     * Splits k into k1 + k2 * lambda (mod n), both returned as k1, k2 in [0, n), of which either the number
+     * or its negation is below 2^129; isHigh tells which. Same lattice as GLVMultiplier.decompose,
+     * computed mod n as in libsecp256k1.
+     */
+    void split(int[] k, int[] k1, int[] k2) {
+        multiplyShift(k, G1, c1);
+        multiplyShift(k, G2, c2);
+        multiply(c1, MINUS_B1, c1);
+        multiply(c2, MINUS_B2, c2);
+        add(c1, c2, k2);
+        multiply(k2, MINUS_LAMBDA, k1);
+        add(k1, k, k1);
+    }
+
+    //r = round(a * b / 2^384)
+    private void multiplyShift(int[] a, int[] b, int[] r) {
+        Field.multiplyWide(a, b, wide);
+        long c = (wide[11] >>> 31) & 1;
+        for (int i = 0; i < 4; i++) {
+            c += wide[12 + i] & M;
+            r[i] = (int) c;
+            c >>>= 32;
+        }
+        r[4] = (int) c;
+        for (int i = 5; i < LIMBS; i++) {
+            r[i] = 0;
+        }
+    }
+
+    /**
+     * Reduces a 512 bit number mod n by folding the limbs above 256 bits in with 2^256 = C (mod n):
+     * 512 bits fold to at most 386, then 259, then 257
+     */
+    private void reduce(int[] number, int[] r) {
+        int[] source = number;
+        int length = 2 * LIMBS;
+        int[] target = fold1;
+        while (length > LIMBS) {
+            int high = length - LIMBS;
+            int targetLength = Math.max(LIMBS, high + C.length) + 1;
+            System.arraycopy(source, 0, target, 0, LIMBS);
+            for (int i = LIMBS; i < targetLength; i++) {
+                target[i] = 0;
+            }
+            for (int i = 0; i < high; i++) {
+                long h = source[LIMBS + i] & M;
+                if (h == 0) {
+                    continue;
+                }
+                long c = 0;
+                for (int j = 0; j < C.length; j++) {
+                    c += h * (C[j] & M) + (target[i + j] & M);
+                    target[i + j] = (int) c;
+                    c >>>= 32;
+                }
+                for (int j = i + C.length; c != 0; j++) {
+                    c += target[j] & M;
+                    target[j] = (int) c;
+                    c >>>= 32;
+                }
+            }
+            while (targetLength > LIMBS && target[targetLength - 1] == 0) {
+                targetLength--;
+            }
+            source = target;
+            length = targetLength;
+            target = target == fold1 ? fold2 : fold1;
+        }
+        System.arraycopy(source, 0, r, 0, LIMBS);
+        reduceOnce(r);
+    }
+}
@@ -0,0 +1,83 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+/**
+ * BIP340 Schnorr signatures over secp256k1
+ *
+ * Public keys are x-only: the 32 byte x coordinate of the point with an even y, a signature is the 64 bytes R.x || s.
+ * Messages may have any length, Taproot signs 32 byte hashes.
+ * Many signatures are verified faster together with SchnorrBatchVerifier.
+ */
+public class Schnorr {
+
+    public static final int SIGNATURE_LENGTH = 64;
+    public static final int PUBLIC_KEY_LENGTH = 32;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private Schnorr() {
+    }
+
+    /**
+     * Signs a message with fresh auxiliary randomness, as recommended by BIP340
+     *
+     * @param key - private key
+     * @param message
+     * @return 64 byte signature
+     * @throws Exception
+     */
+    public static byte[] sign(BigInteger key, byte[] message) throws Exception {
+        byte[] auxRand = new byte[32];
+        random.nextBytes(auxRand);
+        return sign(key, message, auxRand);
+    }
+
+    /**
+     * Signs a message
+     *
+     * @param key - private key
+     * @param message
+     * @param auxRand - 32 bytes mixed into the nonce, all zero for deterministic signatures
+     * @return 64 byte signature
+     * @throws Exception - if the parameters are invalid
+     */
+    public static byte[] sign(BigInteger key, byte[] message, byte[] auxRand) throws Exception {
+        if (key == null || key.signum() != 1 || key.compareTo(ECKey.params.getN()) >= 0
+                || message == null || auxRand == null || auxRand.length != 32) {
+            throw new Exception("Invalid parameters");
+        }
+        byte[] signature = Secp256k1.schnorrSign(key, message, auxRand);
+        if (signature == null) {
+            throw new Exception("Nonce is zero, sign with other auxiliary randomness");
+        }
+        return signature;
+    }
+
+    /**
+     * Verifies a signature
+     *
+     * @param publicKey - 32 byte x-only public key
+     * @param message
+     * @param signature - 64 bytes
+     * @return false if the signature is invalid or any parameter is malformed
+     */
+    public static boolean verify(byte[] publicKey, byte[] message, byte[] signature) {
+        return Secp256k1.schnorrVerify(publicKey, message, signature);
+    }
+
+    /**
+     * Gets the x-only public key of an encoded (compressed or uncompressed) public key
+     *
+     * @param publicKey
+     * @return 32 bytes
+     */
+    public static byte[] toXOnly(byte[] publicKey) {
+        byte[] xOnly = new byte[PUBLIC_KEY_LENGTH];
+        System.arraycopy(publicKey, 1, xOnly, 0, PUBLIC_KEY_LENGTH);
+        return xOnly;
+    }
+}
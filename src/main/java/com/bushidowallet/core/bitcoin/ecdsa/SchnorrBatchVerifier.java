@@ -0,0 +1,128 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.util.SharedPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Verifies many BIP340 signatures at once, as in the batch verification of BIP340
+ *
+ * Instead of checking s_i*G = R_i + e_i*P_i for each signature, a random linear combination of all the equations
+ * is checked with a single multi-scalar multiplication: the doublings are shared by all points, and the weights are
+ * 128 bit so half of the scalars need no GLV split. A forged signature passes only with negligible probability.
+ * Chunks of signatures are verified this way in parallel.
+ *
+ * The result is one answer for the whole batch; when it is false, Schnorr.verify tells which signatures are invalid.
+ * Items are added by a single thread before verify is called; an instance may be verified repeatedly.
+ */
+public class SchnorrBatchVerifier {
+
+    //signatures sharing a multi-scalar multiplication; the doublings are amortized well before this size
+    private static final int CHUNK_SIZE = 128;
+
+    private final List<byte[]> publicKeys = new ArrayList<byte[]>();
+    private final List<byte[]> messages = new ArrayList<byte[]>();
+    private final List<byte[]> signatures = new ArrayList<byte[]>();
+
+    /**
+     * Adds a signature to verify
+     *
+     * @param publicKey - 32 byte x-only public key
+     * @param message
+     * @param signature - 64 bytes
+     * @return this verifier
+     */
+    public SchnorrBatchVerifier add(byte[] publicKey, byte[] message, byte[] signature) {
+        publicKeys.add(publicKey);
+        messages.add(message);
+        signatures.add(signature);
+        return this;
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    /**
+     * Verifies all added signatures on the shared ForkJoinPool
+     *
+     * @return true if all the signatures are valid (or there are none)
+     */
+    public boolean verify() {
+        boolean[] results = new boolean[chunks()];
+        SharedPool.get().invoke(new VerifyTask(results, 0, results.length));
+        return allValid(results);
+    }
+
+    /**
+     * Verifies all added signatures on a caller supplied executor
+     *
+     * @param executor - executor running the chunks
+     * @return true if all the signatures are valid (or there are none)
+     * @throws Exception
+     */
+    public boolean verify(ExecutorService executor) throws Exception {
+        final boolean[] results = new boolean[chunks()];
+        List<Callable<Void>> chunks = new ArrayList<Callable<Void>>();
+        for (int chunk = 0; chunk < results.length; chunk++) {
+            final int index = chunk;
+            chunks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    results[index] = verifyChunk(index);
+                    return null;
+                }
+            });
+        }
+        SharedPool.invokeAll(executor, chunks);
+        return allValid(results);
+    }
+
+    private int chunks() {
+        return (size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private boolean verifyChunk(int chunk) {
+        int start = chunk * CHUNK_SIZE;
+        int end = Math.min(size(), start + CHUNK_SIZE);
+        return Secp256k1.schnorrVerifyBatch(publicKeys, messages, signatures, start, end);
+    }
+
+    private static boolean allValid(boolean[] results) {
+        for (boolean result : results) {
+            if (!result) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private class VerifyTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean[] results;
+        private final int start;
+        private final int end;
+
+        VerifyTask(boolean[] results, int start, int end) {
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                results[start] = verifyChunk(start);
+            } else if (end > start) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new VerifyTask(results, start, middle), new VerifyTask(results, middle, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,852 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.bushidowallet.core.bitcoin.ecdsa.Field.LIMBS;
+import static com.bushidowallet.core.bitcoin.ecdsa.Field.M;
+
+/**
+ * ECDSA signing, verification and public key recovery, and BIP340 Schnorr signatures,
+ * on secp256k1 with Field and Scalar arithmetic
+ *
+ * Points are kept in Jacobian coordinates (x = X/Z^2, y = Y/Z^3) and updated in place with the a = 0 formulas.
+ * k*G adds entries of the fixed-base table (see FixedBaseMultiplier), copied once into limbs.
+ * u2*Q in verification is split with the GLV endomorphism into two ~128 bit width-5 NAFs sharing their doublings
+ * (see GLVMultiplier), and the x coordinate is compared as X = r*Z^2, avoiding the field inversion.
+ *
+ * Batches of Schnorr signatures are verified with one multi-scalar multiplication (see multiplyMulti).
+ *
+ * All temporaries live in a per-thread Context, so in steady state a signature allocates only its result
+ * and a verification nothing at all.
+ */
+final class Secp256k1 {
+
+    private static final int TABLE_WIDTH = 8;
+    private static final int TABLE_ENTRIES = (1 << TABLE_WIDTH) - 1;
+    private static final int WIDTH = 5;
+    private static final int ODD_MULTIPLES = 1 << (WIDTH - 2);
+    //digits of a number below 2^256, with room for the final carry
+    private static final int NAF_LENGTH = 256 + WIDTH + 1;
+
+    //p - n, x coordinates below it have two candidate values mod n
+    private static final int[] P_MINUS_N = { 0x2fc9baee, 0x402da172, 0x50b75fc4, 0x45512319, 0x1, 0, 0, 0 };
+    private static final int[] SEVEN = { 7, 0, 0, 0, 0, 0, 0, 0 };
+    private static final TaggedHash AUX = new TaggedHash("BIP0340/aux");
+    private static final TaggedHash NONCE = new TaggedHash("BIP0340/nonce");
+    private static final TaggedHash CHALLENGE = new TaggedHash("BIP0340/challenge");
+    private static final TaggedHash BATCH = new TaggedHash("BIP0340/batch");
+    private static final int[] BETA = { 0x719501ee, 0xc1396c28, 0x12f58995, 0x9cf04975, 0xac3434e9, 0x6e64479e, 0x657c0710, 0x7ae96a2b };
+
+    private static final ThreadLocal<Context> contexts = new ThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context();
+        }
+    };
+
+    private Secp256k1() {
+    }
+
+    /**
+     * Signs with a deterministic (RFC6979) nonce, producing a low-S signature
+     *
+     * @param d - private key, 0 < d < n
+     * @param hashbuf - 32 byte hash
+     * @param littleEndian - byte order of the hash
+     * @param compressed - compression flag carried by the signature
+     * @return
+     */
+    static ECDSASignature sign(BigInteger d, byte[] hashbuf, boolean littleEndian, boolean compressed) {
+        return contexts.get().sign(d, hashbuf, littleEndian, compressed);
+    }
+
+    /**
+     * Verifies a signature whose r and s are already known to be in [1, n - 1]
+     *
+     * @param hashbuf - 32 byte hash
+     * @param littleEndian - byte order of the hash
+     * @param r
+     * @param s
+     * @param q - public key, normalized and not infinity
+     * @return
+     */
+    static boolean verify(byte[] hashbuf, boolean littleEndian, BigInteger r, BigInteger s, ECPoint q) {
+        return contexts.get().verify(hashbuf, littleEndian, r, s, q);
+    }
+
+    /**
+     * Recovers the public key of a signature from r, s and the recovery id set by sign
+     *
+     * @param hashbuf - 32 byte hash
+     * @param littleEndian - byte order of the hash
+     * @param r - in [1, n - 1]
+     * @param s - in [1, n - 1]
+     * @param recId - 0 to 3
+     * @param compressed - encoding of the returned key
+     * @return encoded public key, null if no key matches
+     */
+    static byte[] recover(byte[] hashbuf, boolean littleEndian, BigInteger r, BigInteger s, int recId, boolean compressed) {
+        return contexts.get().recover(hashbuf, littleEndian, r, s, recId, compressed);
+    }
+
+    /**
+     * Creates a BIP340 signature
+     *
+     * @param d - private key, 0 < d < n
+     * @param message
+     * @param auxRand - 32 bytes of auxiliary randomness
+     * @return 64 byte signature, null in the negligible case of a zero nonce
+     */
+    static byte[] schnorrSign(BigInteger d, byte[] message, byte[] auxRand) {
+        return contexts.get().schnorrSign(d, message, auxRand);
+    }
+
+    /**
+     * Verifies a BIP340 signature
+     *
+     * @param publicKey - 32 byte x-only public key
+     * @param message
+     * @param signature - 64 bytes
+     * @return
+     */
+    static boolean schnorrVerify(byte[] publicKey, byte[] message, byte[] signature) {
+        return contexts.get().schnorrVerify(publicKey, message, signature);
+    }
+
+    /**
+     * Verifies BIP340 signatures start to end - 1 of the lists together, with one multi-scalar multiplication
+     *
+     * @return true if all the signatures are valid
+     */
+    static boolean schnorrVerifyBatch(List<byte[]> publicKeys, List<byte[]> messages, List<byte[]> signatures, int start, int end) {
+        return contexts.get().schnorrVerifyBatch(publicKeys, messages, signatures, start, end);
+    }
+
+    /**
+     * A point in Jacobian coordinates
+     */
+    static final class Jacobian {
+
+        final int[] x = Field.create();
+        final int[] y = Field.create();
+        final int[] z = Field.create();
+        boolean infinity = true;
+
+        void set(Jacobian p) {
+            Field.set(p.x, x);
+            Field.set(p.y, y);
+            Field.set(p.z, z);
+            infinity = p.infinity;
+        }
+    }
+
+    static final class Context {
+
+        private final Field field = new Field();
+        private final Scalar scalar = new Scalar();
+
+        //point formula temporaries
+        private final int[] a = Field.create();
+        private final int[] b = Field.create();
+        private final int[] c = Field.create();
+        private final int[] d = Field.create();
+        private final int[] e = Field.create();
+        private final int[] f = Field.create();
+        private final int[] g = Field.create();
+        private final int[] h = Field.create();
+        private final int[] t = Field.create();
+        private final int[] negY = Field.create();
+
+        //signing and verification state
+        private final byte[] privBytes = new byte[4 * LIMBS];
+        private final byte[] nonce = new byte[4 * LIMBS];
+        private final int[] priv = Field.create();
+        private final int[] k = Field.create();
+        private final int[] kinv = Field.create();
+        private final int[] hash = Field.create();
+        private final int[] r = Field.create();
+        private final int[] s = Field.create();
+        private final int[] u1 = Field.create();
+        private final int[] u2 = Field.create();
+        private final int[] k1 = Field.create();
+        private final int[] k2 = Field.create();
+        private final int[] qx = Field.create();
+        private final int[] qy = Field.create();
+        private final int[] naf1 = new int[NAF_LENGTH];
+        private final int[] naf2 = new int[NAF_LENGTH];
+        private final Jacobian sum = new Jacobian();
+        private final Jacobian product = new Jacobian();
+        private final Jacobian twice = new Jacobian();
+        private final Jacobian[] table = jacobians(ODD_MULTIPLES);
+        private final Jacobian[] phiTable = jacobians(ODD_MULTIPLES);
+
+        ECDSASignature sign(BigInteger key, byte[] hashbuf, boolean littleEndian, boolean compressed) {
+            try {
+                Field.fromBigInteger(key, priv);
+                Field.toBytes(priv, privBytes, 0);
+                Scalar.fromHash(hashbuf, littleEndian, hash);
+                for (int badrs = 0; ; badrs++) {
+                    RFC6979.generateK(privBytes, hashbuf, badrs, nonce);
+                    Field.readBytes(nonce, 0, k);
+                    multiplyG(k, sum);
+                    //r = x mod n, with x = X / Z^2, y = Y / Z^3
+                    field.invert(sum.z, a);
+                    field.square(a, b);
+                    field.multiply(sum.x, b, r);
+                    boolean overflow = Field.compare(r, Scalar.N) >= 0;
+                    Scalar.reduceOnce(r);
+                    if (Scalar.isZero(r)) {
+                        continue;
+                    }
+                    field.multiply(b, a, b);
+                    field.multiply(sum.y, b, b);
+                    //R is recovered from r with the parity of y and whether x was reduced
+                    int recId = (b[0] & 1) | (overflow ? 2 : 0);
+                    //s = (e + d*r) / k mod n
+                    scalar.multiply(r, priv, s);
+                    Scalar.add(s, hash, s);
+                    scalar.invert(k, kinv);
+                    scalar.multiply(s, kinv, s);
+                    if (Scalar.isZero(s)) {
+                        continue;
+                    }
+                    if (Scalar.isHigh(s)) {
+                        //(r, -s) is the signature of -R, whose y has the other parity
+                        Scalar.negate(s, s);
+                        recId ^= 1;
+                    }
+                    ECDSASignature signature = new ECDSASignature(Field.toBigInteger(r), Field.toBigInteger(s), compressed);
+                    signature.recId = recId;
+                    return signature;
+                }
+            } finally {
+                Arrays.fill(privBytes, (byte) 0);
+                Arrays.fill(nonce, (byte) 0);
+                Arrays.fill(priv, 0);
+                Arrays.fill(k, 0);
+                Arrays.fill(kinv, 0);
+            }
+        }
+
+        boolean verify(byte[] hashbuf, boolean littleEndian, BigInteger rValue, BigInteger sValue, ECPoint q) {
+            Field.fromBigInteger(rValue, r);
+            Field.fromBigInteger(sValue, s);
+            Scalar.fromHash(hashbuf, littleEndian, hash);
+            scalar.invert(s, s);
+            scalar.multiply(hash, s, u1);
+            scalar.multiply(r, s, u2);
+            Field.fromBigInteger(q.getAffineXCoord().toBigInteger(), qx);
+            Field.fromBigInteger(q.getAffineYCoord().toBigInteger(), qy);
+
+            multiplyG(u1, sum);
+            multiply(qx, qy, u2, product);
+            add(sum, product.x, product.y, product.z, product.infinity, false, sum);
+            if (sum.infinity) {
+                return false;
+            }
+            //x mod n = r, where x = X / Z^2 and x < p < 2n: X = r*Z^2, or X = (r + n)*Z^2 if r + n < p
+            field.square(sum.z, a);
+            field.multiply(r, a, b);
+            if (Field.equal(b, sum.x)) {
+                return true;
+            }
+            if (Field.compare(r, P_MINUS_N) >= 0) {
+                return false;
+            }
+            long carry = 0;
+            for (int i = 0; i < LIMBS; i++) {
+                carry += (r[i] & M) + (Scalar.N[i] & M);
+                r[i] = (int) carry;
+                carry >>>= 32;
+            }
+            field.multiply(r, a, b);
+            return Field.equal(b, sum.x);
+        }
+
+        byte[] recover(byte[] hashbuf, boolean littleEndian, BigInteger rValue, BigInteger sValue, int recId, boolean compressed) {
+            Field.fromBigInteger(rValue, r);
+            Field.fromBigInteger(sValue, s);
+            //R = (x, y) with x = r or r + n, y of the parity in recId
+            Field.set(r, qx);
+            if ((recId & 2) != 0) {
+                if (Field.compare(r, P_MINUS_N) >= 0) {
+                    return null;
+                }
+                long carry = 0;
+                for (int i = 0; i < LIMBS; i++) {
+                    carry += (qx[i] & M) + (Scalar.N[i] & M);
+                    qx[i] = (int) carry;
+                    carry >>>= 32;
+                }
+            }
+            field.square(qx, a);
+            field.multiply(a, qx, a);
+            Field.add(a, SEVEN, a);
+            if (!field.sqrt(a, qy)) {
+                return null;
+            }
+            if ((qy[0] & 1) != (recId & 1)) {
+                Field.negate(qy, qy);
+            }
+            //Q = (s*R - e*G) / r = u1*G + u2*R, u1 = -e / r, u2 = s / r
+            Scalar.fromHash(hashbuf, littleEndian, hash);
+            scalar.invert(r, kinv);
+            scalar.multiply(hash, kinv, u1);
+            Scalar.negate(u1, u1);
+            scalar.multiply(s, kinv, u2);
+            multiplyG(u1, sum);
+            multiply(qx, qy, u2, product);
+            add(sum, product.x, product.y, product.z, product.infinity, false, sum);
+            if (sum.infinity) {
+                return null;
+            }
+            field.invert(sum.z, a);
+            field.square(a, b);
+            field.multiply(sum.x, b, qx);
+            field.multiply(b, a, b);
+            field.multiply(sum.y, b, qy);
+            byte[] encoded = new byte[compressed ? 33 : 65];
+            if (compressed) {
+                encoded[0] = (byte) (0x02 | (qy[0] & 1));
+                Field.toBytes(qx, encoded, 1);
+            } else {
+                encoded[0] = 0x04;
+                Field.toBytes(qx, encoded, 1);
+                Field.toBytes(qy, encoded, 33);
+            }
+            return encoded;
+        }
+
+        byte[] schnorrSign(BigInteger key, byte[] message, byte[] auxRand) {
+            try {
+                //d is negated if needed so that P = d*G has an even y
+                Field.fromBigInteger(key, priv);
+                multiplyG(priv, sum);
+                toAffine(sum, qx, qy);
+                if ((qy[0] & 1) != 0) {
+                    Scalar.negate(priv, priv);
+                }
+                byte[] publicKey = new byte[32];
+                Field.toBytes(qx, publicKey, 0);
+                //k = hash(d xor hash(a) || P || m), negated if needed so that R = k*G has an even y
+                Field.toBytes(priv, privBytes, 0);
+                byte[] auxHash = AUX.hash(auxRand);
+                for (int i = 0; i < privBytes.length; i++) {
+                    privBytes[i] ^= auxHash[i];
+                }
+                Field.readBytes(NONCE.hash(privBytes, publicKey, message), 0, k);
+                Scalar.reduceOnce(k);
+                if (Scalar.isZero(k)) {
+                    return null;
+                }
+                multiplyG(k, sum);
+                toAffine(sum, r, qy);
+                if ((qy[0] & 1) != 0) {
+                    Scalar.negate(k, k);
+                }
+                byte[] rBytes = new byte[32];
+                Field.toBytes(r, rBytes, 0);
+                //s = k + e*d
+                Field.readBytes(CHALLENGE.hash(rBytes, publicKey, message), 0, hash);
+                Scalar.reduceOnce(hash);
+                scalar.multiply(hash, priv, s);
+                Scalar.add(s, k, s);
+                byte[] signature = new byte[64];
+                System.arraycopy(rBytes, 0, signature, 0, 32);
+                Field.toBytes(s, signature, 32);
+                return signature;
+            } finally {
+                Arrays.fill(privBytes, (byte) 0);
+                Arrays.fill(priv, 0);
+                Arrays.fill(k, 0);
+            }
+        }
+
+        boolean schnorrVerify(byte[] publicKey, byte[] message, byte[] signature) {
+            if (publicKey == null || publicKey.length != 32 || message == null || signature == null || signature.length != 64) {
+                return false;
+            }
+            if (!liftX(publicKey, 0, qx, qy)) {
+                return false;
+            }
+            Field.readBytes(signature, 0, r);
+            Field.readBytes(signature, 32, s);
+            if (Field.compare(r, Field.P) >= 0 || Field.compare(s, Scalar.N) >= 0) {
+                return false;
+            }
+            //R = s*G - e*P must have an even y and x = r
+            Field.readBytes(CHALLENGE.hash(Arrays.copyOf(signature, 32), publicKey, message), 0, hash);
+            Scalar.reduceOnce(hash);
+            Scalar.negate(hash, u2);
+            multiplyG(s, sum);
+            multiply(qx, qy, u2, product);
+            add(sum, product.x, product.y, product.z, product.infinity, false, sum);
+            if (sum.infinity) {
+                return false;
+            }
+            toAffine(sum, qx, qy);
+            return (qy[0] & 1) == 0 && Field.equal(qx, r);
+        }
+
+        /**
+         * Checks s1*G + .. = R1 + e1*P1 + .. with random weights a_i (a_1 = 1), as
+         * (sum a_i*s_i)*G + sum a_i*(-R_i) + sum (a_i*e_i)*(-P_i) = infinity.
+         * The weights are 128 bit, derived from a hash of the whole batch, so a_i*(-R_i) is not split.
+         */
+        boolean schnorrVerifyBatch(List<byte[]> publicKeys, List<byte[]> messages, List<byte[]> signatures, int start, int end) {
+            final int count = end - start;
+            if (count <= 0) {
+                return true;
+            }
+            byte[] seed = batchSeed(publicKeys, messages, signatures, start, end);
+            final int[][] xs = new int[2 * count][LIMBS];
+            final int[][] ys = new int[2 * count][LIMBS];
+            final int[][] scalars = new int[2 * count][LIMBS];
+            final boolean[] split = new boolean[2 * count];
+            final byte[] index = new byte[4];
+            Field.setInt(0, u1);
+            for (int i = 0; i < count; i++) {
+                byte[] publicKey = publicKeys.get(start + i);
+                byte[] message = messages.get(start + i);
+                byte[] signature = signatures.get(start + i);
+                if (publicKey == null || publicKey.length != 32 || message == null || signature == null || signature.length != 64) {
+                    return false;
+                }
+                int[] weight = scalars[2 * i];
+                if (i == 0) {
+                    Field.setInt(1, weight);
+                } else {
+                    index[0] = (byte) (i >>> 24);
+                    index[1] = (byte) (i >>> 16);
+                    index[2] = (byte) (i >>> 8);
+                    index[3] = (byte) i;
+                    byte[] random = BATCH.hash(seed, index);
+                    Arrays.fill(random, 0, 16, (byte) 0);
+                    Field.readBytes(random, 0, weight);
+                }
+                //-R_i with weight a_i
+                if (!liftX(signature, 0, xs[2 * i], ys[2 * i])) {
+                    return false;
+                }
+                Field.negate(ys[2 * i], ys[2 * i]);
+                //-P_i with weight a_i*e_i
+                if (!liftX(publicKey, 0, xs[2 * i + 1], ys[2 * i + 1])) {
+                    return false;
+                }
+                Field.negate(ys[2 * i + 1], ys[2 * i + 1]);
+                split[2 * i + 1] = true;
+                Field.readBytes(signature, 32, s);
+                if (Field.compare(s, Scalar.N) >= 0) {
+                    return false;
+                }
+                Field.readBytes(CHALLENGE.hash(Arrays.copyOf(signature, 32), publicKey, message), 0, hash);
+                Scalar.reduceOnce(hash);
+                scalar.multiply(weight, hash, scalars[2 * i + 1]);
+                //u1 = sum a_i*s_i
+                scalar.multiply(weight, s, s);
+                Scalar.add(u1, s, u1);
+            }
+            multiplyG(u1, sum);
+            multiplyMulti(2 * count, xs, ys, scalars, split, product);
+            add(sum, product.x, product.y, product.z, product.infinity, false, sum);
+            return sum.infinity;
+        }
+
+        //hash of all the items of a batch, the weights are derived from it
+        private byte[] batchSeed(List<byte[]> publicKeys, List<byte[]> messages, List<byte[]> signatures, int start, int end) {
+            SHA256Digest digest = BATCH.digest();
+            byte[] length = new byte[4];
+            for (int i = start; i < end; i++) {
+                byte[][] parts = { publicKeys.get(i), signatures.get(i), messages.get(i) };
+                for (byte[] part : parts) {
+                    if (part == null) {
+                        continue;
+                    }
+                    length[0] = (byte) (part.length >>> 24);
+                    length[1] = (byte) (part.length >>> 16);
+                    length[2] = (byte) (part.length >>> 8);
+                    length[3] = (byte) part.length;
+                    digest.update(length, 0, 4);
+                    digest.update(part, 0, part.length);
+                }
+            }
+            byte[] seed = new byte[32];
+            digest.doFinal(seed, 0);
+            return seed;
+        }
+
+        /**
+         * Reads an x coordinate and computes the point with an even y (BIP340 lift_x)
+         *
+         * @return false if x is not below p or not on the curve
+         */
+        boolean liftX(byte[] buf, int offset, int[] x, int[] y) {
+            Field.readBytes(buf, offset, x);
+            if (Field.compare(x, Field.P) >= 0) {
+                return false;
+            }
+            field.square(x, a);
+            field.multiply(a, x, a);
+            Field.add(a, SEVEN, a);
+            if (!field.sqrt(a, y)) {
+                return false;
+            }
+            if ((y[0] & 1) != 0) {
+                Field.negate(y, y);
+            }
+            return true;
+        }
+
+        //x = X / Z^2, y = Y / Z^3 of a point that is not infinity; x and y must not be a or b
+        private void toAffine(Jacobian p, int[] x, int[] y) {
+            field.invert(p.z, a);
+            field.square(a, b);
+            field.multiply(p.x, b, x);
+            field.multiply(b, a, b);
+            field.multiply(p.y, b, y);
+        }
+
+        /**
+         * result = sum of k_i*Q_i for affine points (Strauss): the width-5 NAFs of all scalars are walked together,
+         * so the doublings are shared by all points. Scalars flagged in split are GLV split in two ~128 bit halves,
+         * the others must already be short. The odd multiples of all points are made affine with one inversion,
+         * so every addition is a mixed one.
+         */
+        void multiplyMulti(int count, int[][] xs, int[][] ys, int[][] scalars, boolean[] split, Jacobian result) {
+            final int[][] nafs = new int[2 * count][];
+            final boolean[] negative = new boolean[2 * count];
+            final Jacobian[] multiples = jacobians(count * ODD_MULTIPLES);
+            int length = 0;
+            for (int j = 0; j < count; j++) {
+                nafs[2 * j] = new int[NAF_LENGTH];
+                if (split[j]) {
+                    scalar.split(scalars[j], k1, k2);
+                    negative[2 * j] = Scalar.isHigh(k1);
+                    if (negative[2 * j]) {
+                        Scalar.negate(k1, k1);
+                    }
+                    negative[2 * j + 1] = Scalar.isHigh(k2);
+                    if (negative[2 * j + 1]) {
+                        Scalar.negate(k2, k2);
+                    }
+                    nafs[2 * j + 1] = new int[NAF_LENGTH];
+                    length = Math.max(length, windowNaf(k1, nafs[2 * j]));
+                    length = Math.max(length, windowNaf(k2, nafs[2 * j + 1]));
+                } else {
+                    length = Math.max(length, windowNaf(scalars[j], nafs[2 * j]));
+                }
+                Jacobian first = multiples[j * ODD_MULTIPLES];
+                Field.set(xs[j], first.x);
+                Field.set(ys[j], first.y);
+                Field.setInt(1, first.z);
+                first.infinity = false;
+                doublePoint(first, twice);
+                for (int i = 1; i < ODD_MULTIPLES; i++) {
+                    add(multiples[j * ODD_MULTIPLES + i - 1], twice.x, twice.y, twice.z, twice.infinity, false,
+                            multiples[j * ODD_MULTIPLES + i]);
+                }
+            }
+
+            //Montgomery's trick: tx holds the prefix products of Z until it is overwritten with x
+            final int total = count * ODD_MULTIPLES;
+            final int[][] tx = new int[total][LIMBS];
+            final int[][] ty = new int[total][LIMBS];
+            final int[][] phiX = new int[total][];
+            Field.set(multiples[0].z, tx[0]);
+            for (int i = 1; i < total; i++) {
+                field.multiply(tx[i - 1], multiples[i].z, tx[i]);
+            }
+            field.invert(tx[total - 1], c);
+            for (int i = total - 1; i >= 0; i--) {
+                //d = 1 / Z_i, c = 1 / (Z_0 .. Z_i-1)
+                if (i > 0) {
+                    field.multiply(c, tx[i - 1], d);
+                    field.multiply(c, multiples[i].z, c);
+                } else {
+                    Field.set(c, d);
+                }
+                field.square(d, e);
+                field.multiply(multiples[i].x, e, tx[i]);
+                field.multiply(e, d, e);
+                field.multiply(multiples[i].y, e, ty[i]);
+                if (split[i / ODD_MULTIPLES]) {
+                    phiX[i] = Field.create();
+                    field.multiply(tx[i], BETA, phiX[i]);
+                }
+            }
+
+            result.infinity = true;
+            for (int bit = length - 1; bit >= 0; bit--) {
+                doublePoint(result, result);
+                for (int j = 0; j < count; j++) {
+                    int digit = nafs[2 * j][bit];
+                    if (digit != 0) {
+                        int i = j * ODD_MULTIPLES + (Math.abs(digit) >>> 1);
+                        add(result, tx[i], ty[i], null, false, (digit < 0) != negative[2 * j], result);
+                    }
+                    if (split[j]) {
+                        digit = nafs[2 * j + 1][bit];
+                        if (digit != 0) {
+                            int i = j * ODD_MULTIPLES + (Math.abs(digit) >>> 1);
+                            add(result, phiX[i], ty[i], null, false, (digit < 0) != negative[2 * j + 1], result);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * result = k*G with the fixed-base table, at most 32 mixed additions
+         */
+        void multiplyG(int[] scalarLimbs, Jacobian result) {
+            final int[][] xs = Table.X;
+            final int[][] ys = Table.Y;
+            result.infinity = true;
+            for (int window = 0; window < 256 / TABLE_WIDTH; window++) {
+                int digit = (scalarLimbs[window >>> 2] >>> (TABLE_WIDTH * (window & 3))) & TABLE_ENTRIES;
+                if (digit != 0) {
+                    int index = window * TABLE_ENTRIES + digit - 1;
+                    add(result, xs[index], ys[index], null, false, false, result);
+                }
+            }
+        }
+
+        /**
+         * result = k*Q for an affine point Q, through the GLV split
+         */
+        void multiply(int[] x, int[] y, int[] scalarLimbs, Jacobian result) {
+            scalar.split(scalarLimbs, k1, k2);
+            boolean negative1 = Scalar.isHigh(k1);
+            if (negative1) {
+                Scalar.negate(k1, k1);
+            }
+            boolean negative2 = Scalar.isHigh(k2);
+            if (negative2) {
+                Scalar.negate(k2, k2);
+            }
+            int length1 = windowNaf(k1, naf1);
+            int length2 = windowNaf(k2, naf2);
+
+            //odd multiples Q, 3Q, .., 15Q and their images (beta*X, Y, Z) under phi
+            Field.set(x, table[0].x);
+            Field.set(y, table[0].y);
+            Field.setInt(1, table[0].z);
+            table[0].infinity = false;
+            doublePoint(table[0], twice);
+            for (int i = 1; i < ODD_MULTIPLES; i++) {
+                add(table[i - 1], twice.x, twice.y, twice.z, twice.infinity, false, table[i]);
+            }
+            for (int i = 0; i < ODD_MULTIPLES; i++) {
+                field.multiply(table[i].x, BETA, phiTable[i].x);
+                Field.set(table[i].y, phiTable[i].y);
+                Field.set(table[i].z, phiTable[i].z);
+                phiTable[i].infinity = table[i].infinity;
+            }
+
+            result.infinity = true;
+            for (int i = Math.max(length1, length2) - 1; i >= 0; i--) {
+                doublePoint(result, result);
+                if (naf1[i] != 0) {
+                    Jacobian p = table[Math.abs(naf1[i]) >>> 1];
+                    add(result, p.x, p.y, p.z, p.infinity, (naf1[i] < 0) != negative1, result);
+                }
+                if (naf2[i] != 0) {
+                    Jacobian p = phiTable[Math.abs(naf2[i]) >>> 1];
+                    add(result, p.x, p.y, p.z, p.infinity, (naf2[i] < 0) != negative2, result);
+                }
+            }
+        }
+
+        /**
+         * result = 2p, dbl-2009-l; result may be p
+         */
+        void doublePoint(Jacobian p, Jacobian result) {
+            if (p.infinity || Field.isZero(p.y)) {
+                result.infinity = true;
+                return;
+            }
+            field.square(p.x, a);
+            field.square(p.y, b);
+            field.square(b, c);
+            //d = 2*((X + B)^2 - A - C)
+            Field.add(p.x, b, d);
+            field.square(d, d);
+            Field.subtract(d, a, d);
+            Field.subtract(d, c, d);
+            Field.twice(d, d);
+            //e = 3A, f = e^2
+            Field.twice(a, e);
+            Field.add(e, a, e);
+            field.square(e, f);
+            //Z3 = 2*Y*Z
+            field.multiply(p.y, p.z, result.z);
+            Field.twice(result.z, result.z);
+            //X3 = f - 2d
+            Field.subtract(f, d, result.x);
+            Field.subtract(result.x, d, result.x);
+            //Y3 = e*(d - X3) - 8C
+            Field.subtract(d, result.x, t);
+            field.multiply(e, t, t);
+            Field.twice(c, c);
+            Field.twice(c, c);
+            Field.twice(c, c);
+            Field.subtract(t, c, result.y);
+            result.infinity = false;
+        }
+
+        /**
+         * result = p + q, add-2007-bl, or madd-2007-bl when q is affine (qz null); result may be p
+         *
+         * @param negate - adds -q instead
+         */
+        void add(Jacobian p, int[] x2, int[] y2, int[] z2, boolean qInfinity, boolean negate, Jacobian result) {
+            if (qInfinity) {
+                if (result != p) {
+                    result.set(p);
+                }
+                return;
+            }
+            if (negate) {
+                Field.negate(y2, negY);
+                y2 = negY;
+            }
+            if (p.infinity) {
+                Field.set(x2, result.x);
+                Field.set(y2, result.y);
+                if (z2 == null) {
+                    Field.setInt(1, result.z);
+                } else {
+                    Field.set(z2, result.z);
+                }
+                result.infinity = false;
+                return;
+            }
+            //a = Z1^2, b = U2 = X2*Z1^2, c = S2 = Y2*Z1^3
+            field.square(p.z, a);
+            field.multiply(x2, a, b);
+            field.multiply(a, p.z, c);
+            field.multiply(y2, c, c);
+            //d = U1 = X1*Z2^2, e = S1 = Y1*Z2^3
+            if (z2 == null) {
+                Field.set(p.x, d);
+                Field.set(p.y, e);
+            } else {
+                field.square(z2, f);
+                field.multiply(p.x, f, d);
+                field.multiply(f, z2, f);
+                field.multiply(p.y, f, e);
+            }
+            //h = H = U2 - U1, g = R = S2 - S1
+            Field.subtract(b, d, h);
+            Field.subtract(c, e, g);
+            if (Field.isZero(h)) {
+                if (Field.isZero(g)) {
+                    doublePoint(p, result);
+                } else {
+                    result.infinity = true;
+                }
+                return;
+            }
+            //Z3 = 2*Z1*Z2*H
+            if (z2 == null) {
+                field.multiply(p.z, h, result.z);
+            } else {
+                field.multiply(p.z, z2, f);
+                field.multiply(f, h, result.z);
+            }
+            Field.twice(result.z, result.z);
+            //a = I = (2H)^2, b = J = H*I, g = 2R, c = V = U1*I
+            Field.twice(h, a);
+            field.square(a, a);
+            field.multiply(h, a, b);
+            Field.twice(g, g);
+            field.multiply(d, a, c);
+            //X3 = 4R^2 - J - 2V
+            field.square(g, f);
+            Field.subtract(f, b, f);
+            Field.subtract(f, c, f);
+            Field.subtract(f, c, result.x);
+            //Y3 = 2R*(V - X3) - 2*S1*J
+            Field.subtract(c, result.x, t);
+            field.multiply(g, t, t);
+            field.multiply(e, b, f);
+            Field.twice(f, f);
+            Field.subtract(t, f, result.y);
+            result.infinity = false;
+        }
+
+        /**
+         * Width-5 NAF of a number, least significant digit first; digits are 0 or odd with |d| < 16
+         *
+         * @return number of digits up to the most significant non zero one
+         */
+        static int windowNaf(int[] number, int[] naf) {
+            Arrays.fill(naf, 0);
+            int length = 0;
+            int carry = 0;
+            int bit = 0;
+            while (bit < 256 || carry != 0) {
+                if (bits(number, bit, 1) == carry) {
+                    bit++;
+                    continue;
+                }
+                int word = bits(number, bit, WIDTH) + carry;
+                carry = (word >>> (WIDTH - 1)) & 1;
+                word -= carry << WIDTH;
+                naf[bit] = word;
+                length = bit + 1;
+                bit += WIDTH;
+            }
+            return length;
+        }
+
+        private static int bits(int[] number, int position, int count) {
+            if (position >= 256) {
+                return 0;
+            }
+            int limb = position >>> 5;
+            int shift = position & 31;
+            int value = number[limb] >>> shift;
+            if (shift + count > 32 && limb + 1 < LIMBS) {
+                value |= number[limb + 1] << (32 - shift);
+            }
+            return value & ((1 << count) - 1);
+        }
+
+        private static Jacobian[] jacobians(int count) {
+            Jacobian[] points = new Jacobian[count];
+            for (int i = 0; i < count; i++) {
+                points[i] = new Jacobian();
+            }
+            return points;
+        }
+    }
+
+    //the fixed-base table of FixedBaseMultiplier in limbs, converted on first use
+    private static class Table {
+
+        static final int[][] X;
+        static final int[][] Y;
+
+        static {
+            ECPoint[][] points = FixedBaseMultiplier.table();
+            X = new int[points.length * TABLE_ENTRIES][];
+            Y = new int[points.length * TABLE_ENTRIES][];
+            for (int window = 0; window < points.length; window++) {
+                for (int digit = 0; digit < TABLE_ENTRIES; digit++) {
+                    ECPoint point = points[window][digit];
+                    int index = window * TABLE_ENTRIES + digit;
+                    X[index] = Field.create();
+                    Y[index] = Field.create();
+                    Field.fromBigInteger(point.getAffineXCoord().toBigInteger(), X[index]);
+                    Field.fromBigInteger(point.getAffineYCoord().toBigInteger(), Y[index]);
+                }
+            }
+        }
+    }
+}
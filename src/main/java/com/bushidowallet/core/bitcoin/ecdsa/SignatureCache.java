@@ -0,0 +1,136 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.util.LRUCache;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Bounded cache of successfully verified signatures
+ *
+ * An entry is SHA256(salt || hash || public key || DER signature), 32 bytes whatever the sizes of its parts.
+ * The salt is random per instance, so entries cannot be predicted (or collided) from outside the JVM.
+ * Only valid signatures are stored: a hit means the exact signature was verified against the exact hash and key,
+ * a miss just means it has to be verified. Invalid signatures are never cached, so they cannot evict valid ones.
+ *
+ * SigHash.verify checks the default instance first, so re-validating the partial signatures of a transaction
+ * (e.g. each time a cosigner returns it) costs a hash lookup.
+ */
+public class SignatureCache {
+
+    public static final int DEFAULT_SIZE = 32768;
+
+    private static volatile SignatureCache defaultCache = new SignatureCache(DEFAULT_SIZE);
+
+    private final LRUCache<Entry, Boolean> cache;
+    //digest state after absorbing the salt, copied for every entry
+    private final SHA256Digest salted;
+
+    /**
+     * @param maxSize - maximum number of signatures kept
+     */
+    public SignatureCache(int maxSize) {
+        this.cache = new LRUCache<Entry, Boolean>(maxSize);
+        byte[] salt = new byte[32];
+        new SecureRandom().nextBytes(salt);
+        this.salted = new SHA256Digest();
+        salted.update(salt, 0, salt.length);
+    }
+
+    public static SignatureCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Replaces the cache used by SigHash.verify
+     *
+     * @param cache
+     */
+    public static void setDefault(SignatureCache cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("Signature cache must not be null");
+        }
+        defaultCache = cache;
+    }
+
+    /**
+     * @param hash - signed hash
+     * @param publicKey - encoded public key
+     * @param signature
+     * @return true if the signature was verified and added before
+     */
+    public boolean contains(byte[] hash, byte[] publicKey, ECDSASignature signature) {
+        return cache.get(entry(hash, publicKey, signature)) != null;
+    }
+
+    /**
+     * Records a signature that verified successfully
+     */
+    public void add(byte[] hash, byte[] publicKey, ECDSASignature signature) {
+        cache.put(entry(hash, publicKey, signature), Boolean.TRUE);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return cache.getMaxSize();
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public double getHitRate() {
+        return cache.getHitRate();
+    }
+
+    public void resetStatistics() {
+        cache.resetStatistics();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private Entry entry(byte[] hash, byte[] publicKey, ECDSASignature signature) {
+        //the salted state is never updated after construction, so threads copy it concurrently
+        SHA256Digest digest = new SHA256Digest(salted);
+        byte[] der = new byte[ECDSASignature.MAX_DER_LENGTH];
+        int derLength = signature.toDER(der, 0);
+        digest.update(hash, 0, hash.length);
+        digest.update(publicKey, 0, publicKey.length);
+        digest.update(der, 0, derLength);
+        byte[] bytes = new byte[32];
+        digest.doFinal(bytes, 0);
+        return new Entry(bytes);
+    }
+
+    /**
+     * Salted digest of a verified signature; it is uniformly distributed, so its leading bytes are the hash code
+     */
+    private static final class Entry {
+
+        private final byte[] digest;
+
+        Entry(byte[] digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Entry && Arrays.equals(digest, ((Entry) obj).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 | (digest[2] & 0xff) << 8 | (digest[3] & 0xff);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+
+import java.nio.charset.Charset;
+
+/**
+ * BIP340 tagged hash, SHA256(SHA256(tag) || SHA256(tag) || data)
+ *
+ * The 64 byte prefix is exactly one SHA256 block, so the digest state after it (the midstate) is computed once
+ * per tag and copied for every hash, saving a compression per hash and two for the tag itself.
+ * An instance is never updated after construction and may be shared by threads.
+ */
+public final class TaggedHash {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final String tag;
+    private final SHA256Digest midstate;
+
+    public TaggedHash(String tag) {
+        this.tag = tag;
+        byte[] tagBytes = tag.getBytes(UTF8);
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(tagBytes, 0, tagBytes.length);
+        byte[] tagHash = new byte[32];
+        digest.doFinal(tagHash, 0);
+        this.midstate = new SHA256Digest();
+        midstate.update(tagHash, 0, tagHash.length);
+        midstate.update(tagHash, 0, tagHash.length);
+    }
+
+    /**
+     * @return a digest that has absorbed the tag prefix, to be updated with the data
+     */
+    public SHA256Digest digest() {
+        return new SHA256Digest(midstate);
+    }
+
+    /**
+     * Hashes the concatenation of the parts
+     *
+     * @param parts
+     * @return 32 byte hash
+     */
+    public byte[] hash(byte[]... parts) {
+        SHA256Digest digest = digest();
+        for (byte[] part : parts) {
+            digest.update(part, 0, part.length);
+        }
+        byte[] out = new byte[32];
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
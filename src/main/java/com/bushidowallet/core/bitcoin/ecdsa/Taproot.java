@@ -0,0 +1,89 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.math.BigInteger;
+
+/**
+ * BIP341 Taproot output key tweaking
+ *
+ * The output key is Q = P + t*G, where P is the internal key lifted to an even y and
+ * t = hashTapTweak(P.x || merkle root); the merkle root of the script tree is omitted for key path only outputs
+ * (as BIP86 wallets do). The private key of Q is d + t, d negated first if d*G has an odd y.
+ */
+public final class Taproot {
+
+    private static final TaggedHash TAP_TWEAK = new TaggedHash("TapTweak");
+
+    private Taproot() {
+    }
+
+    /**
+     * @param internalKey - 32 byte x-only internal key
+     * @param merkleRoot - 32 bytes, null for key path only outputs
+     * @return tweak t
+     */
+    public static BigInteger tweakHash(byte[] internalKey, byte[] merkleRoot) {
+        byte[] hash = merkleRoot == null ? TAP_TWEAK.hash(internalKey) : TAP_TWEAK.hash(internalKey, merkleRoot);
+        return new BigInteger(1, hash);
+    }
+
+    /**
+     * Tweaks an internal public key
+     *
+     * @param internalKey - 32 byte x-only internal key
+     * @param merkleRoot - 32 bytes, null for key path only outputs
+     * @return output key Q, normalized, its x coordinate is the x-only output key
+     * @throws Exception - if the internal key is not on the curve or the tweak is out of range (negligible)
+     */
+    public static ECPoint tweakPublicKey(byte[] internalKey, byte[] merkleRoot) throws Exception {
+        if (internalKey == null || internalKey.length != Schnorr.PUBLIC_KEY_LENGTH) {
+            throw new Exception("Invalid internal key");
+        }
+        byte[] encoded = new byte[33];
+        encoded[0] = 0x02;
+        System.arraycopy(internalKey, 0, encoded, 1, Schnorr.PUBLIC_KEY_LENGTH);
+        ECPoint p;
+        try {
+            p = ECKey.curve.getCurve().decodePoint(encoded);
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Invalid internal key");
+        }
+        BigInteger t = tweakHash(internalKey, merkleRoot);
+        if (t.compareTo(ECKey.params.getN()) >= 0) {
+            throw new Exception("Invalid tweak");
+        }
+        ECPoint q = p.add(FixedBaseMultiplier.multiplyG(t)).normalize();
+        if (q.isInfinity()) {
+            throw new Exception("Invalid tweak");
+        }
+        return q;
+    }
+
+    /**
+     * Tweaks an internal private key
+     *
+     * @param key - internal private key d
+     * @param merkleRoot - 32 bytes, null for key path only outputs
+     * @return private key of the output key
+     * @throws Exception - if the tweak is out of range or the tweaked key is zero (negligible)
+     */
+    public static BigInteger tweakPrivateKey(BigInteger key, byte[] merkleRoot) throws Exception {
+        final BigInteger n = ECKey.params.getN();
+        ECPoint p = FixedBaseMultiplier.multiplyG(key).normalize();
+        BigInteger d = p.getAffineYCoord().toBigInteger().testBit(0) ? n.subtract(key) : key;
+        byte[] internalKey = new byte[Schnorr.PUBLIC_KEY_LENGTH];
+        byte[] x = p.getAffineXCoord().getEncoded();
+        System.arraycopy(x, 0, internalKey, 0, Schnorr.PUBLIC_KEY_LENGTH);
+        BigInteger t = tweakHash(internalKey, merkleRoot);
+        if (t.compareTo(n) >= 0) {
+            throw new Exception("Invalid tweak");
+        }
+        BigInteger tweaked = d.add(t).mod(n);
+        if (tweaked.signum() == 0) {
+            throw new Exception("Invalid tweak");
+        }
+        return tweaked;
+    }
+}
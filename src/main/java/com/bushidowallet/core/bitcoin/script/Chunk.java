@@ -9,6 +9,9 @@ public class Chunk {
 
     public byte[] bytes;
 
+    //a push running past the end of the script, bytes holds the rest of the script, length prefix included
+    public boolean truncated;
+
     public Chunk(Opcode opcode, byte[] bytes) {
         this.opcode = opcode;
         this.bytes = bytes;
@@ -18,6 +18,9 @@ import java.util.List;
  */
 public class Script {
 
+    //toString token marking a truncated push, followed by the rest of the script
+    private static final String TRUNCATED = "[truncated]";
+
     private List<Chunk> chunks;
 
     public Script() {
@@ -145,6 +148,21 @@ public class Script {
         return script;
     }
 
+    /**
+     * Builds a native segwit output script, OP_n followed by the witness program
+     *
+     * @param version - witness version, 1 for Taproot
+     * @param program - e.g. the x-only output key of a Taproot output
+     * @return
+     * @throws Exception
+     */
+    public static Script buildWitnessOut(int version, byte[] program) throws Exception {
+        final Script script = new Script();
+        script.add(new Chunk(Opcode.smallInt(version)));
+        script.addChunk(program);
+        return script;
+    }
+
     /**
      * Builds a signature script (a script for an input) that signs a public key hash output script
      *
@@ -236,16 +254,27 @@ public class Script {
         while (i < tokens.length) {
             String token = tokens[i];
             Opcode opcode = new Opcode(token);
-            if ( opcode.isUndefined() ) {
+            if (opcode.isUndefined() && token.startsWith("0x")) {
+                //an opcode without a name, as printed by toString
+                script.add(new Chunk(new Opcode(Integer.parseInt(token.substring(2), 16))));
+                i = i + 1;
+            } else if ( opcode.isUndefined() ) {
                 int opcodeNum = Integer.parseInt(token);
-                if (opcodeNum > 0 && opcodeNum < Opcode.OP_PUSHDATA1) {
+                if (opcodeNum > 0 && opcodeNum < Opcode.OP_PUSHDATA1 && tokens[i + 1].equals(TRUNCATED)) {
+                    script.add(truncatedChunk(new Opcode(opcodeNum), tokens[i + 2]));
+                    i = i + 3;
+                } else if (opcodeNum > 0 && opcodeNum < Opcode.OP_PUSHDATA1) {
                     script.add(new Chunk(new Opcode(opcodeNum), ByteUtil.fromHex(tokens[i + 1].substring(2))));
                     i = i + 2;
                 } else {
                     throw new Exception("Invalid script: " + str);
                 }
+            } else if ((opcode.value == Opcode.OP_PUSHDATA1 || opcode.value == Opcode.OP_PUSHDATA2 || opcode.value == Opcode.OP_PUSHDATA4)
+                    && tokens[i + 1].equals(TRUNCATED)) {
+                script.add(truncatedChunk(opcode, tokens[i + 2]));
+                i = i + 3;
             } else if (opcode.value == Opcode.OP_PUSHDATA1 || opcode.value == Opcode.OP_PUSHDATA2 || opcode.value == Opcode.OP_PUSHDATA4) {
-                if (tokens[i + 1].substring(0, 2).equals("0x") == false) {
+                if (tokens[i + 2].substring(0, 2).equals("0x") == false) {
                     throw new Exception("Pushdata data must start with 0x");
                 }
                 script.add(new Chunk(opcode, ByteUtil.fromHex(tokens[i + 2].substring(2))));
@@ -258,26 +287,67 @@ public class Script {
         return script;
     }
 
+    private static Chunk truncatedChunk(Opcode opcode, String hexToken) throws Exception {
+        if (hexToken.startsWith("0x") == false) {
+            throw new Exception("Pushdata data must start with 0x");
+        }
+        Chunk chunk = new Chunk(opcode, ByteUtil.fromHex(hexToken.substring(2)));
+        chunk.truncated = true;
+        return chunk;
+    }
+
+    /**
+     * Parses a script, failing on a push running past its end
+     *
+     * @param bytes
+     * @return
+     * @throws Exception
+     */
     public static Script fromBytes(byte[] bytes) throws Exception {
+        return fromBytes(bytes, false);
+    }
+
+    /**
+     * Parses an output script, which may end with a push running past its end: such a script is valid until
+     * spent, so the push is kept byte for byte as a truncated chunk (see Chunk.truncated)
+     *
+     * @param bytes
+     * @return
+     * @throws Exception
+     */
+    public static Script fromOutputBytes(byte[] bytes) throws Exception {
+        return fromBytes(bytes, true);
+    }
+
+    private static Script fromBytes(byte[] bytes, boolean allowTruncated) throws Exception {
         ByteReader reader = new ByteReader(bytes);
         Script script = new Script();
         while (reader.available() > 0) {
+            int start = reader.getPosition();
             int opcodenum = reader.getUInt8();
             int len;
             if (opcodenum > 0 && opcodenum < Opcode.OP_PUSHDATA1) {
                 len = opcodenum;
-                script.add(new Chunk(new Opcode(opcodenum), reader.getBytes(len)));
             } else if (opcodenum == Opcode.OP_PUSHDATA1) {
-                len = reader.getUInt8();
-                script.add(new Chunk(new Opcode(opcodenum), reader.getBytes(len)));
+                len = reader.available() >= 1 ? reader.getUInt8() : -1;
             } else if (opcodenum == Opcode.OP_PUSHDATA2) {
-                len = reader.getUInt16LE();
-                script.add(new Chunk(new Opcode(opcodenum), reader.getBytes(len)));
+                len = reader.available() >= 2 ? reader.getUInt16LE() : -1;
             } else if (opcodenum == Opcode.OP_PUSHDATA4) {
-                len = reader.getUInt32LE();
-                script.add(new Chunk(new Opcode(opcodenum), reader.getBytes(len)));
+                len = reader.available() >= 4 ? reader.getUInt32LE() : -1;
             } else {
                 script.add(new Chunk(new Opcode(opcodenum)));
+                continue;
+            }
+            if (len < 0 || len > reader.available()) {
+                if (allowTruncated == false) {
+                    throw new Exception("Invalid script: push runs past the end");
+                }
+                reader.setPosition(start + 1);
+                Chunk chunk = new Chunk(new Opcode(opcodenum), reader.getBytes(reader.available()));
+                chunk.truncated = true;
+                script.add(chunk);
+            } else {
+                script.add(new Chunk(new Opcode(opcodenum), reader.getBytes(len)));
             }
         }
         return script;
@@ -300,7 +370,9 @@ public class Script {
         ByteWriter buf = new ByteWriter(0);
         for (Chunk chunk : chunks) {
             buf.putUInt8(chunk.opcode.value);
-            if (chunk.bytes != null) {
+            if (chunk.truncated) {
+                buf.putBytes(chunk.bytes);
+            } else if (chunk.bytes != null) {
                 if (chunk.opcode.value < Opcode.OP_PUSHDATA1) {
                     buf.putBytes(chunk.bytes);
                 } else if (chunk.opcode.value == Opcode.OP_PUSHDATA1) {
@@ -333,6 +405,10 @@ public class Script {
                     }
                     str = str + " " + "0x" + numstr;
                 }
+            } else if (chunk.truncated) {
+                //rather than a length, which would read back as a complete push
+                str = str + " " + (opcodenum < Opcode.OP_PUSHDATA1 ? Integer.toString(opcodenum) : chunk.opcode.toString());
+                str = str + " " + TRUNCATED + " 0x" + ByteUtil.toHex(chunk.bytes);
             } else {
                 if (opcodenum == Opcode.OP_PUSHDATA1 ||
                     opcodenum == Opcode.OP_PUSHDATA2 ||
@@ -359,7 +435,8 @@ public class Script {
             if (chunks.get(i).bytes != null && script.chunks.get(i).bytes == null) {
                 return false;
             }
-            if (chunks.get(i).opcode.value != script.chunks.get(i).opcode.value) {
+            if (chunks.get(i).opcode.value != script.chunks.get(i).opcode.value
+                    || chunks.get(i).truncated != script.chunks.get(i).truncated) {
                 return false;
             }
             if (Arrays.areEqual(chunks.get(i).bytes, script.chunks.get(i).bytes) == false) {
@@ -0,0 +1,160 @@
+package com.bushidowallet.core.bitcoin.tx;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.ecdsa.ECDSA;
+import com.bushidowallet.core.bitcoin.ecdsa.ECDSASignature;
+import com.bushidowallet.core.bitcoin.script.Script;
+import com.bushidowallet.core.bitcoin.tx.input.Input;
+import com.bushidowallet.core.bitcoin.tx.output.Output;
+import com.bushidowallet.core.bitcoin.util.HashWriter;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+
+/**
+ * Segwit v0 signature hash (BIP143) of the inputs of a transaction
+ *
+ * The preimage of an input commits to the other inputs and to the outputs through three hashes, of all outpoints
+ * (hashPrevouts), all sequences (hashSequence) and all outputs (hashOutputs). They are computed once, on first use,
+ * and shared by all inputs and sighash types, so hashing every input of a transaction is linear in its size,
+ * where the legacy sighash (see SigHash) is quadratic. The input amount is signed as well.
+ *
+ * An instance reflects the inputs and outputs of the transaction when its hashes are first used; create a new one
+ * after changing them. Input scripts and witnesses are not part of the hashes, so adding signatures is fine.
+ * Instances may be shared by threads signing different inputs.
+ */
+public class SegwitSigHash {
+
+    private static final int SIGHASH_OUTPUT_MASK = 0x1f;
+    private static final byte[] ZERO = new byte[32];
+
+    private final Transaction tx;
+    private volatile byte[] hashPrevouts;
+    private volatile byte[] hashSequence;
+    private volatile byte[] hashOutputs;
+
+    public SegwitSigHash(Transaction tx) {
+        this.tx = tx;
+    }
+
+    /**
+     * Signature hash of an input, spending the amount of its previous output
+     *
+     * @param index - input index
+     * @param scriptCode - for P2WPKH the P2PKH script of the key hash, for P2WSH the witness script
+     * @param sigType
+     * @return hash, byte order as SigHash.sighash (signed with the "little" endian setting)
+     * @throws Exception
+     */
+    public byte[] sighash(int index, Script scriptCode, int sigType) throws Exception {
+        Output output = tx.inputs.get(index).output;
+        if (output == null) {
+            throw new Exception("Inputs not complete");
+        }
+        return sighash(index, scriptCode, output.satoshis, sigType);
+    }
+
+    /**
+     * Signature hash of an input
+     *
+     * @param index - input index
+     * @param scriptCode - for P2WPKH the P2PKH script of the key hash, for P2WSH the witness script
+     * @param amount - value of the spent output in satoshis
+     * @param sigType
+     * @return hash, byte order as SigHash.sighash (signed with the "little" endian setting)
+     * @throws Exception
+     */
+    public byte[] sighash(int index, Script scriptCode, long amount, int sigType) throws Exception {
+        if (index < 0 || index >= tx.inputs.size()) {
+            throw new Exception("Missing input to sign");
+        }
+        final int outputType = sigType & SIGHASH_OUTPUT_MASK;
+        final boolean anyoneCanPay = (sigType & TransactionSignature.SIGHASH_ANYONECANPAY) != 0;
+        final Input input = tx.inputs.get(index);
+
+        HashWriter writer = new HashWriter();
+        writer.putIntLE(tx.version);
+        writer.putBytes(anyoneCanPay ? ZERO : getHashPrevouts());
+        writer.putBytes(anyoneCanPay || outputType == TransactionSignature.SIGHASH_SINGLE
+                || outputType == TransactionSignature.SIGHASH_NONE ? ZERO : getHashSequence());
+        input.writeOutpoint(writer);
+        writer.putVarBytes(scriptCode.getBytes());
+        writer.putLongLE(amount);
+        writer.putUInt32(input.sequence);
+        if (outputType != TransactionSignature.SIGHASH_SINGLE && outputType != TransactionSignature.SIGHASH_NONE) {
+            writer.putBytes(getHashOutputs());
+        } else if (outputType == TransactionSignature.SIGHASH_SINGLE && index < tx.outputs.size()) {
+            HashWriter single = new HashWriter();
+            tx.outputs.get(index).write(single);
+            writer.putBytes(single.doubleHash());
+        } else {
+            writer.putBytes(ZERO);
+        }
+        writer.putIntLE(tx.nLockTime);
+        writer.putIntLE(sigType);
+        return ByteUtil.reverseBytes(writer.doubleHash());
+    }
+
+    public ECDSASignature sign(ECKey key, int index, Script scriptCode, long amount, int sigType) throws Exception {
+        return new ECDSA(sighash(index, scriptCode, amount, sigType), key, "little").sign();
+    }
+
+    /**
+     * Verifies a signature of an input, through the default SignatureCache as SigHash.verify
+     */
+    public boolean verify(ECDSASignature signature,
+                          int sigType,
+                          byte[] publicKey,
+                          boolean publicKeyCompressed,
+                          int index,
+                          Script scriptCode,
+                          long amount) throws Exception {
+        return SigHash.verify(sighash(index, scriptCode, amount, sigType), signature, publicKey, publicKeyCompressed);
+    }
+
+    /**
+     * @return double SHA256 of all outpoints
+     */
+    public byte[] getHashPrevouts() {
+        byte[] hash = hashPrevouts;
+        if (hash == null) {
+            HashWriter writer = new HashWriter();
+            for (Input input : tx.inputs) {
+                input.writeOutpoint(writer);
+            }
+            hash = writer.doubleHash();
+            hashPrevouts = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * @return double SHA256 of all input sequences
+     */
+    public byte[] getHashSequence() {
+        byte[] hash = hashSequence;
+        if (hash == null) {
+            HashWriter writer = new HashWriter();
+            for (Input input : tx.inputs) {
+                writer.putUInt32(input.sequence);
+            }
+            hash = writer.doubleHash();
+            hashSequence = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * @return double SHA256 of all outputs
+     */
+    public byte[] getHashOutputs() throws Exception {
+        byte[] hash = hashOutputs;
+        if (hash == null) {
+            HashWriter writer = new HashWriter();
+            for (Output output : tx.outputs) {
+                output.write(writer);
+            }
+            hash = writer.doubleHash();
+            hashOutputs = hash;
+        }
+        return hash;
+    }
+}
@@ -1,17 +1,20 @@
 package com.bushidowallet.core.bitcoin.tx;
 
 import com.bushidowallet.core.bitcoin.bip32.ECKey;
-import com.bushidowallet.core.bitcoin.bip32.Hash;
 import com.bushidowallet.core.bitcoin.ecdsa.ECDSA;
 import com.bushidowallet.core.bitcoin.ecdsa.ECDSASignature;
+import com.bushidowallet.core.bitcoin.ecdsa.SignatureCache;
+import com.bushidowallet.core.bitcoin.script.Chunk;
+import com.bushidowallet.core.bitcoin.script.Opcode;
 import com.bushidowallet.core.bitcoin.script.Script;
 import com.bushidowallet.core.bitcoin.tx.input.Input;
 import com.bushidowallet.core.bitcoin.tx.output.Output;
 import com.bushidowallet.core.bitcoin.util.ByteWriter;
+import com.bushidowallet.core.bitcoin.util.HashWriter;
 import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.crypto.digests.SHA256Digest;
 
-import java.math.BigInteger;
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by Jesion on 2015-04-08.
@@ -19,60 +22,190 @@ import java.util.ArrayList;
 public class SigHash {
 
     private static String SIGHASH_SINGLE_BUG = "0000000000000000000000000000000000000000000000000000000000000001";
-    private static String BITS_64_ON = "ffffffffffffffff";
+    //low bits of the sighash type selecting the outputs signed, ANYONECANPAY is a separate flag
+    private static final int SIGHASH_OUTPUT_MASK = 0x1f;
+    private static final byte[] EMPTY_SCRIPT = new byte[0];
 
     /**
-     * Generates a Tx signature hash. Warning, this is only tested for sig type SIGHASH_ALL
-     * When we move over to SIGHASH_SINGLE and SIGHASH_NONE, put in more unit tests around
+     * Generates a Tx signature hash (the legacy SignatureHash of Bitcoin Core)
+     *
+     * The modified transaction is streamed into the digest: all input scripts but the signed one are empty,
+     * NONE signs no output and SINGLE only the output of the same index (the ones before it blanked),
+     * both leave the sequence of the other inputs out (zero), ANYONECANPAY keeps only the signed input.
+     * The type is read as Bitcoin Core does, the low 5 bits select the outputs and 0x80 is ANYONECANPAY.
      *
      * @param tx
      * @param sigType
      * @param index
-     * @param script
+     * @param script - subscript of the signed input, the output script it spends
      * @return
      * @throws Exception
      */
-    private static byte[] sighash(Transaction tx, int sigType, int index, Script script) throws Exception {
-        Transaction txCopy = new Transaction(tx.uncheckedSerialize());
-        Script scriptCopy = Script.fromBytes(script.getBytes());
-        scriptCopy.removeCodeSeparators();
-        for (int i = 0; i < txCopy.inputs.size(); i++) {
-            Input input = txCopy.inputs.get(i);
-            input.script = new Script();
+    static byte[] sighash(Transaction tx, int sigType, int index, Script script) throws Exception {
+        final int outputType = sigType & SIGHASH_OUTPUT_MASK;
+        final boolean anyoneCanPay = (sigType & TransactionSignature.SIGHASH_ANYONECANPAY) != 0;
+        if (index < 0 || index >= tx.inputs.size()) {
+            throw new Exception("Missing input to sign");
+        }
+        if (outputType == TransactionSignature.SIGHASH_SINGLE && index >= tx.outputs.size()) {
+            return ByteUtil.fromHex(SIGHASH_SINGLE_BUG);
         }
-        txCopy.inputs.get(index).script = scriptCopy;
-        if (sigType == TransactionSignature.SIGHASH_NONE || sigType == TransactionSignature.SIGHASH_SINGLE) {
-            for (int j = 0; j < txCopy.inputs.size(); j++) {
-                if (j != index) {
-                    txCopy.inputs.get(j).sequence = 0;
+        final boolean otherSequences = outputType != TransactionSignature.SIGHASH_NONE
+                && outputType != TransactionSignature.SIGHASH_SINGLE;
+        final byte[] scriptCode = scriptCode(script);
+
+        HashWriter writer = new HashWriter();
+        writer.putIntLE(tx.version);
+        if (anyoneCanPay) {
+            writer.putCompactInt(1);
+            Input input = tx.inputs.get(index);
+            writeInput(writer, input, scriptCode, input.sequence);
+        } else {
+            writer.putCompactInt(tx.inputs.size());
+            for (int i = 0; i < tx.inputs.size(); i++) {
+                Input input = tx.inputs.get(i);
+                if (i == index) {
+                    writeInput(writer, input, scriptCode, input.sequence);
+                } else {
+                    writeInput(writer, input, EMPTY_SCRIPT, otherSequences ? input.sequence : 0);
                 }
             }
         }
-        if (sigType == TransactionSignature.SIGHASH_NONE) {
-            txCopy.outputs = new ArrayList<Output>();
-        } else if(sigType == TransactionSignature.SIGHASH_SINGLE) {
-            if (index > txCopy.outputs.size() - 1) {
-                return ByteUtil.fromHex(SIGHASH_SINGLE_BUG);
+        if (outputType == TransactionSignature.SIGHASH_NONE) {
+            writer.putCompactInt(0);
+        } else if (outputType == TransactionSignature.SIGHASH_SINGLE) {
+            writer.putCompactInt(index + 1);
+            for (int k = 0; k < index; k++) {
+                //value -1 and an empty script
+                writer.putLongLE(-1L);
+                writer.putCompactInt(0);
             }
-            if (txCopy.outputs.size() <= index) {
-                throw new Exception("Missing output to sign");
+            tx.outputs.get(index).write(writer);
+        } else {
+            writer.putCompactInt(tx.outputs.size());
+            for (int k = 0; k < tx.outputs.size(); k++) {
+                tx.outputs.get(k).write(writer);
             }
-            for (int k = 0; k < index; k++) {
-                txCopy.outputs.add(k, new Output(new Script(), new BigInteger(ByteUtil.fromHex(BITS_64_ON)).longValue()));
+        }
+        writer.putIntLE(tx.nLockTime);
+        writer.putIntLE(sigType);
+        return ByteUtil.reverseBytes(writer.doubleHash());
+    }
+
+    /**
+     * Computes the signature hashes of all inputs in one pass
+     *
+     * The preimage of input i starts with the version and inputs 0 .. i-1 with empty scripts, which is the preimage
+     * of input i-1 up to its own input: one digest runs over that prefix, and its state (midstate) is copied at each
+     * input boundary. The inputs with empty scripts and the outputs are serialized once and hashed from that buffer.
+     * What follows the signed input (the later inputs and the outputs) still has to be hashed for every input,
+     * so the legacy sighash of a whole transaction remains quadratic in its number of inputs; this halves the
+     * hashing and removes all per input serialization. ANYONECANPAY preimages share nothing and are computed one by one.
+     *
+     * @param tx
+     * @param sigType - one type for all inputs
+     * @param scripts - subscript of each input, null for inputs not to hash
+     * @return signature hash of each input, as sighash, null where the script is null
+     * @throws Exception
+     */
+    public static byte[][] computeAllSigHashes(Transaction tx, int sigType, List<Script> scripts) throws Exception {
+        final int count = tx.inputs.size();
+        if (scripts.size() != count) {
+            throw new Exception("Expected one script per input");
+        }
+        final byte[][] hashes = new byte[count][];
+        final int outputType = sigType & SIGHASH_OUTPUT_MASK;
+        if ((sigType & TransactionSignature.SIGHASH_ANYONECANPAY) != 0) {
+            for (int i = 0; i < count; i++) {
+                if (scripts.get(i) != null) {
+                    hashes[i] = sighash(tx, sigType, i, scripts.get(i));
+                }
+            }
+            return hashes;
+        }
+        final boolean otherSequences = outputType != TransactionSignature.SIGHASH_NONE
+                && outputType != TransactionSignature.SIGHASH_SINGLE;
+
+        //inputs with empty scripts, input i at offsets[i] .. offsets[i + 1]
+        ByteWriter blank = new ByteWriter(count * 41);
+        final int[] offsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            Input input = tx.inputs.get(i);
+            blank.putBytes(ByteUtil.reverseBytes(input.prevTxId));
+            blank.putIntLE(input.outputIndex);
+            blank.putCompactInt(0);
+            blank.putUInt32(otherSequences ? input.sequence : 0);
+            offsets[i + 1] = blank.length();
+        }
+        final byte[] blankInputs = blank.toBytes();
+        //outputs, lock time and type, the same for every input unless SINGLE
+        byte[] tail = null;
+        if (outputType != TransactionSignature.SIGHASH_SINGLE) {
+            ByteWriter writer = new ByteWriter(0);
+            if (outputType == TransactionSignature.SIGHASH_NONE) {
+                writer.putCompactInt(0);
+            } else {
+                writer.putCompactInt(tx.outputs.size());
+                for (Output output : tx.outputs) {
+                    output.write(writer);
+                }
             }
+            writer.putIntLE(tx.nLockTime);
+            writer.putIntLE(sigType);
+            tail = writer.toBytes();
         }
-        if (sigType == TransactionSignature.SIGHASH_ANYONECANPAY) {
-            Input inp = txCopy.inputs.get(index);
-            txCopy.inputs = new ArrayList<Input>();
-            txCopy.inputs.add(inp);
+
+        HashWriter prefix = new HashWriter();
+        prefix.putIntLE(tx.version);
+        prefix.putCompactInt(count);
+        for (int i = 0; i < count; i++) {
+            Script script = scripts.get(i);
+            if (script != null) {
+                if (tail == null && i >= tx.outputs.size()) {
+                    hashes[i] = ByteUtil.fromHex(SIGHASH_SINGLE_BUG);
+                } else {
+                    HashWriter writer = new HashWriter(new SHA256Digest(prefix.getDigest()));
+                    Input input = tx.inputs.get(i);
+                    writeInput(writer, input, scriptCode(script), input.sequence);
+                    writer.putBytes(blankInputs, offsets[i + 1], blankInputs.length - offsets[i + 1]);
+                    if (tail != null) {
+                        writer.putBytes(tail);
+                    } else {
+                        writer.putCompactInt(i + 1);
+                        for (int k = 0; k < i; k++) {
+                            writer.putLongLE(-1L);
+                            writer.putCompactInt(0);
+                        }
+                        tx.outputs.get(i).write(writer);
+                        writer.putIntLE(tx.nLockTime);
+                        writer.putIntLE(sigType);
+                    }
+                    hashes[i] = ByteUtil.reverseBytes(writer.doubleHash());
+                }
+            }
+            prefix.putBytes(blankInputs, offsets[i], offsets[i + 1] - offsets[i]);
+        }
+        return hashes;
+    }
+
+    //the subscript without OP_CODESEPARATORs, copied only when it has any
+    private static byte[] scriptCode(Script script) throws Exception {
+        for (Chunk chunk : script.getChunks()) {
+            if (chunk.opcode.value == Opcode.OP_CODESEPARATOR) {
+                //parsed as leniently as an output script, so a truncated push it may end with is copied as is
+                Script scriptCopy = Script.fromOutputBytes(script.getBytes());
+                scriptCopy.removeCodeSeparators();
+                return scriptCopy.getBytes();
+            }
         }
-        ByteWriter writer = new ByteWriter(0);
-        writer.putBytes( txCopy.uncheckedSerialize() );
-        writer.putUInt32LE(sigType);
-        byte[] b = writer.toBytes();
-        byte[] r = Hash.hash(b);
-        byte[] result = ByteUtil.reverseBytes(r);
-        return result;
+        return script.getBytes();
+    }
+
+    //as Input.write, with the script and sequence replaced
+    private static void writeInput(HashWriter writer, Input input, byte[] script, long sequence) {
+        input.writeOutpoint(writer);
+        writer.putVarBytes(script);
+        writer.putUInt32(sequence);
     }
 
     public static ECDSASignature sign(Transaction tx, ECKey key, int sigType, int index, Script script) throws Exception {
@@ -87,8 +220,26 @@ public class SigHash {
                                  boolean publicKeyCompressed,
                                  int inputIndex,
                                  Script subscript) throws Exception {
-        final byte[] hash = sighash(tx, sigType, inputIndex, subscript);
+        return verify(sighash(tx, sigType, inputIndex, subscript), signature, publicKey, publicKeyCompressed);
+    }
+
+    /**
+     * Verifies a signature of a sighash, looking it up in the default SignatureCache first
+     * and adding it there if valid
+     */
+    static boolean verify(byte[] hash,
+                          ECDSASignature signature,
+                          byte[] publicKey,
+                          boolean publicKeyCompressed) throws Exception {
+        final SignatureCache cache = SignatureCache.getDefault();
+        if (cache.contains(hash, publicKey, signature)) {
+            return true;
+        }
         final ECKey key = new ECKey(publicKey, publicKeyCompressed, false);
-        return new ECDSA(hash, key, "little").verify(signature);
+        final boolean valid = new ECDSA(hash, key, "little").verify(signature);
+        if (valid) {
+            cache.add(hash, publicKey, signature);
+        }
+        return valid;
     }
 }
@@ -0,0 +1,241 @@
+package com.bushidowallet.core.bitcoin.tx;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.ecdsa.Schnorr;
+import com.bushidowallet.core.bitcoin.ecdsa.TaggedHash;
+import com.bushidowallet.core.bitcoin.tx.input.Input;
+import com.bushidowallet.core.bitcoin.tx.output.Output;
+import com.bushidowallet.core.bitcoin.util.HashWriter;
+
+import java.util.Arrays;
+
+/**
+ * Taproot key path signature hash (BIP341) of the inputs of a transaction
+ *
+ * The message of an input commits to all spent outputs through five single SHA256 hashes, of the outpoints
+ * (sha_prevouts), spent amounts (sha_amounts), spent output scripts (sha_scriptpubkeys), sequences
+ * (sha_sequences) and outputs (sha_outputs). As in SegwitSigHash they are computed once, on first use,
+ * and shared by all inputs and sighash types, so hashing every input of a transaction is linear in its size.
+ *
+ * The previous output of every input must be known. The hash is a hashTapSighash tagged hash, signed as is
+ * by BIP340 (no byte reversal as for ECDSA sighashes). Script path spends and annexes are not supported.
+ * An instance reflects the transaction when its hashes are first used, and may be shared by threads.
+ */
+public class TaprootSigHash {
+
+    //hash type of 64 byte signatures, signs as SIGHASH_ALL
+    public static final int SIGHASH_DEFAULT = 0x00;
+
+    private static final TaggedHash TAP_SIGHASH = new TaggedHash("TapSighash");
+    private static final int SIGHASH_OUTPUT_MASK = 0x03;
+    //sighash epoch, prefixed to every message
+    private static final byte EPOCH = 0x00;
+    //key path, no annex
+    private static final byte SPEND_TYPE = 0x00;
+
+    private final Transaction tx;
+    private volatile byte[] shaPrevouts;
+    private volatile byte[] shaAmounts;
+    private volatile byte[] shaScriptPubKeys;
+    private volatile byte[] shaSequences;
+    private volatile byte[] shaOutputs;
+
+    /**
+     * @param tx
+     * @throws Exception - if the previous output of an input is not known
+     */
+    public TaprootSigHash(Transaction tx) throws Exception {
+        if (!tx.hasAllUtxoInfo()) {
+            throw new Exception("Inputs not complete");
+        }
+        this.tx = tx;
+    }
+
+    /**
+     * Signature hash of a key path spend
+     *
+     * @param index - input index
+     * @param hashType - SIGHASH_DEFAULT, or a TransactionSignature type with or without ANYONECANPAY
+     * @return 32 byte message to sign
+     * @throws Exception - if the hash type is invalid or SIGHASH_SINGLE has no matching output
+     */
+    public byte[] sighash(int index, int hashType) throws Exception {
+        if (index < 0 || index >= tx.inputs.size()) {
+            throw new Exception("Missing input to sign");
+        }
+        if (!isValidHashType(hashType)) {
+            throw new Exception("Invalid sighash type");
+        }
+        final int outputType = hashType & SIGHASH_OUTPUT_MASK;
+        final boolean anyoneCanPay = (hashType & TransactionSignature.SIGHASH_ANYONECANPAY) != 0;
+        if (outputType == TransactionSignature.SIGHASH_SINGLE && index >= tx.outputs.size()) {
+            throw new Exception("No output matching SIGHASH_SINGLE input");
+        }
+        final Input input = tx.inputs.get(index);
+
+        HashWriter writer = new HashWriter(TAP_SIGHASH.digest());
+        writer.put(EPOCH);
+        writer.put((byte) hashType);
+        writer.putIntLE(tx.version);
+        writer.putIntLE(tx.nLockTime);
+        if (!anyoneCanPay) {
+            writer.putBytes(getShaPrevouts());
+            writer.putBytes(getShaAmounts());
+            writer.putBytes(getShaScriptPubKeys());
+            writer.putBytes(getShaSequences());
+        }
+        if (outputType != TransactionSignature.SIGHASH_NONE && outputType != TransactionSignature.SIGHASH_SINGLE) {
+            writer.putBytes(getShaOutputs());
+        }
+        writer.put(SPEND_TYPE);
+        if (anyoneCanPay) {
+            input.writeOutpoint(writer);
+            writer.putLongLE(input.output.satoshis);
+            writer.putVarBytes(input.output.script.getBytes());
+            writer.putUInt32(input.sequence);
+        } else {
+            writer.putIntLE(index);
+        }
+        if (outputType == TransactionSignature.SIGHASH_SINGLE) {
+            HashWriter single = new HashWriter();
+            tx.outputs.get(index).write(single);
+            writer.putBytes(single.hash());
+        }
+        return writer.hash();
+    }
+
+    /**
+     * Signs a key path spend of an input
+     *
+     * @param key - output key, e.g. ExtendedKey.getTaprootKey or ECKey.tweakTaproot
+     * @param index - input index
+     * @param hashType
+     * @return signature as placed in the witness, 64 bytes, followed by the hash type unless SIGHASH_DEFAULT
+     * @throws Exception
+     */
+    public byte[] sign(ECKey key, int index, int hashType) throws Exception {
+        byte[] signature = key.signSchnorr(sighash(index, hashType));
+        if (hashType == SIGHASH_DEFAULT) {
+            return signature;
+        }
+        byte[] withType = Arrays.copyOf(signature, Schnorr.SIGNATURE_LENGTH + 1);
+        withType[Schnorr.SIGNATURE_LENGTH] = (byte) hashType;
+        return withType;
+    }
+
+    /**
+     * Verifies the key path signature of an input
+     *
+     * @param outputKey - 32 byte x-only output key of the spent output
+     * @param index - input index
+     * @param signature - as placed in the witness
+     * @return false if the signature is invalid or malformed
+     */
+    public boolean verify(byte[] outputKey, int index, byte[] signature) {
+        if (signature == null
+                || (signature.length != Schnorr.SIGNATURE_LENGTH && signature.length != Schnorr.SIGNATURE_LENGTH + 1)) {
+            return false;
+        }
+        int hashType = SIGHASH_DEFAULT;
+        if (signature.length == Schnorr.SIGNATURE_LENGTH + 1) {
+            hashType = signature[Schnorr.SIGNATURE_LENGTH] & 0xff;
+            if (hashType == SIGHASH_DEFAULT) {
+                //the default type is implicit only
+                return false;
+            }
+        }
+        try {
+            return Schnorr.verify(outputKey, sighash(index, hashType), Arrays.copyOf(signature, Schnorr.SIGNATURE_LENGTH));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return SHA256 of all outpoints
+     */
+    public byte[] getShaPrevouts() {
+        byte[] hash = shaPrevouts;
+        if (hash == null) {
+            HashWriter writer = new HashWriter();
+            for (Input input : tx.inputs) {
+                input.writeOutpoint(writer);
+            }
+            hash = writer.hash();
+            shaPrevouts = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * @return SHA256 of all spent amounts
+     */
+    public byte[] getShaAmounts() {
+        byte[] hash = shaAmounts;
+        if (hash == null) {
+            HashWriter writer = new HashWriter();
+            for (Input input : tx.inputs) {
+                writer.putLongLE(input.output.satoshis);
+            }
+            hash = writer.hash();
+            shaAmounts = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * @return SHA256 of all spent output scripts
+     */
+    public byte[] getShaScriptPubKeys() throws Exception {
+        byte[] hash = shaScriptPubKeys;
+        if (hash == null) {
+            HashWriter writer = new HashWriter();
+            for (Input input : tx.inputs) {
+                writer.putVarBytes(input.output.script.getBytes());
+            }
+            hash = writer.hash();
+            shaScriptPubKeys = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * @return SHA256 of all input sequences
+     */
+    public byte[] getShaSequences() {
+        byte[] hash = shaSequences;
+        if (hash == null) {
+            HashWriter writer = new HashWriter();
+            for (Input input : tx.inputs) {
+                writer.putUInt32(input.sequence);
+            }
+            hash = writer.hash();
+            shaSequences = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * @return SHA256 of all outputs
+     */
+    public byte[] getShaOutputs() throws Exception {
+        byte[] hash = shaOutputs;
+        if (hash == null) {
+            HashWriter writer = new HashWriter();
+            for (Output output : tx.outputs) {
+                output.write(writer);
+            }
+            hash = writer.hash();
+            shaOutputs = hash;
+        }
+        return hash;
+    }
+
+    private static boolean isValidHashType(int hashType) {
+        if (hashType == SIGHASH_DEFAULT) {
+            return true;
+        }
+        int outputType = hashType & ~TransactionSignature.SIGHASH_ANYONECANPAY;
+        return outputType >= TransactionSignature.SIGHASH_ALL && outputType <= TransactionSignature.SIGHASH_SINGLE;
+    }
+}
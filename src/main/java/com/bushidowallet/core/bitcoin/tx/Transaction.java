@@ -10,14 +10,21 @@ import com.bushidowallet.core.bitcoin.tx.input.PublicKeyHashInput;
 import com.bushidowallet.core.bitcoin.tx.output.Output;
 import com.bushidowallet.core.bitcoin.util.ByteReader;
 import com.bushidowallet.core.bitcoin.util.ByteWriter;
+import com.bushidowallet.core.bitcoin.util.SharedPool;
 import com.bushidowallet.core.crypto.util.ByteUtil;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Created by Jesion on 2015-03-31.
+ *
+ * Transactions with a witness on any input are serialized in the BIP144 format: a zero marker and a flag byte
+ * after the version, and the witness stack of every input after the outputs. The txid (getHash) is the hash
+ * of the legacy serialization, the wtxid (getWitnessHash) of the full one.
  */
 public class Transaction {
 
@@ -26,6 +33,9 @@ public class Transaction {
     private static int MAXIMUM_EXTRA_SIZE = 4 + 9 + 9 + 4;
     private static int CHANGE_OUTPUT_MAX_SIZE = 20 + 4 + 34 + 4;
     private static long FEE_PER_KB = 10000;
+    private static int SEGWIT_MARKER = 0x00;
+    private static int SEGWIT_FLAG = 0x01;
+    public static final int WITNESS_SCALE_FACTOR = 4;
 
     public int version;
 
@@ -70,6 +80,66 @@ public class Transaction {
         }
     }
 
+    /**
+     * Signs this Tx with a collection of private keys, computing signatures of all inputs in parallel
+     * on the shared ForkJoinPool; the result is identical to sign(keys, sigType)
+     *
+     * @param keys - collection of private keys used for signing
+     * @param sigType - see Signature
+     * @throws Exception
+     */
+    public void signParallel(List<ECKey> keys, int sigType) throws Exception {
+        sign(keys, sigType, SharedPool.get());
+    }
+
+    /**
+     * Signs this Tx with a collection of private keys, computing signatures on a caller supplied executor
+     *
+     * The sighash of an input does not depend on the input scripts (they are blanked), so the signature of every
+     * key and input is computed and verified independently on the executor. The signatures are then applied
+     * in the order sign(keys, sigType) applies them: by key, then by input, which makes the signed transaction
+     * byte-identical; verified ones are applied without computing their sighash again.
+     *
+     * @param keys - collection of private keys used for signing
+     * @param sigType - see Signature
+     * @param executor - executor computing the signatures
+     * @throws Exception
+     */
+    public void sign(List<ECKey> keys, final int sigType, ExecutorService executor) throws Exception {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (!hasAllUtxoInfo()) {
+            throw new Exception("Inputs not complete");
+        }
+        List<Callable<List<VerifiedSignature>>> tasks = new ArrayList<Callable<List<VerifiedSignature>>>(keys.size() * inputs.size());
+        for (final ECKey key : keys) {
+            final byte[] hashData = new Hash(key.getPublic()).keyHash();
+            for (int i = 0; i < inputs.size(); i++) {
+                final int index = i;
+                final Input input = inputs.get(i);
+                tasks.add(new Callable<List<VerifiedSignature>>() {
+                    @Override
+                    public List<VerifiedSignature> call() throws Exception {
+                        List<VerifiedSignature> signatures = new ArrayList<VerifiedSignature>();
+                        for (TransactionSignature signature : input.getSignatures(Transaction.this, key, index, sigType, hashData)) {
+                            signatures.add(new VerifiedSignature(signature, input.isValidSignature(Transaction.this, signature)));
+                        }
+                        return signatures;
+                    }
+                });
+            }
+        }
+        List<VerifiedSignature> signatures = new ArrayList<VerifiedSignature>();
+        for (List<VerifiedSignature> taskSignatures : SharedPool.invokeAll(executor, tasks)) {
+            signatures.addAll(taskSignatures);
+        }
+        for (VerifiedSignature signature : signatures) {
+            //an invalid one is verified again, failing as it does when signing serially
+            this.inputs.get(signature.signature.inputIndex).addSignature(this, signature.signature, signature.valid);
+        }
+    }
+
     public void sign(ECKey key, int sigType) throws Exception {
         if (hasAllUtxoInfo()) {
             List<TransactionSignature> signatures = getSignatures(key, sigType);
@@ -122,8 +192,45 @@ public class Transaction {
         return true;
     }
 
+    /**
+     * @return txid, the hash of the serialization without witnesses
+     */
     public byte[] getHash() throws Exception {
-        return ByteUtil.reverseBytes(Hash.hash(uncheckedSerialize()));
+        return ByteUtil.reverseBytes(Hash.hash(serialize(false)));
+    }
+
+    /**
+     * @return wtxid, the hash of the serialization with witnesses (the txid if there are none)
+     */
+    public byte[] getWitnessHash() throws Exception {
+        return ByteUtil.reverseBytes(Hash.hash(serialize(true)));
+    }
+
+    public boolean hasWitness() {
+        for (Input input : inputs) {
+            if (input.hasWitness()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * BIP141 weight: the size without witnesses counts four times, witness data (with marker and flag) once
+     *
+     * @return weight units
+     */
+    public int getWeight() throws Exception {
+        int baseSize = serialize(false).length;
+        int totalSize = hasWitness() ? serialize(true).length : baseSize;
+        return baseSize * (WITNESS_SCALE_FACTOR - 1) + totalSize;
+    }
+
+    /**
+     * @return virtual size in vbytes, the weight divided by four rounded up, to apply a fee rate per byte
+     */
+    public int getVirtualSize() throws Exception {
+        return (getWeight() + WITNESS_SCALE_FACTOR - 1) / WITNESS_SCALE_FACTOR;
     }
 
     public Transaction from(UTXODescriptor utxoDescriptor) throws Exception {
@@ -317,9 +424,21 @@ public class Transaction {
         deserialize(bytes);
     }
 
+    /**
+     * @return serialization, with witnesses if any input has one
+     */
     public byte[] uncheckedSerialize() throws Exception {
+        return serialize(true);
+    }
+
+    private byte[] serialize(boolean withWitness) throws Exception {
+        final boolean segwit = withWitness && hasWitness();
         ByteWriter writer = new ByteWriter(0);
         writer.putIntLE(this.version);
+        if (segwit) {
+            writer.putUInt8(SEGWIT_MARKER);
+            writer.putUInt8(SEGWIT_FLAG);
+        }
         writer.putCompactInt(inputs.size());
         for (int i = 0; i < inputs.size(); i++) {
             inputs.get(i).write(writer);
@@ -328,6 +447,11 @@ public class Transaction {
         for (int j = 0; j < outputs.size(); j++) {
             outputs.get(j).write(writer);
         }
+        if (segwit) {
+            for (int i = 0; i < inputs.size(); i++) {
+                inputs.get(i).writeWitness(writer);
+            }
+        }
         writer.putIntLE(nLockTime);
         return writer.toBytes();
     }
@@ -338,8 +462,17 @@ public class Transaction {
         long txOuts = 0;
         inputs = new ArrayList<Input>();
         outputs = new ArrayList<Output>();
+        int flag = 0;
         this.version = reader.getIntLE();
         txIns = reader.getCompactInt();
+        if (txIns == SEGWIT_MARKER) {
+            //no inputs: the segwit marker, as in Bitcoin Core a legacy transaction may not have zero inputs
+            flag = reader.getUInt8();
+            if (flag != SEGWIT_FLAG) {
+                throw new Exception("Unknown transaction optional data");
+            }
+            txIns = reader.getCompactInt();
+        }
         for (long i = 0; i < txIns; i++) {
             inputs.add(Input.fromByteReader(reader));
         }
@@ -347,10 +480,29 @@ public class Transaction {
         for (long j = 0; j < txOuts; j++) {
             outputs.add(Output.fromByteReader(reader));
         }
+        if (flag == SEGWIT_FLAG) {
+            for (Input input : inputs) {
+                input.readWitness(reader);
+            }
+            if (!hasWitness()) {
+                throw new Exception("Superfluous witness record");
+            }
+        }
         this.nLockTime = reader.getIntLE();
     }
 
     public String toHex() throws Exception {
         return ByteUtil.toHex(this.uncheckedSerialize());
     }
+
+    private static final class VerifiedSignature {
+
+        final TransactionSignature signature;
+        final boolean valid;
+
+        VerifiedSignature(TransactionSignature signature, boolean valid) {
+            this.signature = signature;
+            this.valid = valid;
+        }
+    }
 }
@@ -8,8 +8,10 @@ import com.bushidowallet.core.bitcoin.tx.TransactionSignature;
 import com.bushidowallet.core.bitcoin.tx.output.Output;
 import com.bushidowallet.core.bitcoin.util.ByteReader;
 import com.bushidowallet.core.bitcoin.util.ByteWriter;
+import com.bushidowallet.core.bitcoin.util.HashWriter;
 import com.bushidowallet.core.crypto.util.ByteUtil;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -27,10 +29,14 @@ public class Input {
 
     public long sequence;
 
+    //segwit witness stack, empty for inputs spending legacy outputs
+    public List<byte[]> witness;
+
     public Input() {
 
         //default
         sequence = Long.valueOf("4294967295");
+        witness = new ArrayList<byte[]>();
     }
 
     public static Input fromByteReader(ByteReader reader) throws Exception {
@@ -52,6 +58,40 @@ public class Input {
         writer.putUInt32(sequence);
     }
 
+    /**
+     * Writes the outpoint of this input, the previous transaction id and output index, into a digest,
+     * serialized as by write, e.g. for signature hashes
+     */
+    public void writeOutpoint(HashWriter writer) {
+        writer.putBytesReversed(prevTxId);
+        writer.putIntLE(outputIndex);
+    }
+
+    /**
+     * Reads the witness stack of this input, serialized after all outputs of a segwit transaction
+     */
+    public void readWitness(ByteReader reader) throws Exception {
+        long items = reader.getCompactInt();
+        if (items > reader.available()) {
+            throw new Exception("Invalid witness: item count");
+        }
+        witness = new ArrayList<byte[]>((int) items);
+        for (long i = 0; i < items; i++) {
+            witness.add(reader.getVarBytes());
+        }
+    }
+
+    public void writeWitness(ByteWriter writer) {
+        writer.putCompactInt(witness.size());
+        for (byte[] item : witness) {
+            writer.putVarBytes(item);
+        }
+    }
+
+    public boolean hasWitness() {
+        return !witness.isEmpty();
+    }
+
     public int estimateSize() throws Exception {
         ByteWriter writer = new ByteWriter(0);
         write(writer);
@@ -59,6 +99,19 @@ public class Input {
     }
 
     public void addSignature(Transaction tx, TransactionSignature signature) throws Exception {
+        addSignature(tx, signature, false);
+    }
+
+    /**
+     * Adds a signature, skipping its verification if it is already known to be valid for tx
+     * (Transaction.sign verifies signatures as it computes them, on its executor)
+     *
+     * @param tx
+     * @param signature
+     * @param verified - true if the signature has been verified against tx
+     * @throws Exception
+     */
+    public void addSignature(Transaction tx, TransactionSignature signature, boolean verified) throws Exception {
 
         throw new Exception("Abstract method invoked");
     }
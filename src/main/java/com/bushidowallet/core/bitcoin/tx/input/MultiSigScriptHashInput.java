@@ -84,10 +84,11 @@ public class MultiSigScriptHashInput extends Input {
         return signatures;
     }
 
-    public void addSignature(Transaction tx, TransactionSignature signature) throws Exception {
+    @Override
+    public void addSignature(Transaction tx, TransactionSignature signature, boolean verified) throws Exception {
         if (isFullySigned() == false) {
             if (this.publicKeyIndex.get(ByteUtil.toHex(signature.publicKey)) != null) {
-                if (isValidSignature(tx, signature)) {
+                if (verified || isValidSignature(tx, signature)) {
                     int index = this.publicKeyIndex.get(ByteUtil.toHex(signature.publicKey));
                     signatures.put(index, signature);
                     updateScript();
@@ -116,14 +117,7 @@ public class MultiSigScriptHashInput extends Input {
         while (it.hasNext()) {
             Map.Entry pair = (Map.Entry) it.next();
             TransactionSignature txSig = (TransactionSignature) pair.getValue();
-            byte[] sigDER = txSig.signature.toDER();
-            int sigType = txSig.sigType;
-            byte[] sigTypeBytes = new byte[1];
-            sigTypeBytes[0] = (byte) (sigType & 0xff);
-            byte[] signature = new byte[sigDER.length + 1];
-            System.arraycopy(sigDER, 0, signature, 0, sigDER.length);
-            System.arraycopy(sigTypeBytes, 0, signature, sigDER.length, 1);
-            sigBytes.add(signature);
+            sigBytes.add(txSig.signature.toDER(txSig.sigType));
         }
         return sigBytes;
     }
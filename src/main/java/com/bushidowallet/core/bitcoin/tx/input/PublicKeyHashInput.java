@@ -41,9 +41,8 @@ public class PublicKeyHashInput extends Input {
     }
 
     @Override
-    public void addSignature(Transaction tx, TransactionSignature signature) throws Exception {
-        boolean isValidSig = isValidSignature(tx, signature);
-        if (isValidSig == false) {
+    public void addSignature(Transaction tx, TransactionSignature signature, boolean verified) throws Exception {
+        if (verified == false && isValidSignature(tx, signature) == false) {
             throw new Exception("Signature not valid against Tx provided");
         }
         this.script = Script.buildPublicKeyHashIn(signature.publicKey, signature.signature.toDER(), signature.sigType);
@@ -3,6 +3,7 @@ package com.bushidowallet.core.bitcoin.tx.output;
 import com.bushidowallet.core.bitcoin.script.Script;
 import com.bushidowallet.core.bitcoin.util.ByteReader;
 import com.bushidowallet.core.bitcoin.util.ByteWriter;
+import com.bushidowallet.core.bitcoin.util.HashWriter;
 import com.bushidowallet.core.crypto.util.ByteUtil;
 
 /**
@@ -28,7 +29,7 @@ public class Output {
         out.satoshis = reader.getLongLE();
         long scriptLen = reader.getCompactInt();
         if (scriptLen > 0) {
-            out.script = Script.fromBytes(reader.getBytes((int) scriptLen));
+            out.script = Script.fromOutputBytes(reader.getBytes((int) scriptLen));
         } else {
             out.script = new Script();
         }
@@ -41,6 +42,14 @@ public class Output {
         writer.putBytes(script.getBytes());
     }
 
+    /**
+     * Writes this output into a digest, serialized as by write, e.g. for signature hashes
+     */
+    public void write(HashWriter writer) throws Exception {
+        writer.putLongLE(satoshis);
+        writer.putVarBytes(script.getBytes());
+    }
+
     public byte[] toBytes() throws Exception {
         ByteWriter writer = new ByteWriter(0);
         writer.putLongLE(satoshis);
@@ -79,6 +79,17 @@ public class ByteReader {
       return bytes;
    }
 
+   /**
+    * Reads a length prefixed byte string, as scripts and witness items are serialized
+    */
+   public byte[] getVarBytes() throws Exception {
+      long length = getCompactInt();
+      if (length > available()) {
+         throw new Exception();
+      }
+      return getBytes((int) length);
+   }
+
    public String getString() throws Exception {
       int length = getIntLE();
       byte[] bytes = getBytes(length);
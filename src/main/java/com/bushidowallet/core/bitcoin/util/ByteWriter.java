@@ -102,6 +102,14 @@ final public class ByteWriter {
       putBytes(CompactInt.toBytes(value));
    }
 
+   /**
+    * Writes a length prefixed byte string, as scripts and witness items are serialized
+    */
+   public void putVarBytes(byte[] value) {
+      putCompactInt(value.length);
+      putBytes(value);
+   }
+
    public void putString(String s) {
       byte[] bytes = s.getBytes(UTF8_CHARSET);
       putIntLE(bytes.length);
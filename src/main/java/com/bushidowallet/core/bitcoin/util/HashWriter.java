@@ -0,0 +1,131 @@
+package com.bushidowallet.core.bitcoin.util;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+
+/**
+ * Writes the Bitcoin serialization of values straight into a SHA256 digest, with the layout of ByteWriter
+ *
+ * Data that is only ever hashed (signature hashes, transaction ids) is streamed instead of being serialized
+ * into a growing buffer first. A writer can also continue from a saved digest state (a midstate).
+ */
+public final class HashWriter {
+
+    private final SHA256Digest digest;
+    //large enough for a reversed hash
+    private final byte[] scratch = new byte[32];
+
+    public HashWriter() {
+        this(new SHA256Digest());
+    }
+
+    /**
+     * @param digest - digest to update, e.g. a copy of a midstate
+     */
+    public HashWriter(SHA256Digest digest) {
+        this.digest = digest;
+    }
+
+    public void put(byte b) {
+        digest.update(b);
+    }
+
+    public void putIntLE(int value) {
+        scratch[0] = (byte) value;
+        scratch[1] = (byte) (value >> 8);
+        scratch[2] = (byte) (value >> 16);
+        scratch[3] = (byte) (value >> 24);
+        digest.update(scratch, 0, 4);
+    }
+
+    public void putUInt32(long value) {
+        putIntLE((int) value);
+    }
+
+    public void putLongLE(long value) {
+        for (int i = 0; i < 8; i++) {
+            scratch[i] = (byte) (value >> (8 * i));
+        }
+        digest.update(scratch, 0, 8);
+    }
+
+    /**
+     * Writes a variable length integer, as CompactInt.toBytes
+     */
+    public void putCompactInt(long value) {
+        if (value >= 0 && value < 253) {
+            digest.update((byte) value);
+        } else if (value >= 0 && value < 65536) {
+            scratch[0] = (byte) 253;
+            scratch[1] = (byte) value;
+            scratch[2] = (byte) (value >> 8);
+            digest.update(scratch, 0, 3);
+        } else if (value >= 0 && value < 4294967295L) {
+            scratch[0] = (byte) 254;
+            for (int i = 0; i < 4; i++) {
+                scratch[1 + i] = (byte) (value >> (8 * i));
+            }
+            digest.update(scratch, 0, 5);
+        } else {
+            scratch[0] = (byte) 255;
+            for (int i = 0; i < 8; i++) {
+                scratch[1 + i] = (byte) (value >> (8 * i));
+            }
+            digest.update(scratch, 0, 9);
+        }
+    }
+
+    public void putBytes(byte[] value) {
+        digest.update(value, 0, value.length);
+    }
+
+    public void putBytes(byte[] value, int offset, int length) {
+        digest.update(value, offset, length);
+    }
+
+    /**
+     * Writes bytes in reverse order, e.g. a transaction id as it is serialized
+     */
+    public void putBytesReversed(byte[] value) {
+        for (int offset = 0; offset < value.length; offset += scratch.length) {
+            int length = Math.min(scratch.length, value.length - offset);
+            for (int i = 0; i < length; i++) {
+                scratch[i] = value[value.length - 1 - offset - i];
+            }
+            digest.update(scratch, 0, length);
+        }
+    }
+
+    /**
+     * Writes a length prefixed byte string, as scripts are serialized
+     */
+    public void putVarBytes(byte[] value) {
+        putCompactInt(value.length);
+        putBytes(value);
+    }
+
+    /**
+     * @return SHA256 of the data written, the writer is then reset
+     */
+    public byte[] hash() {
+        byte[] out = new byte[32];
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    /**
+     * @return SHA256(SHA256(data)), the writer is then reset
+     */
+    public byte[] doubleHash() {
+        byte[] out = hash();
+        digest.update(out, 0, out.length);
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    /**
+     * @return the digest being written, e.g. to save it as a midstate
+     */
+    public SHA256Digest getDigest() {
+        return digest;
+    }
+}
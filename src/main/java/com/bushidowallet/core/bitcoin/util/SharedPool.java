@@ -0,0 +1,76 @@
+package com.bushidowallet.core.bitcoin.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * ForkJoinPool shared by the parallel operations of this library that are not given an executor by the caller,
+ * sized to the number of available processors. Its worker threads are daemons.
+ *
+ * The operations that are given an executor run their tasks through invokeAll (or await), which never shuts it down.
+ */
+public final class SharedPool {
+
+    private static final ForkJoinPool INSTANCE = new ForkJoinPool();
+
+    private SharedPool() {
+    }
+
+    public static ForkJoinPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Runs tasks on an executor and waits for all of them; if one fails (or the wait is interrupted)
+     * the others are cancelled
+     *
+     * @param executor - executor running the tasks, it is not shut down
+     * @param tasks
+     * @return results in the order of tasks
+     * @throws Exception - the exception thrown by the first failing task, in the order of tasks
+     */
+    public static <T> List<T> invokeAll(ExecutorService executor, List<? extends Callable<T>> tasks) throws Exception {
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        boolean done = false;
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            List<T> results = new ArrayList<T>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(await(future));
+            }
+            done = true;
+            return results;
+        } finally {
+            if (!done) {
+                for (Future<T> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for a task, rethrowing the exception it failed with rather than an ExecutionException
+     *
+     * @param future
+     * @return result of the task
+     * @throws Exception
+     */
+    public static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bushidowallet.core;
+
+/**
+ * Minimal timing harness for the *Benchmark classes.
+ *
+ * Benchmarks are not picked up by the default surefire includes, run them explicitly, e.g.
+ * mvn test -Dtest=ExtendedKeyBenchmark
+ */
+public class Benchmark {
+
+    public interface Task {
+
+        void run(int iteration) throws Exception;
+    }
+
+    /**
+     * Runs a task warmup times, then times iterations runs of it
+     *
+     * @param name - label printed with the result
+     * @param warmup
+     * @param iterations
+     * @param task
+     * @return average nanoseconds per iteration
+     * @throws Exception
+     */
+    public static double run(String name, int warmup, int iterations, Task task) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            task.run(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run(i);
+        }
+        double nanos = (double) (System.nanoTime() - start) / iterations;
+        System.out.println(String.format("%-48s %12.1f us/op %12.0f ops/s", name, nanos / 1000, 1e9 / nanos));
+        return nanos;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bushidowallet.core.bitcoin;
+
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SegwitAddressTest {
+
+    @Test
+    public void testVectors() throws Exception {
+
+        //BIP173 and BIP350 valid addresses and their output scripts
+        String[][] vectors = new String[][] {
+                { "BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4", "0014751e76e8199196d454941c45d1b3a323f1433bd6" },
+                { "tb1qrp33g0q5c5txsp9arysrx4k6zdkfs4nce4xj0gdcccefvpysxf3q0sl5k7", "00201863143c14c5166804bd19203356da136c985678cd4d27a1b8c6329604903262" },
+                { "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0", "512079be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798" }
+        };
+        for (String[] vector : vectors) {
+            SegwitAddress address = new SegwitAddress(vector[0]);
+            Assert.assertEquals(vector[1], ByteUtil.toHex(address.getScript().getBytes()));
+            Assert.assertEquals(vector[0].toLowerCase(), address.toString());
+            Assert.assertEquals(vector[0].toLowerCase(), new SegwitAddress(address.getHrp(), address.getVersion(), address.getProgram()).toString());
+        }
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+
+        String[][] vectors = new String[][] {
+                { "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jjb", "Invalid segwit address: character" },
+                { "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jjq", "Invalid segwit address: checksum" },
+                { "bc1P0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0", "Invalid segwit address: case or length" },
+                { "bc1qqqqqq", "Invalid segwit address: separator" }
+        };
+        for (String[] vector : vectors) {
+            try {
+                new SegwitAddress(vector[0]);
+                Assert.fail(vector[0]);
+            } catch (Exception e) {
+                Assert.assertEquals(vector[1], e.getMessage());
+            }
+        }
+
+        //a version 1 program with a bech32 (not bech32m) checksum
+        SegwitAddress v0 = new SegwitAddress(SegwitAddress.MAINNET, 0, new byte[32]);
+        String encoded = v0.toString();
+        try {
+            new SegwitAddress(encoded.substring(0, 3) + "p" + encoded.substring(4));
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Invalid segwit address: checksum", e.getMessage());
+        }
+        try {
+            new SegwitAddress(SegwitAddress.MAINNET, 0, new byte[25]);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Invalid segwit address: program length", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.bushidowallet.core.bitcoin;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.bip32.Hash;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SignedMessageTest {
+
+    @BeforeClass
+    public static void init() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testVector() throws Exception {
+
+        //bitcoinjs-message test vector, a compressed key
+        ECKey key = new ECKey(ECKey.ECKeyParser.parse("5KYZdUEo39z3FPrtuX2QbbwGnNP5zTd7yyr2SC1j299sBCnWjss").getPrivate(), true);
+        String message = "This is an example of a signed message.";
+        SignedMessage signed = SignedMessage.sign(message, key);
+        Assert.assertEquals("1F3sAm6ZtwLAUnj7d38pGFxtP3RVEvtsbV", signed.getAddress());
+        Assert.assertEquals("H9L5yLFjti0QTHhPyFrZCT1V/MMnBtXKmoiKDZ78NDBjERki6ZTQZdSMCtkgoNmp17By9ItJr8o7ChX0XxY91nk=", signed.getSignature());
+        Assert.assertTrue(signed.verify());
+        Assert.assertArrayEquals(key.getPublic(), signed.recover().getPublic());
+    }
+
+    @Test
+    public void testVerify() throws Exception {
+
+        ECKey compressed = ECKey.ECKeyParser.parse("L1rjeUY9ffkApft853udougq6y5eT3xbyoNPcMnkpzhZUQrui9cn");
+        ECKey uncompressed = ECKey.ECKeyParser.parse("5HueCGU8rMjxEXxiPuD5BDku4MkFqeZyd4dZ1jvhTVqvbTLvyTJ");
+        for (ECKey key : new ECKey[] { compressed, uncompressed }) {
+            SignedMessage signed = SignedMessage.sign("proof of ownership ✓", key);
+            Assert.assertTrue(signed.verify());
+            //another message, another address
+            Assert.assertFalse(new SignedMessage("proof of ownership", signed.getSignature(), signed.getAddress()).verify());
+            String other = new Address(key == compressed ? uncompressed.getPublicKeyHash() : compressed.getPublicKeyHash()).toString();
+            Assert.assertFalse(new SignedMessage(signed.getMessage(), signed.getSignature(), other).verify());
+        }
+        //malformed signatures and addresses do not verify
+        SignedMessage signed = SignedMessage.sign("message", compressed);
+        Assert.assertFalse(new SignedMessage("message", "not base64!", signed.getAddress()).verify());
+        Assert.assertFalse(new SignedMessage("message", signed.getSignature().substring(4), signed.getAddress()).verify());
+        Assert.assertFalse(new SignedMessage("message", signed.getSignature(), "3Lk2q3HN7gYT3TRGzBbD1w4FKGKVrGqdBe").verify());
+        Assert.assertFalse(new SignedMessage("message", signed.getSignature(), "1KxRfiqcNi2GbpdN3pzuQHgewShmeNW9g2").verify());
+    }
+
+    @Test
+    public void testHash() throws Exception {
+
+        String message = "hello";
+        byte[] data = new byte[1 + SignedMessage.MAGIC.length() + 1 + message.length()];
+        data[0] = (byte) SignedMessage.MAGIC.length();
+        System.arraycopy(SignedMessage.MAGIC.getBytes("UTF-8"), 0, data, 1, SignedMessage.MAGIC.length());
+        data[1 + SignedMessage.MAGIC.length()] = (byte) message.length();
+        System.arraycopy(message.getBytes("UTF-8"), 0, data, 2 + SignedMessage.MAGIC.length(), message.length());
+        Assert.assertArrayEquals(Hash.hash(data), SignedMessage.hash(message));
+    }
+
+    @Test
+    public void testBatchVerify() throws Exception {
+
+        List<SignedMessage> messages = new ArrayList<SignedMessage>();
+        for (int i = 0; i < 150; i++) {
+            ECKey key = new ECKey(Hash.hash(new byte[] { (byte) i }), i % 2 == 0);
+            SignedMessage signed = SignedMessage.sign("address " + i, key);
+            if (i % 7 == 3) {
+                signed = new SignedMessage("tampered " + i, signed.getSignature(), signed.getAddress());
+            }
+            messages.add(signed);
+        }
+        boolean[] shared = SignedMessage.verify(messages);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            boolean[] own = SignedMessage.verify(messages, executor);
+            for (int i = 0; i < messages.size(); i++) {
+                Assert.assertEquals(i % 7 != 3, shared[i]);
+                Assert.assertEquals(shared[i], own[i]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(0, SignedMessage.verify(new ArrayList<SignedMessage>()).length);
+    }
+}
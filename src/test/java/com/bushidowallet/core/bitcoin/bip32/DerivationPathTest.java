@@ -0,0 +1,45 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DerivationPathTest {
+
+    @Test
+    public void testParse() throws Exception {
+
+        DerivationPath path = DerivationPath.parse("m/44'/0h/0H/1/5");
+        Assert.assertEquals(5, path.depth());
+        Assert.assertEquals(0x8000002c, path.get(0));
+        Assert.assertEquals(DerivationPath.hardened(0), path.get(1));
+        Assert.assertEquals(DerivationPath.hardened(0), path.get(2));
+        Assert.assertEquals(1, path.get(3));
+        Assert.assertEquals(5, path.last());
+        Assert.assertEquals("m/44'/0'/0'/1/5", path.toString());
+        Assert.assertEquals(path, DerivationPath.parse(path.toString()));
+        Assert.assertEquals(path, DerivationPath.parse("44'/0'/0'/1/5"));
+        Assert.assertEquals(path.hashCode(), new DerivationPath(0x8000002c, 0x80000000, 0x80000000, 1, 5).hashCode());
+
+        Assert.assertEquals(DerivationPath.parse("m/44'/0'/0'/1"), path.parent());
+        Assert.assertSame(path.parent(), path.parent());
+        Assert.assertEquals(path, path.parent().child(5));
+        Assert.assertTrue(DerivationPath.parse("m").isRoot());
+        Assert.assertNull(DerivationPath.ROOT.parent());
+        Assert.assertEquals(DerivationPath.ROOT, DerivationPath.parse("m/7").parent());
+        Assert.assertEquals(Integer.MAX_VALUE, DerivationPath.parse("m/2147483647").last());
+    }
+
+    @Test
+    public void testInvalidPaths() throws Exception {
+
+        String[] invalid = new String[] { "m/", "m//1", "m/1/", "m/-1", "m/1x", "m/a", "m/2147483648", "m/1''", "x/1" };
+        for (String path : invalid) {
+            try {
+                DerivationPath.parse(path);
+                Assert.fail("Accepted " + path);
+            } catch (Exception e) {
+                Assert.assertTrue(e.getMessage().startsWith("Invalid derivation path") || e.getMessage().startsWith("Derivation index out of range"));
+            }
+        }
+    }
+}
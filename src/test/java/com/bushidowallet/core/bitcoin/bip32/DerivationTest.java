@@ -0,0 +1,101 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class DerivationTest {
+
+    @BeforeClass
+    public static void init()
+    {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testCachedAccountKeys() throws Exception {
+
+        ExtendedKey root = getRootKey("Hiding like a turtle in a shell is not living at all");
+        Derivation derivation = new Derivation(root);
+
+        for (int i = 0; i < 5; i++) {
+            ExtendedKey expected = root.derive(7).derive(0).derive(i);
+            Assert.assertTrue(expected.equals(derivation.accountKey(0, 7, i)));
+        }
+        //m/7 and m/7/0 derived on the first call only, later calls hit m/7/0 directly
+        Assert.assertEquals(2, derivation.getCache().size());
+        Assert.assertEquals(2, derivation.getCache().getMisses());
+        Assert.assertEquals(4, derivation.getCache().getHits());
+
+        Assert.assertTrue(root.derive(7).derive(1).derive(3).equals(derivation.derive("m/7/1/3")));
+        Assert.assertTrue(root.derive(7).equals(derivation.derive("m/7")));
+        Assert.assertEquals(3, derivation.getCache().size());
+    }
+
+    @Test
+    public void testCacheEviction() throws Exception {
+
+        ExtendedKey root = getRootKey("When warriors say that they will perform an action, it is as good as done");
+        Derivation derivation = new Derivation(root, 2);
+
+        derivation.accountKey(0, 1, 0);
+        derivation.accountKey(0, 2, 0);
+        Assert.assertEquals(2, derivation.getCache().size());
+        Assert.assertTrue(root.derive(1).derive(0).derive(5).equals(derivation.accountKey(0, 1, 5)));
+    }
+
+    @Test
+    public void testDeriveRange() throws Exception {
+
+        ExtendedKey root = getRootKey("Over time, powerful samurai clans became warrior nobility");
+        Derivation derivation = new Derivation(root);
+        ExtendedKey chain = root.derive(3).derive(1);
+
+        KeyRange range = derivation.deriveRange(3, 1, 100, 150);
+        Assert.assertEquals(150, range.size());
+        Assert.assertEquals(100, range.getFrom());
+        for (int i = 0; i < range.size(); i++) {
+            ExtendedKey expected = chain.derive(100 + i);
+            Assert.assertTrue(expected.equals(range.getKey(i)));
+            Assert.assertEquals(expected.getPublicHex(), ByteUtil.toHex(range.getPublicKey(i)));
+            Assert.assertEquals(expected.getAddress().toString(), range.getAddresses().get(i).toString());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            KeyRange executed = derivation.deriveRange(3, 1, 100, 150, executor);
+            for (int i = 0; i < executed.size(); i++) {
+                Assert.assertTrue(range.getKey(i).equals(executed.getKey(i)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        KeyRange first = derivation.deriveRange(3, 1, 0, 10);
+        Assert.assertEquals(10, first.size());
+        for (int i = 0; i < first.size(); i++) {
+            Assert.assertTrue(chain.derive(i).equals(first.getKey(i)));
+        }
+
+        Assert.assertEquals(0, derivation.deriveRange(3, 1, 5, 0).size());
+        try {
+            derivation.deriveRange(3, 1, 0x7ffffff0, 100);
+            Assert.fail("Range crossing into hardened indices accepted");
+        } catch (Exception e) {
+            Assert.assertEquals("Invalid derivation range", e.getMessage());
+        }
+    }
+
+    private ExtendedKey getRootKey(String entropy) throws Exception {
+
+        byte[] passphraseHash = new Hash(entropy, 1, "SHA-256").hash();
+        byte[] keyHash = new Hash(passphraseHash).getHmacSHA512(Seed.BITCOIN_SEED);
+        return new ExtendedKey(keyHash, true);
+    }
+}
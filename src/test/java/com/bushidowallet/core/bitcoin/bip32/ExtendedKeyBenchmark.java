@@ -0,0 +1,76 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import com.bushidowallet.core.Benchmark;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Security;
+
+public class ExtendedKeyBenchmark {
+
+    private static ExtendedKey root;
+
+    @BeforeClass
+    public static void init() throws Exception
+    {
+        Security.addProvider(new BouncyCastleProvider());
+        byte[] passphraseHash = new Hash("Bushido varied dramatically over time", 1, "SHA-256").hash();
+        root = new ExtendedKey(new Hash(passphraseHash).getHmacSHA512(Seed.BITCOIN_SEED), true);
+    }
+
+    @Test
+    public void benchmarkPrivateVersusPublicDerivation() throws Exception {
+
+        final ExtendedKey privateParent = root.derive(0);
+        final ExtendedKey publicParent = ExtendedKey.parse(privateParent.serializePublic(), true);
+
+        Benchmark.run("derive child, private parent", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                privateParent.derive(i);
+            }
+        });
+        Benchmark.run("derive child, public parent (CKDpub)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                publicParent.derive(i);
+            }
+        });
+    }
+
+    @Test
+    public void benchmarkChildHmac() throws Exception {
+
+        final byte[] chainCode = root.getChainCode();
+        final byte[] data = new byte[37];
+        data[0] = 0x02;
+
+        Benchmark.run("child HMAC, JCA Mac per child", 5000, 20000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                Mac mac = Mac.getInstance("HmacSHA512", "BC");
+                mac.init(new SecretKeySpec(chainCode, "HmacSHA512"));
+                data[36] = (byte) i;
+                mac.doFinal(data);
+            }
+        });
+        final HmacSHA512Key key = new HmacSHA512Key(chainCode);
+        Benchmark.run("child HMAC, precomputed key schedule", 5000, 20000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                data[36] = (byte) i;
+                key.mac(data);
+            }
+        });
+        final ExtendedKey parent = root.derive(1);
+        Benchmark.run("derive child (private parent)", 500, 5000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                parent.derive(i);
+            }
+        });
+    }
+}
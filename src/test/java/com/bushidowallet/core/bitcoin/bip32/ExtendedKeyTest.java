@@ -1,6 +1,8 @@
 package com.bushidowallet.core.bitcoin.bip32;
 
 import com.bushidowallet.core.TestResource;
+import com.bushidowallet.core.bitcoin.bip39.Mnemonic;
+import com.bushidowallet.core.bitcoin.ecdsa.Schnorr;
 import com.bushidowallet.core.crypto.util.ByteUtil;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.json.JSONArray;
@@ -129,4 +131,110 @@ public class ExtendedKeyTest {
             Assert.assertTrue(true);
         }
     }
+
+    @Test
+    public void testPublicDerivation() throws Exception {
+
+        JSONArray tests = new TestResource("bitcoinkeycompressed.json").readObjectArray();
+        JSONObject test = tests.getJSONObject(0);
+        ExtendedKey extendedKey = ExtendedKey.parse(test.getString("private"), true);
+        ExtendedKey publicKey = ExtendedKey.parse(test.getString("public"), true);
+
+        for (int i = 0; i < 5; i++) {
+            ExtendedKey child = publicKey.derive(i);
+            Assert.assertFalse(child.getECKey().hasPrivate());
+            Assert.assertEquals(extendedKey.derive(i).serializePublic(), child.serializePublic());
+        }
+
+        ExtendedKey account = new Derivation(extendedKey).derive("m/5/0");
+        ExtendedKey watchOnly = ExtendedKey.parse(account.serializePublic(), true);
+        Assert.assertEquals(account.derive(10).getAddress().toString(), watchOnly.derive(10).getAddress().toString());
+        Assert.assertEquals(new Derivation(watchOnly).basic(10).serializePublic(), account.derive(10).serializePublic());
+
+        try {
+            watchOnly.derive(10).serializePrivate();
+            Assert.fail("Public derivation produced a private key");
+        } catch (Exception e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testHardenedDerivation() throws Exception {
+
+        //BIP32 test vector 1
+        byte[] seed = ByteUtil.fromHex("000102030405060708090a0b0c0d0e0f");
+        ExtendedKey master = new ExtendedKey(new Hash(seed).getHmacSHA512(Seed.BITCOIN_SEED));
+        String[][] vectors = new String[][] {
+                { "m",
+                  "xpub661MyMwAqRbcFtXgS5sYJABqqG9YLmC4Q1Rdap9gSE8NqtwybGhePY2gZ29ESFjqJoCu1Rupje8YtGqsefD265TMg7usUDFdp6W1EGMcet8",
+                  "xprv9s21ZrQH143K3QTDL4LXw2F7HEK3wJUD2nW2nRk4stbPy6cq3jPPqjiChkVvvNKmPGJxWUtg6LnF5kejMRNNU3TGtRBeJgk33yuGBxrMPHi" },
+                { "m/0'",
+                  "xpub68Gmy5EdvgibQVfPdqkBBCHxA5htiqg55crXYuXoQRKfDBFA1WEjWgP6LHhwBZeNK1VTsfTFUHCdrfp1bgwQ9xv5ski8PX9rL2dZXvgGDnw",
+                  "xprv9uHRZZhk6KAJC1avXpDAp4MDc3sQKNxDiPvvkX8Br5ngLNv1TxvUxt4cV1rGL5hj6KCesnDYUhd7oWgT11eZG7XnxHrnYeSvkzY7d2bhkJ7" },
+                { "m/0'/1",
+                  "xpub6ASuArnXKPbfEwhqN6e3mwBcDTgzisQN1wXN9BJcM47sSikHjJf3UFHKkNAWbWMiGj7Wf5uMash7SyYq527Hqck2AxYysAA7xmALppuCkwQ",
+                  "xprv9wTYmMFdV23N2TdNG573QoEsfRrWKQgWeibmLntzniatZvR9BmLnvSxqu53Kw1UmYPxLgboyZQaXwTCg8MSY3H2EU4pWcQDnRnrVA1xe8fs" },
+                { "m/0h/1/2h",
+                  "xpub6D4BDPcP2GT577Vvch3R8wDkScZWzQzMMUm3PWbmWvVJrZwQY4VUNgqFJPMM3No2dFDFGTsxxpG5uJh7n7epu4trkrX7x7DogT5Uv6fcLW5",
+                  "xprv9z4pot5VBttmtdRTWfWQmoH1taj2axGVzFqSb8C9xaxKymcFzXBDptWmT7FwuEzG3ryjH4ktypQSAewRiNMjANTtpgP4mLTj34bhnZX7UiM" },
+                { "m/0'/1/2'/2",
+                  "xpub6FHa3pjLCk84BayeJxFW2SP4XRrFd1JYnxeLeU8EqN3vDfZmbqBqaGJAyiLjTAwm6ZLRQUMv1ZACTj37sR62cfN7fe5JnJ7dh8zL4fiyLHV",
+                  "xprvA2JDeKCSNNZky6uBCviVfJSKyQ1mDYahRjijr5idH2WwLsEd4Hsb2Tyh8RfQMuPh7f7RtyzTtdrbdqqsunu5Mm3wDvUAKRHSC34sJ7in334" },
+                { "m/0'/1/2'/2/1000000000",
+                  "xpub6H1LXWLaKsWFhvm6RVpEL9P4KfRZSW7abD2ttkWP3SSQvnyA8FSVqNTEcYFgJS2UaFcxupHiYkro49S8yGasTvXEYBVPamhGW6cFJodrTHy",
+                  "xprvA41z7zogVVwxVSgdKUHDy1SKmdb533PjDz7J6N6mV6uS3ze1ai8FHa8kmHScGpWmj4WggLyQjgPie1rFSruoUihUZREPSL39UNdE3BBDu76" }
+        };
+        Derivation derivation = new Derivation(master);
+        for (String[] vector : vectors) {
+            DerivationPath path = DerivationPath.parse(vector[0]);
+            ExtendedKey key = master.derive(path);
+            Assert.assertEquals(vector[1], key.serializePublic());
+            Assert.assertEquals(vector[2], key.serializePrivate());
+            Assert.assertTrue(key.equals(derivation.derive(vector[0])));
+        }
+
+        ExtendedKey watchOnly = ExtendedKey.parse(vectors[0][1], true);
+        try {
+            watchOnly.derive(DerivationPath.hardened(0));
+            Assert.fail("Hardened child derived from a public key");
+        } catch (Exception e) {
+            Assert.assertEquals("Hardened derivation requires a private key", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBIP86() throws Exception {
+
+        //BIP86 test vectors: internal key, output key, address
+        ExtendedKey root = new Mnemonic("abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon about").toExtendedKey("");
+        String[][] vectors = new String[][] {
+                { "m/86'/0'/0'/0/0",
+                  "cc8a4bc64d897bddc5fbc2f670f7a8ba0b386779106cf1223c6fc5d7cd6fc115",
+                  "a60869f0dbcf1dc659c9cecbaf8050135ea9e8cdc487053f1dc6880949dc684c",
+                  "bc1p5cyxnuxmeuwuvkwfem96lqzszd02n6xdcjrs20cac6yqjjwudpxqkedrcr" },
+                { "m/86'/0'/0'/0/1",
+                  "83dfe85a3151d2517290da461fe2815591ef69f2b18a2ce63f01697a8b313145",
+                  "a82f29944d65b86ae6b5e5cc75e294ead6c59391a1edc5e016e3498c67fc7bbb",
+                  "bc1p4qhjn9zdvkux4e44uhx8tc55attvtyu358kutcqkudyccelu0was9fqzwh" }
+        };
+        ExtendedKey watchOnly = ExtendedKey.parse(root.derive(DerivationPath.parse("m/86'/0'/0'")).serializePublic(), true);
+        for (String[] vector : vectors) {
+            ExtendedKey key = root.derive(DerivationPath.parse(vector[0]));
+            Assert.assertEquals(vector[1], ByteUtil.toHex(key.getECKey().getXOnlyPublic()));
+            ECKey outputKey = key.getTaprootKey();
+            Assert.assertEquals(vector[2], ByteUtil.toHex(outputKey.getXOnlyPublic()));
+            Assert.assertEquals(vector[3], key.getTaprootAddress().toString());
+
+            //the tweaked private key signs for the output key
+            byte[] message = new Hash(vector[0]).sha256();
+            Assert.assertTrue(Schnorr.verify(outputKey.getXOnlyPublic(), message, outputKey.signSchnorr(message)));
+
+            //an account xpub derives the same addresses
+            String[] steps = vector[0].split("/");
+            ExtendedKey child = watchOnly.derive(Integer.parseInt(steps[4])).derive(Integer.parseInt(steps[5]));
+            Assert.assertEquals(vector[3], child.getTaprootAddress().toString());
+            Assert.assertFalse(child.getTaprootKey().hasPrivate());
+        }
+    }
 }
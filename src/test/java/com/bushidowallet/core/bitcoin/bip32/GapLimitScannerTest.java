@@ -0,0 +1,71 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class GapLimitScannerTest {
+
+    @BeforeClass
+    public static void init()
+    {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testScan() throws Exception {
+
+        byte[] passphraseHash = new Hash("Other pundits pontificating on the warrior philosophy", 1, "SHA-256").hash();
+        ExtendedKey root = new ExtendedKey(new Hash(passphraseHash).getHmacSHA512(Seed.BITCOIN_SEED), true);
+        Derivation derivation = new Derivation(root);
+
+        InMemoryLookup lookup = new InMemoryLookup();
+        lookup.use(root.derive(2).derive(0).derive(0));
+        lookup.use(root.derive(2).derive(0).derive(3));
+        //18 unused addresses in between, below the gap limit
+        lookup.use(root.derive(2).derive(0).derive(22));
+        lookup.use(root.derive(2).derive(1).derive(1));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            GapLimitScanner.Result result = new GapLimitScanner(derivation, lookup, 20, 8, executor).scan(2);
+            Assert.assertEquals(Arrays.asList(0, 3, 22), result.getExternal().getUsedIndices());
+            Assert.assertEquals(23, result.getExternal().getNextIndex());
+            Assert.assertEquals(43, result.getExternal().getScanned());
+            Assert.assertEquals(root.derive(2).derive(0).derive(22).getAddress().toString(), result.getExternal().getUsedAddresses().get(2).toString());
+            Assert.assertEquals(Arrays.asList(1), result.getInternal().getUsedIndices());
+            Assert.assertEquals(2, result.getInternal().getNextIndex());
+            Assert.assertEquals(22, result.getInternal().getScanned());
+        } finally {
+            executor.shutdown();
+        }
+
+        GapLimitScanner.ChainResult empty = new GapLimitScanner(derivation, lookup).scanChain(5, 0);
+        Assert.assertEquals(0, empty.getUsedIndices().size());
+        Assert.assertEquals(0, empty.getNextIndex());
+        Assert.assertEquals(GapLimitScanner.DEFAULT_GAP_LIMIT, empty.getScanned());
+    }
+
+    private static class InMemoryLookup implements UsageLookup {
+
+        private final Set<String> used = new HashSet<String>();
+
+        void use(ExtendedKey key) {
+            used.add(ByteUtil.toHex(key.getECKey().getPublicKeyHash()));
+        }
+
+        @Override
+        public boolean isUsed(byte[] hash160) {
+            return used.contains(ByteUtil.toHex(hash160));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import com.bushidowallet.core.Benchmark;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class Hash160IndexBenchmark {
+
+    private static final int SIZE = 1 << 20;
+
+    @Test
+    public void benchmarkLookup() throws Exception {
+
+        Random random = new Random(1);
+        final byte[][] hashes = new byte[SIZE][];
+        final byte[][] misses = new byte[SIZE][];
+        final Hash160Index index = new Hash160Index(SIZE);
+        final Map<String, DerivationPath> map = new HashMap<String, DerivationPath>();
+        DerivationPath chain = DerivationPath.parse("m/0/0");
+        for (int i = 0; i < SIZE; i++) {
+            hashes[i] = new byte[Hash160Index.HASH_LENGTH];
+            random.nextBytes(hashes[i]);
+            misses[i] = new byte[Hash160Index.HASH_LENGTH];
+            random.nextBytes(misses[i]);
+            DerivationPath path = chain.child(i);
+            index.put(hashes[i], 0, path);
+            map.put(ByteUtil.toHex(hashes[i]), path);
+        }
+
+        final int mask = SIZE - 1;
+        double hexMap = Benchmark.run("HashMap<hex, path> lookup (hit + miss)", 200000, 2000000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                map.get(ByteUtil.toHex(hashes[i & mask]));
+                map.get(ByteUtil.toHex(misses[i & mask]));
+            }
+        });
+        double compact = Benchmark.run("Hash160Index lookup (hit + miss)", 200000, 2000000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                index.get(hashes[i & mask]);
+                index.get(misses[i & mask]);
+            }
+        });
+        double primitive = Benchmark.run("Hash160Index.Table find (hit + miss)", 200000, 2000000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                Hash160Index.Table table = index.snapshot();
+                int slot = table.find(hashes[i & mask], 0);
+                if (slot >= 0) {
+                    table.rootIdAt(slot);
+                    table.chainAt(slot);
+                    table.indexAt(slot);
+                }
+                table.find(misses[i & mask], 0);
+            }
+        });
+        System.out.println(String.format("speedup: %.2fx, allocation free: %.2fx", hexMap / compact, hexMap / primitive));
+    }
+}
@@ -0,0 +1,93 @@
+package com.bushidowallet.core.bitcoin.bip32;
+
+import com.bushidowallet.core.bitcoin.Address;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.Security;
+
+public class Hash160IndexTest {
+
+    @BeforeClass
+    public static void init()
+    {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testDerivedAddresses() throws Exception {
+
+        byte[] passphraseHash = new Hash("Bushido is the way of the warrior", 1, "SHA-256").hash();
+        ExtendedKey root = new ExtendedKey(new Hash(passphraseHash).getHmacSHA512(Seed.BITCOIN_SEED), true);
+        Derivation derivation = new Derivation(root);
+
+        //deliberately undersized, so the table grows several times
+        Hash160Index index = new Hash160Index();
+        KeyRange external = derivation.deriveRange(0, 0, 0, 200);
+        KeyRange internal = derivation.deriveRange(0, 1, 0, 50);
+        DerivationPath externalChain = DerivationPath.parse("m/0/0");
+        index.putAll(external, 1, externalChain);
+        index.putAll(internal, 1, DerivationPath.parse("m/0/1"));
+        Assert.assertEquals(250, index.size());
+
+        for (int i = 0; i < external.size(); i++) {
+            Hash160Index.Entry entry = index.get(external.getAddress(i).getHash());
+            Assert.assertNotNull(entry);
+            Assert.assertEquals(1, entry.getRootId());
+            Assert.assertEquals("m/0/0/" + i, entry.getPath().toString());
+            //the chain path is shared, not copied per key
+            Assert.assertSame(externalChain, entry.getChainPath());
+            Assert.assertEquals(i, entry.getIndex());
+        }
+        Assert.assertEquals("m/0/1/49", index.get(internal.getKey(49).getECKey().getPublicKeyHash()).getPath().toString());
+        Assert.assertNull(index.get(root.getECKey().getPublicKeyHash()));
+        Assert.assertFalse(index.contains(new byte[Hash160Index.HASH_LENGTH]));
+
+        //P2PKH output script: OP_DUP OP_HASH160 <20 bytes> OP_EQUALVERIFY OP_CHECKSIG
+        byte[] script = new byte[25];
+        script[0] = 0x76;
+        script[1] = (byte) 0xa9;
+        script[2] = 0x14;
+        System.arraycopy(external.getAddress(77).getHash(), 0, script, 3, Hash160Index.HASH_LENGTH);
+        script[23] = (byte) 0x88;
+        script[24] = (byte) 0xac;
+        Assert.assertTrue(index.contains(script, 3));
+        Assert.assertFalse(index.contains(script, 2));
+
+        //primitive lookup, on the table it was found in
+        Hash160Index.Table table = index.snapshot();
+        int slot = table.find(script, 3);
+        Assert.assertTrue(slot >= 0);
+        Assert.assertEquals(1, table.rootIdAt(slot));
+        Assert.assertSame(externalChain, table.chainAt(slot));
+        Assert.assertEquals(77, table.indexAt(slot));
+        Assert.assertEquals(-1, table.find(script, 2));
+
+        Address address = external.getAddress(3);
+        int replaced = table.find(address.getHash(), 0);
+        Assert.assertFalse(index.put(address.getHash(), 2, DerivationPath.parse("m/9")));
+        //the slot found before keeps its values, the hash is found in its new slot
+        Assert.assertEquals(1, table.rootIdAt(replaced));
+        Assert.assertSame(externalChain, table.chainAt(replaced));
+        Assert.assertEquals(3, table.indexAt(replaced));
+        Assert.assertTrue(index.snapshot().find(address.getHash(), 0) != replaced);
+        Assert.assertEquals(250, index.size());
+        Assert.assertEquals(2, index.get(address.getHash()).getRootId());
+        Assert.assertEquals("m/9", index.get(address.getHash()).getPath().toString());
+
+        //replaced hashes still resolve after the table grows
+        for (int i = 0; i < external.size(); i++) {
+            index.put(external.getAddress(i).getHash(), 3, DerivationPath.ROOT);
+        }
+        index.putAll(derivation.deriveRange(1, 0, 0, 300), 1, DerivationPath.parse("m/1/0"));
+        Assert.assertEquals(550, index.size());
+        for (int i = 0; i < external.size(); i++) {
+            Hash160Index.Entry entry = index.get(external.getAddress(i).getHash());
+            Assert.assertEquals(3, entry.getRootId());
+            Assert.assertTrue(entry.getPath().isRoot());
+        }
+        Assert.assertEquals("m/0/1/49", index.get(internal.getAddress(49).getHash()).getPath().toString());
+    }
+}
@@ -9,7 +9,10 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import java.security.Security;
+import java.util.Random;
 
 /**
  * Created by Jesion on 2015-01-13.
@@ -46,7 +49,24 @@ public class HashTest {
             Assert.assertTrue(test.getString("keyhash").equals(ByteUtil.toHex(keyHash)));
         }
     }
-}
-
 
+    @Test
+    public void testHmacSHA512Key() throws Exception {
 
+        Random random = new Random(7);
+        //short, block sized and hashed (longer than a block) keys
+        int[] keyLengths = new int[] { 1, 12, 32, 128, 200 };
+        for (int keyLength : keyLengths) {
+            byte[] key = new byte[keyLength];
+            byte[] data = new byte[37 + keyLength];
+            random.nextBytes(key);
+            random.nextBytes(data);
+            Mac mac = Mac.getInstance("HmacSHA512", "BC");
+            mac.init(new SecretKeySpec(key, "HmacSHA512"));
+            HmacSHA512Key hmacKey = new HmacSHA512Key(key);
+            Assert.assertArrayEquals(mac.doFinal(data), hmacKey.mac(data));
+            //instances are reusable
+            Assert.assertArrayEquals(mac.doFinal(data), hmacKey.mac(data));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bushidowallet.core.bitcoin.bip39;
+
+import com.bushidowallet.core.Benchmark;
+import org.junit.Test;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class MnemonicBenchmark {
+
+    private static final int BATCH = 64;
+
+    @Test
+    public void benchmarkSeeds() throws Exception {
+
+        Random random = new Random(1);
+        final List<Mnemonic> mnemonics = new ArrayList<Mnemonic>();
+        for (int i = 0; i < BATCH; i++) {
+            byte[] entropy = new byte[16];
+            random.nextBytes(entropy);
+            mnemonics.add(Mnemonic.fromEntropy(entropy));
+        }
+        final SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512");
+
+        double jca = Benchmark.run("PBKDF2WithHmacSHA512 (JCA)", 20, 100, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                Mnemonic mnemonic = mnemonics.get(i % BATCH);
+                factory.generateSecret(new PBEKeySpec(mnemonic.toString().toCharArray(),
+                        "mnemonicTREZOR".getBytes("UTF-8"), Mnemonic.PBKDF2_ROUNDS, 512)).getEncoded();
+            }
+        });
+        double single = Benchmark.run("Mnemonic.toSeed", 20, 100, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                mnemonics.get(i % BATCH).toSeed("TREZOR");
+            }
+        });
+        double batch = Benchmark.run("Mnemonic.toSeeds (" + BATCH + " seeds)", 2, 10, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                Mnemonic.toSeeds(mnemonics, "TREZOR");
+            }
+        }) / BATCH;
+        System.out.println(String.format("seeds/s: JCA %.0f, toSeed %.0f, toSeeds %.0f", 1e9 / jca, 1e9 / single, 1e9 / batch));
+    }
+}
@@ -0,0 +1,101 @@
+package com.bushidowallet.core.bitcoin.bip39;
+
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MnemonicTest {
+
+    //BIP39 test vectors, passphrase TREZOR: entropy, mnemonic, seed
+    private static final String[][] VECTORS = new String[][] {
+            { "00000000000000000000000000000000",
+              "abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon about",
+              "c55257c360c07c72029aebc1b53c05ed0362ada38ead3e3e9efa3708e53495531f09a6987599d18264c1e1c92f2cf141630c7a3c4ab7c81b2f001698e7463b04" },
+            { "7f7f7f7f7f7f7f7f7f7f7f7f7f7f7f7f",
+              "legal winner thank year wave sausage worth useful legal winner thank yellow",
+              "2e8905819b8723fe2c1d161860e5ee1830318dbf49a83bd451cfb8440c28bd6fa457fe1296106559a3c80937a1c1069be3a3a5bd381ee6260e8d9739fce1f607" },
+            { "ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff",
+              "zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo zoo vote",
+              "dd48c104698c30cfe2b6142103248622fb7bb0ff692eebb00089b32d22484e1613912f0a5b694407be899ffd31ed3992c456cdf60f5d4564b8ba3f05a69890ad" },
+            { "9e885d952ad362caeb4efe34a8e91bd2",
+              "ozone drill grab fiber curtain grace pudding thank cruise elder eight picnic",
+              "274ddc525802f7c828d8ef7ddbcdc5304e87ac3535913611fbbfa986d0c9e5476c91689f9c8a54fd55bd38606aa6a8595ad213d4c9c9f9aca3fb217069a41028" },
+            { "68a79eaca2324873eacc50cb9c6eca8cc68ea5d936f98787c60c7ebc74e6ce7c",
+              "hamster diagram private dutch cause delay private meat slide toddler razor book happy fancy gospel tennis maple dilemma loan word shrug inflict delay length",
+              "64c87cde7e12ecf6704ab95bb1408bef047c22db4cc7491c4271d170a1b213d20b385bc1588d9c7b38f1b39d415665b8a9030c9ec653d75e65f847d8fc1fc440" }
+    };
+
+    @BeforeClass
+    public static void init()
+    {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testVectors() throws Exception {
+
+        for (String[] vector : VECTORS) {
+            Mnemonic mnemonic = Mnemonic.fromEntropy(ByteUtil.fromHex(vector[0]));
+            Assert.assertEquals(vector[1], mnemonic.toString());
+            Mnemonic parsed = new Mnemonic("  " + vector[1].replace(" ", " \n ") + " ");
+            Assert.assertEquals(mnemonic, parsed);
+            Assert.assertEquals(vector[0], ByteUtil.toHex(parsed.getEntropy()));
+            Assert.assertEquals(vector[2], ByteUtil.toHex(parsed.toSeed("TREZOR")));
+        }
+        Assert.assertEquals("xprv9s21ZrQH143K3h3fDYiay8mocZ3afhfULfb5GX8kCBdno77K4HiA15Tg23wpbeF1pLfs1c5SPmYHrEpTuuRhxMwvKDwqdKiGJS9XFKzUsAF",
+                new Mnemonic(VECTORS[0][1]).toExtendedKey("TREZOR").serializePrivate());
+    }
+
+    @Test
+    public void testInvalidMnemonics() throws Exception {
+
+        String[][] invalid = new String[][] {
+                { "abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon", "Invalid mnemonic checksum" },
+                { "abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon", "Invalid mnemonic word count" },
+                { "abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon samurai", "Invalid mnemonic word: samurai" },
+                { "", "Invalid mnemonic word count" }
+        };
+        for (String[] test : invalid) {
+            try {
+                new Mnemonic(test[0]);
+                Assert.fail("Accepted " + test[0]);
+            } catch (Exception e) {
+                Assert.assertEquals(test[1], e.getMessage());
+            }
+        }
+        try {
+            Mnemonic.fromEntropy(new byte[15]);
+            Assert.fail("Accepted 120 bits of entropy");
+        } catch (Exception e) {
+            Assert.assertEquals("Invalid entropy length", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBatchSeeds() throws Exception {
+
+        List<Mnemonic> mnemonics = new ArrayList<Mnemonic>();
+        for (String[] vector : VECTORS) {
+            mnemonics.add(new Mnemonic(vector[1]));
+        }
+        List<byte[]> seeds = Mnemonic.toSeeds(mnemonics, "TREZOR");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<byte[]> executed = Mnemonic.toSeeds(mnemonics, "TREZOR", executor);
+            for (int i = 0; i < VECTORS.length; i++) {
+                Assert.assertEquals(VECTORS[i][2], ByteUtil.toHex(seeds.get(i)));
+                Assert.assertEquals(VECTORS[i][2], ByteUtil.toHex(executed.get(i)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.Benchmark;
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.Random;
+
+public class ECDSABatchVerifierBenchmark {
+
+    private static final int BATCH = 1024;
+
+    @Test
+    public void benchmarkVerification() throws Exception {
+
+        Security.addProvider(new BouncyCastleProvider());
+        Random random = new Random(1);
+        final byte[][] hashes = new byte[BATCH][];
+        final ECDSASignature[] signatures = new ECDSASignature[BATCH];
+        final ECKey[] keys = new ECKey[BATCH];
+        final ECDSABatchVerifier verifier = new ECDSABatchVerifier("little");
+        for (int i = 0; i < BATCH; i++) {
+            byte[] priv = new byte[32];
+            random.nextBytes(priv);
+            keys[i] = new ECKey(priv, true);
+            hashes[i] = new byte[32];
+            random.nextBytes(hashes[i]);
+            signatures[i] = new ECDSA(hashes[i], keys[i], "little").sign();
+            verifier.add(hashes[i], signatures[i], keys[i]);
+        }
+        FixedBaseMultiplier.precompute();
+
+        double single = Benchmark.run("ECDSA.verify", 1000, 3000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                int j = i % BATCH;
+                new ECDSA(hashes[j], keys[j], "little").verify(signatures[j]);
+            }
+        });
+        double batch = Benchmark.run("ECDSABatchVerifier.verify (" + BATCH + " signatures)", 3, 10, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                verifier.verify();
+            }
+        }) / BATCH;
+        System.out.println(String.format("signatures/s: single %.0f, batch %.0f (%d cores)",
+                1e9 / single, 1e9 / batch, Runtime.getRuntime().availableProcessors()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.Security;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ECDSABatchVerifierTest {
+
+    @BeforeClass
+    public static void init()
+    {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testBatchMatchesSingleVerification() throws Exception {
+
+        Random random = new Random(12);
+        ECKey[] keys = new ECKey[5];
+        for (int i = 0; i < keys.length; i++) {
+            byte[] priv = new byte[32];
+            random.nextBytes(priv);
+            keys[i] = new ECKey(priv, i % 2 == 0);
+        }
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier("little");
+        int count = 150;
+        byte[][] hashes = new byte[count][];
+        ECDSASignature[] signatures = new ECDSASignature[count];
+        byte[][] publicKeys = new byte[count][];
+        BigInteger n = ECKey.params.getN();
+        for (int i = 0; i < count; i++) {
+            ECKey key = keys[i % keys.length];
+            hashes[i] = new byte[32];
+            random.nextBytes(hashes[i]);
+            ECDSASignature signature = new ECDSA(hashes[i], key, "little").sign();
+            publicKeys[i] = key.getPublic();
+            switch (i % 10) {
+                case 3:
+                    signature = new ECDSASignature(signature.r.add(BigInteger.ONE), signature.s, signature.compressed);
+                    break;
+                case 5:
+                    publicKeys[i] = keys[(i + 1) % keys.length].getPublic();
+                    break;
+                case 7:
+                    signature = new ECDSASignature(signature.r, n, signature.compressed);
+                    break;
+                case 8:
+                    hashes[i] = new byte[32];
+                    break;
+                case 9:
+                    publicKeys[i] = new byte[] { 0x02, 0x01 };
+                    break;
+                default:
+                    break;
+            }
+            signatures[i] = signature;
+            verifier.add(hashes[i], signature, publicKeys[i]);
+        }
+        Assert.assertEquals(count, verifier.size());
+
+        boolean[] results = verifier.verify();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        boolean[] executed;
+        try {
+            executed = verifier.verify(executor);
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < count; i++) {
+            boolean expected = i % 10 < 3 || i % 10 == 4 || i % 10 == 6;
+            Assert.assertEquals("item " + i, expected, results[i]);
+            Assert.assertEquals("item " + i, expected, executed[i]);
+            if (i % 10 != 9 && i % 10 != 7) {
+                ECKey publicKey = new ECKey(publicKeys[i], true, false);
+                Assert.assertEquals(expected, new ECDSA(hashes[i], publicKey, "little").verify(signatures[i]));
+            }
+        }
+        Assert.assertEquals(0, new ECDSABatchVerifier("little").verify().length);
+    }
+}
@@ -0,0 +1,154 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.tx.TransactionSignature;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.DERSequenceGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+public class ECDSASignatureTest {
+
+    @Test
+    public void testMatchesBouncyCastle() throws Exception {
+
+        Random random = new Random(66);
+        byte[] buf = new byte[100];
+        for (int i = 0; i < 500; i++) {
+            //all magnitudes, with and without the top bit set
+            BigInteger r = new BigInteger(1 + random.nextInt(256), random);
+            BigInteger s = new BigInteger(1 + random.nextInt(256), random);
+            ECDSASignature signature = new ECDSASignature(r, s, true);
+            byte[] expected = bouncyCastleDER(r, s);
+
+            Assert.assertArrayEquals(expected, signature.toDER());
+            Assert.assertEquals(expected.length, signature.getDERLength());
+            int offset = random.nextInt(20);
+            Assert.assertEquals(expected.length + 1, signature.toDER(buf, offset, TransactionSignature.SIGHASH_ALL));
+            Assert.assertArrayEquals(expected, Arrays.copyOfRange(buf, offset, offset + expected.length));
+            Assert.assertEquals(TransactionSignature.SIGHASH_ALL, ECDSASignature.getSigType(buf, offset, expected.length + 1));
+
+            ECDSASignature parsed = ECDSASignature.fromDERWithSigType(buf, offset, expected.length + 1);
+            Assert.assertEquals(r, parsed.r);
+            Assert.assertEquals(s, parsed.s);
+        }
+    }
+
+    @Test
+    public void testSigType() throws Exception {
+
+        ECDSASignature signature = new ECDSASignature(BigInteger.ONE, BigInteger.valueOf(0x80), true);
+        //30 07 02 01 01 02 02 00 80, then the type
+        Assert.assertEquals("300702010102020080", ByteUtil.toHex(signature.toDER()));
+        Assert.assertEquals("30070201010202008081", ByteUtil.toHex(signature.toDER(0x81)));
+    }
+
+    @Test
+    public void testRejectsNonStrictEncodings() throws Exception {
+
+        String valid = "3006020101020101";
+        Assert.assertTrue(strict(valid));
+        Assert.assertEquals(BigInteger.ONE, ECDSASignature.fromDER(ByteUtil.fromHex(valid)).r);
+
+        String[] invalid = {
+                //too short
+                "30050201010201",
+                //not a sequence
+                "3106020101020101",
+                //sequence length does not match
+                "3007020101020101",
+                //r length runs past the end
+                "3006020901020101",
+                //s length does not match
+                "3006020101020201",
+                //r is not an integer
+                "3006030101020101",
+                //s is not an integer
+                "3006020101030101",
+                //empty r
+                "30050200020101",
+                //empty s
+                "30050201010200",
+                //negative r
+                "3006020181020101",
+                //negative s
+                "3006020101020181",
+                //r with an unnecessary leading zero
+                "300702020001020101",
+                //s with an unnecessary leading zero
+                "300702010102020001",
+                //trailing garbage
+                "300602010102010100",
+        };
+        for (String hex : invalid) {
+            Assert.assertFalse(hex, strict(hex));
+            try {
+                ECDSASignature.fromDER(ByteUtil.fromHex(hex));
+                Assert.fail(hex);
+            } catch (Exception e) {
+                Assert.assertTrue(e.getMessage().startsWith("Invalid DER signature"));
+            }
+        }
+        //a leading zero is required when the top bit is set
+        Assert.assertTrue(strict("300702020080020101"));
+        //too long
+        byte[] tooLong = new byte[73];
+        Assert.assertFalse(ECDSASignature.isStrictDER(tooLong, 0, tooLong.length));
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+
+        ECDSASignature signature = new ECDSASignature(BigInteger.ONE, BigInteger.valueOf(0x8000), true);
+        try {
+            signature.toCompact();
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Recovery id not known", e.getMessage());
+        }
+        signature.recId = 2;
+        byte[] compact = signature.toCompact();
+        Assert.assertEquals(ECDSASignature.COMPACT_LENGTH, compact.length);
+        Assert.assertEquals(27 + 2 + 4, compact[0]);
+        Assert.assertEquals(1, compact[32]);
+        Assert.assertEquals((byte) 0x80, compact[63]);
+
+        ECDSASignature parsed = ECDSASignature.fromCompact(compact);
+        Assert.assertEquals(signature.r, parsed.r);
+        Assert.assertEquals(signature.s, parsed.s);
+        Assert.assertEquals(2, parsed.recId);
+        Assert.assertTrue(parsed.compressed);
+
+        compact[0] = 27 + 3;
+        parsed = ECDSASignature.fromCompact(compact);
+        Assert.assertEquals(3, parsed.recId);
+        Assert.assertFalse(parsed.compressed);
+
+        compact[0] = 35;
+        try {
+            ECDSASignature.fromCompact(compact);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Invalid compact signature: header", e.getMessage());
+        }
+    }
+
+    private static boolean strict(String hex) {
+        byte[] der = ByteUtil.fromHex(hex);
+        return ECDSASignature.isStrictDER(der, 0, der.length);
+    }
+
+    private static byte[] bouncyCastleDER(BigInteger r, BigInteger s) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(72);
+        DERSequenceGenerator seq = new DERSequenceGenerator(bos);
+        seq.addObject(new ASN1Integer(r));
+        seq.addObject(new ASN1Integer(s));
+        seq.close();
+        return bos.toByteArray();
+    }
+}
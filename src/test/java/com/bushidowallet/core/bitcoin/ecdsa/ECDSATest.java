@@ -1,6 +1,7 @@
 package com.bushidowallet.core.bitcoin.ecdsa;
 
 import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.bip32.Hash;
 import com.bushidowallet.core.bitcoin.util.BigIntegerUtil;
 import com.bushidowallet.core.crypto.util.ByteUtil;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -42,4 +43,25 @@ public class ECDSATest {
         Assert.assertTrue(BigIntegerUtil.equal(expectedR, signature.r));
         Assert.assertTrue(BigIntegerUtil.equal(expectedS, signature.s));
     }
+
+    @Test
+    public void testRecoverPublicKey() throws Exception {
+
+        String[] wifs = { "L1rjeUY9ffkApft853udougq6y5eT3xbyoNPcMnkpzhZUQrui9cn", "5HueCGU8rMjxEXxiPuD5BDku4MkFqeZyd4dZ1jvhTVqvbTLvyTJ" };
+        for (String wif : wifs) {
+            ECKey key = ECKey.ECKeyParser.parse(wif);
+            for (int i = 0; i < 20; i++) {
+                byte[] hashbuf = Hash.hash(new byte[] { (byte) i });
+                ECDSASignature signature = new ECDSA(hashbuf, key, "little").sign();
+                Assert.assertTrue(signature.recId >= 0 && signature.recId <= 3);
+                ECKey recovered = ECDSA.recoverPublicKey(hashbuf, signature, "little");
+                Assert.assertArrayEquals(key.getPublic(), recovered.getPublic());
+
+                //the other parity gives another key, or none
+                signature.recId ^= 1;
+                recovered = ECDSA.recoverPublicKey(hashbuf, signature, "little");
+                Assert.assertTrue(recovered == null || !java.util.Arrays.equals(key.getPublic(), recovered.getPublic()));
+            }
+        }
+    }
 }
@@ -0,0 +1,115 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+public class FieldTest {
+
+    private static final BigInteger P = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE.shiftLeft(32)).subtract(BigInteger.valueOf(977));
+
+    @Test
+    public void testMatchesBigInteger() throws Exception {
+
+        Field field = new Field();
+        Random random = new Random(256);
+        int[] a = Field.create();
+        int[] b = Field.create();
+        int[] r = Field.create();
+        for (int i = 0; i < 1000; i++) {
+            BigInteger x = sample(random);
+            BigInteger y = sample(random);
+            Field.fromBigInteger(x, a);
+            Field.fromBigInteger(y, b);
+
+            Field.add(a, b, r);
+            Assert.assertEquals(x.add(y).mod(P), Field.toBigInteger(r));
+            Field.subtract(a, b, r);
+            Assert.assertEquals(x.subtract(y).mod(P), Field.toBigInteger(r));
+            Field.negate(a, r);
+            Assert.assertEquals(x.negate().mod(P), Field.toBigInteger(r));
+            field.multiply(a, b, r);
+            Assert.assertEquals(x.multiply(y).mod(P), Field.toBigInteger(r));
+            field.square(a, r);
+            Assert.assertEquals(x.multiply(x).mod(P), Field.toBigInteger(r));
+            if (x.signum() != 0) {
+                field.invert(a, r);
+                Assert.assertEquals(x.modInverse(P), Field.toBigInteger(r));
+            }
+        }
+    }
+
+    @Test
+    public void testOperandsMayBeResults() throws Exception {
+
+        Field field = new Field();
+        BigInteger x = P.subtract(BigInteger.valueOf(12345));
+        int[] a = Field.create();
+        Field.fromBigInteger(x, a);
+        field.multiply(a, a, a);
+        Assert.assertEquals(x.multiply(x).mod(P), Field.toBigInteger(a));
+        BigInteger y = Field.toBigInteger(a);
+        field.invert(a, a);
+        Assert.assertEquals(y.modInverse(P), Field.toBigInteger(a));
+        Field.add(a, a, a);
+        Assert.assertEquals(y.modInverse(P).shiftLeft(1).mod(P), Field.toBigInteger(a));
+    }
+
+    @Test
+    public void testSqrt() throws Exception {
+
+        Field field = new Field();
+        Random random = new Random(257);
+        int[] a = Field.create();
+        int[] r = Field.create();
+        int squares = 0;
+        for (int i = 0; i < 200; i++) {
+            BigInteger x = sample(random);
+            Field.fromBigInteger(x, a);
+            boolean square = field.sqrt(a, r);
+            //Euler's criterion
+            Assert.assertEquals(x.signum() == 0 || x.modPow(P.shiftRight(1), P).equals(BigInteger.ONE), square);
+            if (square) {
+                Assert.assertEquals(x, Field.toBigInteger(r).pow(2).mod(P));
+                squares++;
+            }
+            field.sqrt(a, a);
+            Assert.assertTrue(Field.equal(a, r));
+        }
+        Assert.assertTrue(squares > 0 && squares < 200);
+    }
+
+    @Test
+    public void testBytes() throws Exception {
+
+        byte[] bytes = new byte[32];
+        java.util.Arrays.fill(bytes, (byte) 0xff);
+        int[] a = Field.create();
+        //2^256 - 1 reduces to 2^32 + 976
+        Field.fromBytes(bytes, 0, a);
+        Assert.assertEquals(BigInteger.ONE.shiftLeft(32).add(BigInteger.valueOf(976)), Field.toBigInteger(a));
+
+        BigInteger x = new BigInteger("79be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798", 16);
+        Field.fromBigInteger(x, a);
+        byte[] encoded = new byte[33];
+        Field.toBytes(a, encoded, 1);
+        Assert.assertEquals(x, new BigInteger(encoded));
+        int[] b = Field.create();
+        Field.readBytes(encoded, 1, b);
+        Assert.assertTrue(Field.equal(a, b));
+    }
+
+    //random values, with a share of values next to 0 and p
+    private static BigInteger sample(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return BigInteger.valueOf(random.nextInt(3));
+            case 1:
+                return P.subtract(BigInteger.valueOf(1 + random.nextInt(3)));
+            default:
+                return new BigInteger(256, random).mod(P);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.Benchmark;
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+public class FixedBaseMultiplierBenchmark {
+
+    @Test
+    public void benchmarkGeneratorMultiplication() throws Exception {
+
+        final BigInteger[] scalars = new BigInteger[256];
+        Random random = new Random(1);
+        for (int i = 0; i < scalars.length; i++) {
+            scalars[i] = new BigInteger(256, random).mod(ECKey.params.getN());
+        }
+        final ECPoint g = ECKey.curve.getG();
+
+        long start = System.nanoTime();
+        FixedBaseMultiplier.precompute();
+        System.out.println(String.format("generator table built in %.1f ms", (System.nanoTime() - start) / 1e6));
+
+        double generic = Benchmark.run("G.multiply(k) (BouncyCastle)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                g.multiply(scalars[i & 0xff]).normalize();
+            }
+        });
+        double fixed = Benchmark.run("FixedBaseMultiplier.multiplyG(k)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                FixedBaseMultiplier.multiplyG(scalars[i & 0xff]);
+            }
+        });
+        System.out.println(String.format("speedup: %.2fx", generic / fixed));
+    }
+}
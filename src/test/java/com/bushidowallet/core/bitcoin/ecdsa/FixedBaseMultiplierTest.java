@@ -0,0 +1,38 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+public class FixedBaseMultiplierTest {
+
+    @Test
+    public void testMatchesGenericMultiplier() throws Exception {
+
+        BigInteger n = ECKey.params.getN();
+        BigInteger[] scalars = new BigInteger[] {
+                BigInteger.ONE,
+                BigInteger.valueOf(255),
+                BigInteger.valueOf(256),
+                n.subtract(BigInteger.ONE),
+                n.add(BigInteger.TEN),
+                BigInteger.ONE.shiftLeft(255)
+        };
+        for (BigInteger k : scalars) {
+            assertSamePoint(k);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 50; i++) {
+            assertSamePoint(new BigInteger(256, random));
+        }
+        Assert.assertTrue(FixedBaseMultiplier.multiplyG(BigInteger.ZERO).isInfinity());
+        Assert.assertTrue(FixedBaseMultiplier.multiplyG(n).isInfinity());
+    }
+
+    private void assertSamePoint(BigInteger k) {
+        Assert.assertTrue(ECKey.curve.getG().multiply(k).normalize().equals(FixedBaseMultiplier.multiplyG(k)));
+    }
+}
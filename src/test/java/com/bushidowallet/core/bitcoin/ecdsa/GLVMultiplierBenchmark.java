@@ -0,0 +1,64 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.Benchmark;
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.bouncycastle.asn1.sec.SECNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.Security;
+import java.util.Random;
+
+public class GLVMultiplierBenchmark {
+
+    @Test
+    public void benchmarkMultiplication() throws Exception {
+
+        Security.addProvider(new BouncyCastleProvider());
+        final X9ECParameters plain = SECNamedCurves.getByName("secp256k1");
+        final BigInteger n = plain.getN();
+        final BigInteger[] scalars = new BigInteger[256];
+        final ECPoint[] plainPoints = new ECPoint[256];
+        final ECPoint[] glvPoints = new ECPoint[256];
+        Random random = new Random(1);
+        for (int i = 0; i < scalars.length; i++) {
+            scalars[i] = new BigInteger(256, random).mod(n);
+            plainPoints[i] = plain.getG().multiply(new BigInteger(256, random).mod(n)).normalize();
+            glvPoints[i] = ECKey.curve.getCurve().decodePoint(plainPoints[i].getEncoded(true));
+        }
+        FixedBaseMultiplier.precompute();
+
+        double before = Benchmark.run("Q.multiply(k) (BouncyCastle WNAF)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                plainPoints[i & 0xff].multiply(scalars[i & 0xff]).normalize();
+            }
+        });
+        double after = Benchmark.run("Q.multiply(k) (GLV)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                glvPoints[i & 0xff].multiply(scalars[i & 0xff]).normalize();
+            }
+        });
+        System.out.println(String.format("variable-base speedup: %.2fx", before / after));
+
+        //verification equation u1*G + u2*Q, as computed before and after
+        double sumBefore = Benchmark.run("u1*G + u2*Q (sumOfTwoMultiplies)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                ECAlgorithms.sumOfTwoMultiplies(plain.getG(), scalars[i & 0xff], plainPoints[i & 0xff], scalars[(i + 1) & 0xff]).normalize();
+            }
+        });
+        double sumAfter = Benchmark.run("u1*G + u2*Q (fixed-base table + GLV)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                FixedBaseMultiplier.multiplyGProjective(scalars[i & 0xff]).add(glvPoints[i & 0xff].multiply(scalars[(i + 1) & 0xff])).normalize();
+            }
+        });
+        System.out.println(String.format("verification speedup: %.2fx", sumBefore / sumAfter));
+    }
+}
@@ -0,0 +1,64 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.asn1.sec.SECNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+public class GLVMultiplierTest {
+
+    private static final X9ECParameters plain = SECNamedCurves.getByName("secp256k1");
+
+    @Test
+    public void testEndomorphism() throws Exception {
+
+        ECPoint g = ECKey.curve.getG();
+        ECPoint phiG = plain.getCurve().createPoint(g.getAffineXCoord().multiply(ECKey.curve.getCurve().fromBigInteger(GLVMultiplier.BETA))
+                .toBigInteger(), g.getAffineYCoord().toBigInteger());
+        Assert.assertEquals(ByteUtil.toHex(phiG.getEncoded(true)), ByteUtil.toHex(plain.getG().multiply(GLVMultiplier.LAMBDA).normalize().getEncoded(true)));
+        Assert.assertTrue(ECKey.curve.getCurve().getMultiplier() instanceof GLVMultiplier);
+    }
+
+    @Test
+    public void testDecomposition() throws Exception {
+
+        BigInteger n = ECKey.params.getN();
+        Random random = new Random(14);
+        for (int i = 0; i < 1000; i++) {
+            BigInteger k = new BigInteger(256, random).mod(n);
+            BigInteger[] split = GLVMultiplier.decompose(k);
+            Assert.assertEquals(k, split[0].add(split[1].multiply(GLVMultiplier.LAMBDA)).mod(n));
+            Assert.assertTrue(split[0].abs().bitLength() <= 128);
+            Assert.assertTrue(split[1].abs().bitLength() <= 128);
+        }
+    }
+
+    @Test
+    public void testMatchesPlainMultiplication() throws Exception {
+
+        BigInteger n = ECKey.params.getN();
+        Random random = new Random(1);
+        BigInteger[] edges = new BigInteger[] { BigInteger.ONE, BigInteger.valueOf(2), n.subtract(BigInteger.ONE),
+                n, n.add(BigInteger.ONE), GLVMultiplier.LAMBDA, n.subtract(GLVMultiplier.LAMBDA), BigInteger.valueOf(-7),
+                BigInteger.ONE.shiftLeft(300).add(BigInteger.TEN) };
+        for (int i = 0; i < 40; i++) {
+            ECPoint base = plain.getG().multiply(new BigInteger(256, random).mod(n)).normalize();
+            ECPoint glvBase = ECKey.curve.getCurve().decodePoint(base.getEncoded(true));
+            BigInteger k = i < edges.length ? edges[i] : new BigInteger(256, random);
+            ECPoint expected = base.multiply(k).normalize();
+            ECPoint actual = glvBase.multiply(k).normalize();
+            Assert.assertEquals(expected.isInfinity(), actual.isInfinity());
+            if (!expected.isInfinity()) {
+                Assert.assertEquals(ByteUtil.toHex(expected.getEncoded(false)), ByteUtil.toHex(actual.getEncoded(false)));
+            }
+        }
+        Assert.assertTrue(ECKey.curve.getG().multiply(n).isInfinity());
+        Assert.assertTrue(ECKey.curve.getG().multiply(BigInteger.ZERO).isInfinity());
+    }
+}
@@ -0,0 +1,70 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.Security;
+
+public class PointCacheTest {
+
+    @BeforeClass
+    public static void init()
+    {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+
+        PointCache cache = new PointCache(2);
+        ECKey compressed = ECKey.ECKeyParser.parse("L1rjeUY9ffkApft853udougq6y5eT3xbyoNPcMnkpzhZUQrui9cn");
+        ECKey uncompressed = new ECKey(compressed.getPrivate(), false);
+
+        ECPoint point = cache.decode(compressed.getPublic());
+        Assert.assertEquals(FixedBaseMultiplier.multiplyG(compressed.getPriv()), point);
+        Assert.assertSame(point, cache.decode(compressed.getPublic().clone()));
+        Assert.assertEquals(point, cache.decode(uncompressed.getPublic()));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+
+        byte[] offCurve = uncompressed.getPublic().clone();
+        offCurve[64] ^= 0x01;
+        String[] invalid = new String[] { ByteUtil.toHex(offCurve), "00", "0201", ByteUtil.toHex(new byte[33]) };
+        for (String encoded : invalid) {
+            try {
+                cache.decode(ByteUtil.fromHex(encoded));
+                Assert.fail("Decoded invalid key " + encoded);
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(true);
+            }
+        }
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testVerificationUsesDefaultCache() throws Exception {
+
+        PointCache previous = PointCache.getDefault();
+        PointCache cache = new PointCache(16);
+        PointCache.setDefault(cache);
+        try {
+            ECKey key = ECKey.ECKeyParser.parse("L1rjeUY9ffkApft853udougq6y5eT3xbyoNPcMnkpzhZUQrui9cn");
+            byte[] hash = ByteUtil.fromHex("a9bc004bc083427ca43074b291d512770326766353bb8dff6b0fb954a985d9e8");
+            ECDSASignature signature = new ECDSA(hash, key, "little").sign();
+            for (int i = 0; i < 3; i++) {
+                ECKey publicKey = new ECKey(key.getPublic(), true, false);
+                Assert.assertTrue(new ECDSA(hash, publicKey, "little").verify(signature));
+            }
+            Assert.assertEquals(1, cache.getMisses());
+            Assert.assertEquals(2, cache.getHits());
+        } finally {
+            PointCache.setDefault(previous);
+        }
+    }
+}
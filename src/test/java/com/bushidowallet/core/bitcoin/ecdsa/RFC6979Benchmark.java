@@ -0,0 +1,41 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.Benchmark;
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Test;
+
+import java.security.Security;
+
+public class RFC6979Benchmark {
+
+    @Test
+    public void benchmarkNonce() throws Exception {
+
+        Security.addProvider(new BouncyCastleProvider());
+        final ECKey key = ECKey.ECKeyParser.parse("L1rjeUY9ffkApft853udougq6y5eT3xbyoNPcMnkpzhZUQrui9cn");
+        final byte[] priv = key.getPrivate();
+        final byte[] hash = ByteUtil.fromHex("a9bc004bc083427ca43074b291d512770326766353bb8dff6b0fb954a985d9e8");
+
+        double reference = Benchmark.run("deterministicK (Hash/JCA per HMAC)", 2000, 10000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                RFC6979Test.referenceK(priv, hash, 0);
+            }
+        });
+        double cached = Benchmark.run("RFC6979.generateK", 2000, 10000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                RFC6979.generateK(priv, hash, 0);
+            }
+        });
+        System.out.println(String.format("speedup: %.2fx", reference / cached));
+        Benchmark.run("ECDSA.sign", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                new ECDSA(hash, key, "little").sign();
+            }
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.bip32.Hash;
+import com.bushidowallet.core.bitcoin.util.BigIntegerUtil;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.Random;
+
+public class RFC6979Test {
+
+    @BeforeClass
+    public static void init()
+    {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testMatchesReference() throws Exception {
+
+        Random random = new Random(6979);
+        for (int i = 0; i < 50; i++) {
+            byte[] priv = new byte[32];
+            byte[] hash = new byte[32];
+            random.nextBytes(priv);
+            random.nextBytes(hash);
+            for (int badrs = 0; badrs < 3; badrs++) {
+                Assert.assertEquals(referenceK(priv, hash, badrs), RFC6979.generateK(priv, hash, badrs));
+            }
+        }
+
+        ECKey key = ECKey.ECKeyParser.parse("L1rjeUY9ffkApft853udougq6y5eT3xbyoNPcMnkpzhZUQrui9cn");
+        byte[] hash = ByteUtil.fromHex("a9bc004bc083427ca43074b291d512770326766353bb8dff6b0fb954a985d9e8");
+        Assert.assertEquals(referenceK(key.getPrivate(), hash, 0), RFC6979.generateK(key.getPrivate(), hash, 0));
+    }
+
+    /**
+     * The original nonce generation of ECDSA, kept as the reference generateK must match bit for bit
+     */
+    static BigInteger referenceK(byte[] x, byte[] hashbuf, int badrs) throws Exception {
+        byte[] v = new byte[32];
+        Arrays.fill(v, (byte) 0x01);
+        byte[] k = new byte[32];
+
+        byte[] d1 = new byte[v.length + 1 + x.length + hashbuf.length];
+        System.arraycopy(v, 0, d1, 0, v.length);
+        d1[v.length] = 0x00;
+        System.arraycopy(x, 0, d1, v.length + 1, x.length);
+        System.arraycopy(hashbuf, 0, d1, v.length + 1 + x.length, hashbuf.length);
+
+        k = new Hash(d1).getHmacSHA256(k);
+        v = new Hash(v).getHmacSHA256(k);
+
+        byte[] d2 = new byte[v.length + 1 + x.length + hashbuf.length];
+        System.arraycopy(v, 0, d2, 0, v.length);
+        d2[v.length] = 0x01;
+        System.arraycopy(x, 0, d2, v.length + 1, x.length);
+        System.arraycopy(hashbuf, 0, d2, v.length + 1 + x.length, hashbuf.length);
+
+        k = new Hash(d2).getHmacSHA256(k);
+        v = new Hash(v).getHmacSHA256(k);
+        v = new Hash(v).getHmacSHA256(k);
+
+        BigInteger T = BigIntegerUtil.fromBytes(v, 16, null);
+        BigInteger N = ECKey.params.getN();
+
+        for (int i = 0; i < badrs || !(T.compareTo(N) == -1 && T.compareTo(BigInteger.ZERO) == 1); i++) {
+            byte[] d3 = new byte[v.length + 1];
+            System.arraycopy(v, 0, d3, 0, v.length);
+            d3[v.length] = 0x00;
+
+            k = new Hash(d3).getHmacSHA256(k);
+            v = new Hash(v).getHmacSHA256(k);
+            v = new Hash(v).getHmacSHA256(k);
+            T = BigIntegerUtil.fromBytes(v, 16, null);
+        }
+        return T;
+    }
+}
@@ -0,0 +1,104 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.Security;
+import java.util.Random;
+
+public class ScalarTest {
+
+    @BeforeClass
+    public static void init()
+    {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testMatchesBigInteger() throws Exception {
+
+        BigInteger n = ECKey.params.getN();
+        Scalar scalar = new Scalar();
+        Random random = new Random(512);
+        int[] a = Field.create();
+        int[] b = Field.create();
+        int[] r = Field.create();
+        for (int i = 0; i < 1000; i++) {
+            BigInteger x = sample(random, n);
+            BigInteger y = sample(random, n);
+            Field.fromBigInteger(x, a);
+            Field.fromBigInteger(y, b);
+
+            Scalar.add(a, b, r);
+            Assert.assertEquals(x.add(y).mod(n), Field.toBigInteger(r));
+            Scalar.negate(a, r);
+            Assert.assertEquals(x.negate().mod(n), Field.toBigInteger(r));
+            scalar.multiply(a, b, r);
+            Assert.assertEquals(x.multiply(y).mod(n), Field.toBigInteger(r));
+            Assert.assertEquals(x.compareTo(n.shiftRight(1)) > 0, Scalar.isHigh(a));
+            if (x.signum() != 0) {
+                scalar.invert(a, r);
+                Assert.assertEquals(x.modInverse(n), Field.toBigInteger(r));
+            }
+        }
+    }
+
+    @Test
+    public void testFromHash() throws Exception {
+
+        BigInteger n = ECKey.params.getN();
+        byte[] hash = new byte[32];
+        java.util.Arrays.fill(hash, (byte) 0xff);
+        hash[0] = 0x01;
+        int[] r = Field.create();
+        Scalar.fromHash(hash, false, r);
+        Assert.assertEquals(new BigInteger(1, hash).mod(n), Field.toBigInteger(r));
+        Scalar.fromHash(hash, true, r);
+        byte[] reversed = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            reversed[i] = hash[31 - i];
+        }
+        Assert.assertEquals(new BigInteger(1, reversed).mod(n), Field.toBigInteger(r));
+    }
+
+    @Test
+    public void testSplit() throws Exception {
+
+        BigInteger n = ECKey.params.getN();
+        Scalar scalar = new Scalar();
+        Random random = new Random(384);
+        int[] k = Field.create();
+        int[] k1 = Field.create();
+        int[] k2 = Field.create();
+        for (int i = 0; i < 1000; i++) {
+            BigInteger x = sample(random, n);
+            Field.fromBigInteger(x, k);
+            scalar.split(k, k1, k2);
+            BigInteger a = signed(k1, n);
+            BigInteger b = signed(k2, n);
+            Assert.assertEquals(x, a.add(b.multiply(GLVMultiplier.LAMBDA)).mod(n));
+            Assert.assertTrue(a.abs().bitLength() <= 129);
+            Assert.assertTrue(b.abs().bitLength() <= 129);
+        }
+    }
+
+    private static BigInteger signed(int[] a, BigInteger n) {
+        BigInteger x = Field.toBigInteger(a);
+        return Scalar.isHigh(a) ? x.subtract(n) : x;
+    }
+
+    private static BigInteger sample(Random random, BigInteger n) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return BigInteger.valueOf(random.nextInt(3));
+            case 1:
+                return n.subtract(BigInteger.valueOf(1 + random.nextInt(3)));
+            default:
+                return new BigInteger(256, random).mod(n);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.Benchmark;
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SchnorrBatchVerifierBenchmark {
+
+    private static final int BATCH = 1024;
+
+    @Test
+    public void benchmarkVerification() throws Exception {
+
+        Security.addProvider(new BouncyCastleProvider());
+        Random random = new Random(1);
+        final byte[][] publicKeys = new byte[BATCH][];
+        final byte[][] messages = new byte[BATCH][];
+        final byte[][] signatures = new byte[BATCH][];
+        final SchnorrBatchVerifier verifier = new SchnorrBatchVerifier();
+        for (int i = 0; i < BATCH; i++) {
+            byte[] priv = new byte[32];
+            random.nextBytes(priv);
+            ECKey key = new ECKey(priv, true);
+            publicKeys[i] = key.getXOnlyPublic();
+            messages[i] = new byte[32];
+            random.nextBytes(messages[i]);
+            signatures[i] = key.signSchnorr(messages[i], new byte[32]);
+            verifier.add(publicKeys[i], messages[i], signatures[i]);
+        }
+
+        double single = Benchmark.run("Schnorr.verify", 1000, 3000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                int j = i % BATCH;
+                Schnorr.verify(publicKeys[j], messages[j], signatures[j]);
+            }
+        });
+        //one thread, as the single verifications
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        double batch;
+        try {
+            batch = Benchmark.run("SchnorrBatchVerifier.verify (" + BATCH + " signatures, 1 thread)", 3, 10, new Benchmark.Task() {
+                @Override
+                public void run(int i) throws Exception {
+                    verifier.verify(executor);
+                }
+            }) / BATCH;
+        } finally {
+            executor.shutdown();
+        }
+        System.out.println(String.format("per signature: single %.1f us, batch %.1f us, %.2fx",
+                single / 1000, batch / 1000, single / batch));
+    }
+}
@@ -0,0 +1,93 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SchnorrBatchVerifierTest {
+
+    @BeforeClass
+    public static void init() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+
+        Random random = new Random(340);
+        int count = 300;
+        byte[][] publicKeys = new byte[count][];
+        byte[][] messages = new byte[count][];
+        byte[][] signatures = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            byte[] priv = new byte[32];
+            random.nextBytes(priv);
+            ECKey key = new ECKey(priv, true);
+            messages[i] = new byte[i % 3 == 0 ? 32 : i % 50];
+            random.nextBytes(messages[i]);
+            publicKeys[i] = key.getXOnlyPublic();
+            signatures[i] = key.signSchnorr(messages[i], new byte[32]);
+        }
+        Assert.assertTrue(batch(publicKeys, messages, signatures).verify());
+        Assert.assertTrue(new SchnorrBatchVerifier().verify());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Assert.assertTrue(batch(publicKeys, messages, signatures).verify(executor));
+
+            //one bad signature fails the batch, wherever it is
+            for (int bad : new int[] { 0, 1, 200, count - 1 }) {
+                byte[] signature = signatures[bad];
+                signatures[bad] = signature.clone();
+                signatures[bad][40] ^= 1;
+                Assert.assertFalse(batch(publicKeys, messages, signatures).verify());
+                Assert.assertFalse(batch(publicKeys, messages, signatures).verify(executor));
+                signatures[bad] = signature;
+            }
+            //a signature valid for another key, or a malformed item
+            byte[] publicKey = publicKeys[7];
+            publicKeys[7] = publicKeys[8];
+            Assert.assertFalse(batch(publicKeys, messages, signatures).verify());
+            publicKeys[7] = new byte[31];
+            Assert.assertFalse(batch(publicKeys, messages, signatures).verify(executor));
+            publicKeys[7] = publicKey;
+            Assert.assertTrue(batch(publicKeys, messages, signatures).verify());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSwappedSignatures() throws Exception {
+
+        //two invalid equations must not cancel out: (R1, s2) and (R2, s1) of the same key and message
+        ECKey key = new ECKey(new byte[] { 1, 2, 3 }, true);
+        byte[] message = new byte[32];
+        byte[] signature1 = key.signSchnorr(message, new byte[32]);
+        byte[] signature2 = key.signSchnorr(message, new byte[] { 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 });
+        byte[] swapped1 = signature1.clone();
+        byte[] swapped2 = signature2.clone();
+        System.arraycopy(signature2, 32, swapped1, 32, 32);
+        System.arraycopy(signature1, 32, swapped2, 32, 32);
+        SchnorrBatchVerifier verifier = new SchnorrBatchVerifier()
+                .add(key.getXOnlyPublic(), message, swapped1)
+                .add(key.getXOnlyPublic(), message, swapped2);
+        Assert.assertEquals(2, verifier.size());
+        Assert.assertFalse(verifier.verify());
+    }
+
+    private static SchnorrBatchVerifier batch(byte[][] publicKeys, byte[][] messages, byte[][] signatures) {
+        SchnorrBatchVerifier verifier = new SchnorrBatchVerifier();
+        for (int i = 0; i < publicKeys.length; i++) {
+            verifier.add(publicKeys[i], messages[i], signatures[i]);
+        }
+        return verifier;
+    }
+}
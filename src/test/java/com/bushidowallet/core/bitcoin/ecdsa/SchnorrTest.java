@@ -0,0 +1,142 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.Security;
+
+public class SchnorrTest {
+
+    //BIP340 test vectors: secret key, public key, aux rand, message, signature
+    private static final String[][] VECTORS = {
+            { "0000000000000000000000000000000000000000000000000000000000000003",
+              "F9308A019258C31049344F85F89D5229B531C845836F99B08601F113BCE036F9",
+              "0000000000000000000000000000000000000000000000000000000000000000",
+              "0000000000000000000000000000000000000000000000000000000000000000",
+              "E907831F80848D1069A5371B402410364BDF1C5F8307B0084C55F1CE2DCA821525F66A4A85EA8B71E482A74F382D2CE5EBEEE8FDB2172F477DF4900D310536C0" },
+            { "B7E151628AED2A6ABF7158809CF4F3C762E7160F38B4DA56A784D9045190CFEF",
+              "DFF1D77F2A671C5F36183726DB2341BE58FEAE1DA2DECED843240F7B502BA659",
+              "0000000000000000000000000000000000000000000000000000000000000001",
+              "243F6A8885A308D313198A2E03707344A4093822299F31D0082EFA98EC4E6C89",
+              "6896BD60EEAE296DB48A229FF71DFE071BDE413E6D43F917DC8DCF8C78DE33418906D11AC976ABCCB20B091292BFF4EA897EFCB639EA871CFA95F6DE339E4B0A" },
+            { "C90FDAA22168C234C4C6628B80DC1CD129024E088A67CC74020BBEA63B14E5C9",
+              "DD308AFEC5777E13121FA72B9CC1B7CC0139715309B086C960E18FD969774EB8",
+              "C87AA53824B4D7AE2EB035A2B5BBBCCC080E76CDC6D1692C4B0B62D798E6D906",
+              "7E2D58D8B3BCDF1ABADEC7829054F90DDA9805AAB56C77333024B9D0A508B75C",
+              "5831AAEED7B44BB74E5EAB94BA9D4294C49BCF2A60728D8B4C200F50DD313C1BAB745879A5AD954A72C45A91C3A51D3C7ADEA98D82F8481E0E1E03674A6F3FB7" },
+            { "0B432B2677937381AEF05BB02A66ECD012773062CF3FA2549E44F58ED2401710",
+              "25D1DFF95105F5253C4022F628A996AD3A0D95FBF21D468A1B33F8C160D8F517",
+              "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF",
+              "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF",
+              "7EB0509757E246F19449885651611CB965ECC1A187DD51B64FDA1EDC9637D5EC97582B9CB13DB3933705B32BA982AF5AF25FD78881EBB32771FC5922EFC66EA3" }
+    };
+
+    @BeforeClass
+    public static void init() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testSignVectors() throws Exception {
+
+        for (String[] vector : VECTORS) {
+            ECKey key = new ECKey(ByteUtil.fromHex(vector[0]), true);
+            byte[] message = ByteUtil.fromHex(vector[3]);
+            Assert.assertEquals(vector[1], ByteUtil.toHex(key.getXOnlyPublic()).toUpperCase());
+            byte[] signature = key.signSchnorr(message, ByteUtil.fromHex(vector[2]));
+            Assert.assertEquals(vector[4], ByteUtil.toHex(signature).toUpperCase());
+            Assert.assertTrue(key.verifySchnorr(message, signature));
+            Assert.assertTrue(Schnorr.verify(ByteUtil.fromHex(vector[1]), message, signature));
+        }
+    }
+
+    @Test
+    public void testVerifyVectors() throws Exception {
+
+        //BIP340 vector 4, r has leading zero bytes
+        Assert.assertTrue(Schnorr.verify(
+                ByteUtil.fromHex("D69C3509BB99E412E68B0FE8544E72837DFA30746D8BE2AA65975F29D22DC7B9"),
+                ByteUtil.fromHex("4DF3C3F68FCC83B27E9D42C90431A72499F17875C81A599B566C9889B9696703"),
+                ByteUtil.fromHex("00000000000000000000003B78CE563F89A0ED9414F5AA28AD0D96D6795F9C6376AFB1548AF603B3EB45C9F8207DEE1060CB71C04E80F593060B07D28308D7F4")));
+    }
+
+    @Test
+    public void testRejects() throws Exception {
+
+        String[] vector = VECTORS[1];
+        byte[] publicKey = ByteUtil.fromHex(vector[1]);
+        byte[] message = ByteUtil.fromHex(vector[3]);
+        byte[] signature = ByteUtil.fromHex(vector[4]);
+        Assert.assertTrue(Schnorr.verify(publicKey, message, signature));
+
+        byte[] otherMessage = message.clone();
+        otherMessage[31] ^= 1;
+        Assert.assertFalse(Schnorr.verify(publicKey, otherMessage, signature));
+        //negated s, i.e. R with an odd y
+        byte[] negated = signature.clone();
+        BigInteger s = new BigInteger(1, ByteUtil.fromHex(vector[4].substring(64)));
+        System.arraycopy(toBytes32(ECKey.params.getN().subtract(s)), 0, negated, 32, 32);
+        Assert.assertFalse(Schnorr.verify(publicKey, message, negated));
+        //r = p, s = n
+        byte[] outOfRange = signature.clone();
+        System.arraycopy(toBytes32(Field.toBigInteger(Field.P)), 0, outOfRange, 0, 32);
+        Assert.assertFalse(Schnorr.verify(publicKey, message, outOfRange));
+        outOfRange = signature.clone();
+        System.arraycopy(toBytes32(ECKey.params.getN()), 0, outOfRange, 32, 32);
+        Assert.assertFalse(Schnorr.verify(publicKey, message, outOfRange));
+        //x = 5 is not on the curve
+        Assert.assertFalse(Schnorr.verify(toBytes32(BigInteger.valueOf(5)), message, signature));
+        Assert.assertFalse(Schnorr.verify(toBytes32(Field.toBigInteger(Field.P).add(BigInteger.ONE)), message, signature));
+        //malformed lengths
+        Assert.assertFalse(Schnorr.verify(ByteUtil.fromHex("02" + vector[1]), message, signature));
+        Assert.assertFalse(Schnorr.verify(publicKey, message, new byte[63]));
+    }
+
+    @Test
+    public void testMessageLengths() throws Exception {
+
+        ECKey key = new ECKey(ByteUtil.fromHex("0000000000000000000000000000000000000000000000000000000000000003"), true);
+        byte[] aux = new byte[32];
+        Assert.assertEquals("f04c3b354634ae5d1a8987e082de50298a545f63fefdabc027c6013519c5c60e2c71b79e5dfd0f457dc379e935fd8a61da7b8c609c3f61a84b25dec1f1ea7821",
+                ByteUtil.toHex(key.signSchnorr(new byte[0], aux)));
+        byte[] message = new byte[100];
+        for (int i = 0; i < message.length; i++) {
+            message[i] = (byte) i;
+        }
+        byte[] signature = key.signSchnorr(message, aux);
+        Assert.assertEquals("499bfb7e1e20aa992c6638547e5689c9718a3f77aac8f8dd4c02f7b1e4483756035a29fab28b80c377bfb4ff5e23023182b10f72520c713688d099fcb9b0e11a",
+                ByteUtil.toHex(signature));
+        Assert.assertTrue(key.verifySchnorr(message, signature));
+        //fresh randomness gives another valid signature
+        byte[] randomized = key.signSchnorr(message);
+        Assert.assertFalse(ByteUtil.toHex(signature).equals(ByteUtil.toHex(randomized)));
+        Assert.assertTrue(key.verifySchnorr(message, randomized));
+    }
+
+    @Test
+    public void testTaggedHash() throws Exception {
+
+        TaggedHash tagged = new TaggedHash("BIP0340/challenge");
+        byte[] data = ByteUtil.fromHex("0102030405");
+        java.security.MessageDigest sha256 = java.security.MessageDigest.getInstance("SHA-256");
+        byte[] tag = sha256.digest("BIP0340/challenge".getBytes("UTF-8"));
+        sha256.update(tag);
+        sha256.update(tag);
+        sha256.update(data);
+        Assert.assertArrayEquals(sha256.digest(), tagged.hash(data));
+        Assert.assertArrayEquals(tagged.hash(data), tagged.hash(ByteUtil.fromHex("0102"), ByteUtil.fromHex("030405")));
+    }
+
+    private static byte[] toBytes32(BigInteger value) {
+        byte[] bytes = new byte[32];
+        byte[] magnitude = value.toByteArray();
+        int length = Math.min(32, magnitude.length);
+        System.arraycopy(magnitude, magnitude.length - length, bytes, 32 - length, length);
+        return bytes;
+    }
+}
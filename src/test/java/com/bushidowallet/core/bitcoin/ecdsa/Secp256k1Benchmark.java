@@ -0,0 +1,99 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.Benchmark;
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.security.Security;
+import java.util.Random;
+
+public class Secp256k1Benchmark {
+
+    @Test
+    public void benchmarkSignAndVerify() throws Exception {
+
+        Security.addProvider(new BouncyCastleProvider());
+        final ECKey[] keys = new ECKey[64];
+        final byte[][] hashes = new byte[64][32];
+        final ECDSASignature[] signatures = new ECDSASignature[64];
+        Random random = new Random(1);
+        for (int i = 0; i < keys.length; i++) {
+            byte[] priv = new byte[32];
+            random.nextBytes(priv);
+            random.nextBytes(hashes[i]);
+            keys[i] = new ECKey(priv, true);
+            signatures[i] = new ECDSA(hashes[i], keys[i], "little").sign();
+        }
+        FixedBaseMultiplier.precompute();
+
+        double signBefore = Benchmark.run("sign (BigInteger)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                bigIntegerSign(keys[i & 63], hashes[i & 63]);
+            }
+        });
+        double signAfter = Benchmark.run("sign (Field/Scalar)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                new ECDSA(hashes[i & 63], keys[i & 63], "little").sign();
+            }
+        });
+        System.out.println(String.format("signing speedup: %.2fx", signBefore / signAfter));
+
+        double verifyBefore = Benchmark.run("verify (BigInteger)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                bigIntegerVerify(keys[i & 63].getPoint(), hashes[i & 63], signatures[i & 63]);
+            }
+        });
+        double verifyAfter = Benchmark.run("verify (Field/Scalar)", 500, 2000, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                new ECDSA(hashes[i & 63], keys[i & 63], "little").verify(signatures[i & 63]);
+            }
+        });
+        System.out.println(String.format("verification speedup: %.2fx", verifyBefore / verifyAfter));
+
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            long thread = Thread.currentThread().getId();
+            long start = allocations.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 1000; i++) {
+                bigIntegerSign(keys[i & 63], hashes[i & 63]);
+            }
+            long middle = allocations.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 1000; i++) {
+                Secp256k1.sign(keys[i & 63].getPriv(), hashes[i & 63], true, true);
+            }
+            long end = allocations.getThreadAllocatedBytes(thread);
+            System.out.println(String.format("bytes allocated per signature: %d (BigInteger), %d (Field/Scalar)",
+                    (middle - start) / 1000, (end - middle) / 1000));
+        }
+    }
+
+    //signing as ECDSA did before the limb arithmetic
+    private static ECDSASignature bigIntegerSign(ECKey key, byte[] hashbuf) {
+        BigInteger n = ECKey.params.getN();
+        BigInteger e = new BigInteger(1, ByteUtil.reverseBytes(hashbuf));
+        BigInteger k = RFC6979.generateK(key.getPrivate(), hashbuf, 0);
+        BigInteger r = FixedBaseMultiplier.multiplyG(k).getAffineXCoord().toBigInteger().mod(n);
+        BigInteger s = k.modInverse(n).multiply(e.add(key.getPriv().multiply(r))).mod(n);
+        BigInteger half = new BigInteger("7FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF5D576E7357A4501DDFE92F46681B20A0", 16);
+        return new ECDSASignature(r, s.compareTo(half) > 0 ? n.subtract(s) : s, true);
+    }
+
+    private static boolean bigIntegerVerify(ECPoint q, byte[] hashbuf, ECDSASignature signature) {
+        BigInteger n = ECKey.params.getN();
+        BigInteger e = new BigInteger(1, ByteUtil.reverseBytes(hashbuf));
+        BigInteger sinv = signature.s.modInverse(n);
+        ECPoint p = FixedBaseMultiplier.multiplyGProjective(sinv.multiply(e).mod(n))
+                .add(q.multiply(sinv.multiply(signature.r).mod(n))).normalize();
+        return !p.isInfinity() && p.getAffineXCoord().toBigInteger().mod(n).equals(signature.r);
+    }
+}
@@ -0,0 +1,198 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECFieldElement;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.Security;
+import java.util.Random;
+
+public class Secp256k1Test {
+
+    @BeforeClass
+    public static void init()
+    {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testSignMatchesReference() throws Exception {
+
+        Random random = new Random(15);
+        for (int i = 0; i < 50; i++) {
+            byte[] priv = new byte[32];
+            byte[] hash = new byte[32];
+            random.nextBytes(priv);
+            random.nextBytes(hash);
+            ECKey key = new ECKey(priv, true);
+            for (String endian : new String[] { "little", "big" }) {
+                ECDSASignature expected = referenceSign(key, hash, endian);
+                ECDSASignature signature = new ECDSA(hash, key, endian).sign();
+                Assert.assertEquals(expected.r, signature.r);
+                Assert.assertEquals(expected.s, signature.s);
+                Assert.assertTrue(new ECDSA(hash, key, endian).verify(signature));
+                Assert.assertTrue(referenceVerify(key.getPoint(), hash, endian, signature));
+            }
+        }
+    }
+
+    @Test
+    public void testVerifyRejects() throws Exception {
+
+        Random random = new Random(16);
+        BigInteger n = ECKey.params.getN();
+        for (int i = 0; i < 20; i++) {
+            byte[] priv = new byte[32];
+            byte[] hash = new byte[32];
+            random.nextBytes(priv);
+            random.nextBytes(hash);
+            ECKey key = new ECKey(priv, true);
+            ECDSASignature signature = new ECDSA(hash, key, "little").sign();
+            ECKey other = new ECKey(ByteUtil.fromHex(key.getPublicHex()), true, false);
+
+            byte[] tampered = hash.clone();
+            tampered[random.nextInt(32)] ^= 1 << random.nextInt(8);
+            Assert.assertFalse(new ECDSA(tampered, other, "little").verify(signature));
+            Assert.assertFalse(new ECDSA(hash, other, "big").verify(signature));
+            ECDSASignature otherR = new ECDSASignature(signature.r.add(BigInteger.ONE).mod(n), signature.s, true);
+            Assert.assertFalse(new ECDSA(hash, other, "little").verify(otherR));
+            ECDSASignature otherS = new ECDSASignature(signature.r, signature.s.add(BigInteger.ONE).mod(n), true);
+            Assert.assertFalse(new ECDSA(hash, other, "little").verify(otherS));
+            //high S is accepted, as before
+            ECDSASignature highS = new ECDSASignature(signature.r, n.subtract(signature.s), true);
+            Assert.assertTrue(new ECDSA(hash, other, "little").verify(highS));
+        }
+    }
+
+    @Test
+    public void testVerifyLargeX() throws Exception {
+
+        //a nonce point R with n <= x < p, so r = x - n; the signature is made valid by solving for the public key
+        BigInteger n = ECKey.params.getN();
+        ECCurve curve = ECKey.curve.getCurve();
+        ECPoint point = null;
+        for (BigInteger x = n.add(BigInteger.ONE); point == null; x = x.add(BigInteger.ONE)) {
+            ECFieldElement fx = curve.fromBigInteger(x);
+            ECFieldElement y = fx.square().multiply(fx).add(curve.getB()).sqrt();
+            if (y != null) {
+                point = curve.createPoint(x, y.toBigInteger());
+            }
+        }
+        BigInteger r = point.getAffineXCoord().toBigInteger().mod(n);
+        BigInteger s = new BigInteger("1234567890abcdef", 16);
+        byte[] hash = ByteUtil.fromHex("a9bc004bc083427ca43074b291d512770326766353bb8dff6b0fb954a985d9e8");
+        BigInteger e = new BigInteger(1, hash);
+        //Q = (s*R - e*G) / r
+        ECPoint q = point.multiply(s).subtract(ECKey.curve.getG().multiply(e)).multiply(r.modInverse(n)).normalize();
+        ECKey key = new ECKey(q.getEncoded(true), true, false);
+        ECDSASignature signature = new ECDSASignature(r, s, true);
+        Assert.assertTrue(referenceVerify(q, hash, "big", signature));
+        Assert.assertTrue(new ECDSA(hash, key, "big").verify(signature));
+        Assert.assertFalse(new ECDSA(hash, key, "big").verify(new ECDSASignature(r.add(BigInteger.ONE), s, true)));
+    }
+
+    @Test
+    public void testMultiplyMatchesBouncyCastle() throws Exception {
+
+        Secp256k1.Context context = new Secp256k1.Context();
+        Field field = new Field();
+        Random random = new Random(17);
+        BigInteger n = ECKey.params.getN();
+        int[] k = Field.create();
+        int[] x = Field.create();
+        int[] y = Field.create();
+        Secp256k1.Jacobian result = new Secp256k1.Jacobian();
+        for (int i = 0; i < 100; i++) {
+            BigInteger scalar = i < 3 ? BigInteger.valueOf(i + 1) : new BigInteger(256, random).mod(n);
+            Field.fromBigInteger(scalar, k);
+            context.multiplyG(k, result);
+            assertEquals(ECKey.curve.getG().multiply(scalar).normalize(), result, field);
+
+            ECPoint q = ECKey.curve.getG().multiply(new BigInteger(256, random).mod(n)).normalize();
+            Field.fromBigInteger(q.getAffineXCoord().toBigInteger(), x);
+            Field.fromBigInteger(q.getAffineYCoord().toBigInteger(), y);
+            context.multiply(x, y, k, result);
+            assertEquals(q.multiply(scalar).normalize(), result, field);
+        }
+        Field.setInt(0, k);
+        context.multiplyG(k, result);
+        Assert.assertTrue(result.infinity);
+    }
+
+    @Test
+    public void testWindowNaf() throws Exception {
+
+        Random random = new Random(18);
+        int[] k = Field.create();
+        int[] naf = new int[262];
+        for (int i = 0; i < 200; i++) {
+            BigInteger scalar = new BigInteger(i < 100 ? 256 : 129, random);
+            Field.fromBigInteger(scalar, k);
+            int length = Secp256k1.Context.windowNaf(k, naf);
+            BigInteger value = BigInteger.ZERO;
+            for (int j = length - 1; j >= 0; j--) {
+                value = value.shiftLeft(1).add(BigInteger.valueOf(naf[j]));
+                Assert.assertTrue(naf[j] == 0 || (Math.abs(naf[j]) % 2 == 1 && Math.abs(naf[j]) < 16));
+            }
+            Assert.assertEquals(scalar, value);
+        }
+    }
+
+    private static void assertEquals(ECPoint expected, Secp256k1.Jacobian actual, Field field) {
+        Assert.assertFalse(actual.infinity);
+        int[] zinv = Field.create();
+        int[] coordinate = Field.create();
+        field.invert(actual.z, zinv);
+        field.square(zinv, coordinate);
+        field.multiply(actual.x, coordinate, coordinate);
+        Assert.assertEquals(expected.getAffineXCoord().toBigInteger(), Field.toBigInteger(coordinate));
+        field.square(zinv, coordinate);
+        field.multiply(coordinate, zinv, coordinate);
+        field.multiply(actual.y, coordinate, coordinate);
+        Assert.assertEquals(expected.getAffineYCoord().toBigInteger(), Field.toBigInteger(coordinate));
+    }
+
+    /**
+     * The original BigInteger signing of ECDSA, kept as the reference the limb arithmetic must match
+     */
+    static ECDSASignature referenceSign(ECKey key, byte[] hashbuf, String endian) throws Exception {
+        BigInteger N = ECKey.params.getN();
+        BigInteger e = toBigInteger(hashbuf, endian);
+        BigInteger d = key.getPriv();
+        int badrs = 0;
+        BigInteger r;
+        BigInteger s;
+        do {
+            BigInteger k = RFC6979Test.referenceK(key.getPrivate(), hashbuf, badrs);
+            badrs++;
+            ECPoint Q = ECKey.curve.getG().multiply(k).normalize();
+            r = Q.getAffineXCoord().toBigInteger().mod(N);
+            s = k.modInverse(N).multiply(e.add(d.multiply(r))).mod(N);
+        } while (r.signum() <= 0 || s.signum() <= 0);
+        if (s.compareTo(N.shiftRight(1)) > 0) {
+            s = N.subtract(s);
+        }
+        return new ECDSASignature(r, s, key.isCompressed());
+    }
+
+    static boolean referenceVerify(ECPoint q, byte[] hashbuf, String endian, ECDSASignature signature) {
+        BigInteger n = ECKey.params.getN();
+        BigInteger e = toBigInteger(hashbuf, endian);
+        BigInteger sinv = signature.s.modInverse(n);
+        ECPoint p = ECAlgorithms.sumOfTwoMultiplies(ECKey.curve.getG(), sinv.multiply(e).mod(n),
+                q, sinv.multiply(signature.r).mod(n)).normalize();
+        return !p.isInfinity() && p.getAffineXCoord().toBigInteger().mod(n).equals(signature.r);
+    }
+
+    private static BigInteger toBigInteger(byte[] hashbuf, String endian) {
+        return new BigInteger(1, endian.equals("little") ? ByteUtil.reverseBytes(hashbuf) : hashbuf);
+    }
+}
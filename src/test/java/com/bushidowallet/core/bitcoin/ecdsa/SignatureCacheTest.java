@@ -0,0 +1,71 @@
+package com.bushidowallet.core.bitcoin.ecdsa;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.Security;
+
+public class SignatureCacheTest {
+
+    @BeforeClass
+    public static void init()
+    {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testContains() throws Exception {
+
+        SignatureCache cache = new SignatureCache(2);
+        ECKey key = ECKey.ECKeyParser.parse("L1rjeUY9ffkApft853udougq6y5eT3xbyoNPcMnkpzhZUQrui9cn");
+        byte[] hash = ByteUtil.fromHex("a9bc004bc083427ca43074b291d512770326766353bb8dff6b0fb954a985d9e8");
+        ECDSASignature signature = new ECDSA(hash, key, "little").sign();
+
+        Assert.assertFalse(cache.contains(hash, key.getPublic(), signature));
+        cache.add(hash, key.getPublic(), signature);
+        Assert.assertTrue(cache.contains(hash.clone(), key.getPublic().clone(), new ECDSASignature(signature.r, signature.s, true)));
+
+        //any change to the hash, key or signature misses
+        byte[] otherHash = hash.clone();
+        otherHash[0] ^= 1;
+        Assert.assertFalse(cache.contains(otherHash, key.getPublic(), signature));
+        ECKey uncompressed = new ECKey(key.getPrivate(), false);
+        Assert.assertFalse(cache.contains(hash, uncompressed.getPublic(), signature));
+        Assert.assertFalse(cache.contains(hash, key.getPublic(), new ECDSASignature(signature.r, signature.s.add(BigInteger.ONE), true)));
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(4, cache.getMisses());
+        cache.resetStatistics();
+        Assert.assertEquals(0, cache.getHits());
+
+        //salts differ, entries of one cache mean nothing to another
+        Assert.assertFalse(new SignatureCache(2).contains(hash, key.getPublic(), signature));
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testDefault() throws Exception {
+
+        SignatureCache previous = SignatureCache.getDefault();
+        try {
+            SignatureCache cache = new SignatureCache(16);
+            SignatureCache.setDefault(cache);
+            Assert.assertSame(cache, SignatureCache.getDefault());
+        } finally {
+            SignatureCache.setDefault(previous);
+        }
+        try {
+            SignatureCache.setDefault(null);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertSame(previous, SignatureCache.getDefault());
+        }
+    }
+}
@@ -106,4 +106,40 @@ public class ScriptTest {
         Assert.assertTrue(script.isPublicKeyHashOut());
         Assert.assertFalse(script.isMultiSigOut());
     }
+
+    @Test
+    public void testFromBytesTruncatedPush() throws Exception {
+
+        //output script of the BIP341 key path test vector, its push of 75 bytes runs past the end
+        String[] scripts = {
+                "ac9a87f5594be208f8532db38cff670c450ed2fea8fcdefcc9a663f78bab962b",
+                "764c",
+                "764d01",
+                "764e02000000ff",
+                "761a0102"
+        };
+        for (String scriptHex : scripts) {
+            Script script = Script.fromOutputBytes(ByteUtil.fromHex(scriptHex));
+            Assert.assertEquals(scriptHex, ByteUtil.toHex(script.getBytes()));
+            Assert.assertTrue(script.getChunks().get(script.getChunks().size() - 1).truncated);
+            //only output scripts are parsed leniently
+            try {
+                Script.fromBytes(ByteUtil.fromHex(scriptHex));
+                Assert.fail("Truncated push accepted: " + scriptHex);
+            } catch (Exception e) {
+                Assert.assertEquals("Invalid script: push runs past the end", e.getMessage());
+            }
+            //toString marks the push truncated, so it reads back as the same script
+            Script parsed = Script.fromString(script.toString());
+            Assert.assertTrue(script.equals(parsed));
+            Assert.assertEquals(scriptHex, ByteUtil.toHex(parsed.getBytes()));
+        }
+        Script script = Script.fromOutputBytes(ByteUtil.fromHex("761a0102"));
+        Assert.assertEquals("OP_DUP 26 [truncated] 0x0102", script.toString());
+        Assert.assertEquals("OP_DUP OP_PUSHDATA1 [truncated] 0x", Script.fromOutputBytes(ByteUtil.fromHex("764c")).toString());
+        Script complete = Script.fromBytes(ByteUtil.fromHex("76020102"));
+        Assert.assertFalse(script.equals(complete));
+        Assert.assertEquals("764c020102", ByteUtil.toHex(Script.fromString(Script.fromBytes(ByteUtil.fromHex("764c020102")).toString()).getBytes()));
+        Assert.assertFalse(Script.fromOutputBytes(ByteUtil.fromHex("76a91488d9931ea73d60eaf7e5671efc0552b912911f2a88ac")).getChunks().get(2).truncated);
+    }
 }
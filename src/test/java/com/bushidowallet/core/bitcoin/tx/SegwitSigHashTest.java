@@ -0,0 +1,119 @@
+package com.bushidowallet.core.bitcoin.tx;
+
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.ecdsa.ECDSASignature;
+import com.bushidowallet.core.bitcoin.script.Script;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SegwitSigHashTest {
+
+    @BeforeClass
+    public static void init() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testNativeP2WPKHVector() throws Exception {
+
+        //BIP143 native P2WPKH example, input 1 spends 6 BTC
+        Transaction tx = new Transaction(ByteUtil.fromHex("0100000002fff7f7881a8099afa6940d42d1e7f6362bec38171ea3edf433541db4e4ad969f0000000000eeffffffef51e1b804cc89d182d279655c3aa89e815b1b309fe287d9b2b55d57b90ec68a0100000000ffffffff02202cb206000000001976a9148280b37df378db99f66f85c95a783a76ac7a6d5988ac9093510d000000001976a9143bde42dbee7e4dbe6a21b2d50ce2f0167faa815988ac11000000"));
+        SegwitSigHash segwit = new SegwitSigHash(tx);
+        Assert.assertEquals("96b827c8483d4e9b96712b6713a7b68d6e8003a781feba36c31143470b4efd37", ByteUtil.toHex(segwit.getHashPrevouts()));
+        Assert.assertEquals("52b0a642eea2fb7ae638c36f6252b6750293dbe574a806984b8e4d8548339a3b", ByteUtil.toHex(segwit.getHashSequence()));
+        Assert.assertEquals("863ef3e1a92afbfdb97f31ad0fc7683ee943e9abcf2501590ff8f6551f47e5e5", ByteUtil.toHex(segwit.getHashOutputs()));
+
+        Script scriptCode = Script.fromBytes(ByteUtil.fromHex("76a9141d0f172a0ecb48aee1be1f2687d2963ae33f71a188ac"));
+        byte[] hash = segwit.sighash(1, scriptCode, 600000000L, TransactionSignature.SIGHASH_ALL);
+        Assert.assertEquals("c37af31116d1b27caf68aae9e3ac82f1477929014d5b917657d0eb49478cb670", ByteUtil.toHex(ByteUtil.reverseBytes(hash)));
+
+        ECKey key = new ECKey(ByteUtil.fromHex("619c335025c7f4012e556c2a58b2506e30b8511b53ade95ea316fd8c3286feb9"), true);
+        Assert.assertEquals("025476c2e83188368da1ff3e292e7acafcdb3566bb0ad253f62fc70f07aeee6357", key.getPublicHex());
+        //the signature of the example
+        byte[] der = ByteUtil.fromHex("304402203609e17b84f6a7d30c80bfa610b5b4542f32a8a0d5447a12fb1366d7f01cc44a0220573a954c4518331561406f90300e8f3358f51928d43c212a8caed02de67eebee01");
+        ECDSASignature signature = ECDSASignature.fromDERWithSigType(der, 0, der.length);
+        Assert.assertTrue(segwit.verify(signature, TransactionSignature.SIGHASH_ALL, key.getPublic(), true, 1, scriptCode, 600000000L));
+        ECDSASignature own = segwit.sign(key, 1, scriptCode, 600000000L, TransactionSignature.SIGHASH_ALL);
+        Assert.assertTrue(segwit.verify(own, TransactionSignature.SIGHASH_ALL, key.getPublic(), true, 1, scriptCode, 600000000L));
+        //the amount is signed
+        Assert.assertFalse(segwit.verify(signature, TransactionSignature.SIGHASH_ALL, key.getPublic(), true, 1, scriptCode, 600000001L));
+    }
+
+    @Test
+    public void testP2SHP2WPKHVector() throws Exception {
+
+        //BIP143 P2SH-P2WPKH example, 10 BTC
+        Transaction tx = new Transaction(ByteUtil.fromHex("0100000001db6b1b20aa0fd7b23880be2ecbd4a98130974cf4748fb66092ac4d3ceb1a54770100000000feffffff02b8b4eb0b000000001976a914a457b684d7f0d539a46a45bbc043f35b59d0d96388ac0008af2f000000001976a914fd270b1ee6abcaea97fea7ad0402e8bd8ad6d77c88ac92040000"));
+        Script scriptCode = Script.fromBytes(ByteUtil.fromHex("76a91479091972186c449eb1ded22b78e40d009bdf008988ac"));
+        byte[] hash = new SegwitSigHash(tx).sighash(0, scriptCode, 1000000000L, TransactionSignature.SIGHASH_ALL);
+        Assert.assertEquals("64f3b0f4dd2bb3aa1ce8566d220cc74dda9df97d8490cc81d89d735c92e59fb6", ByteUtil.toHex(ByteUtil.reverseBytes(hash)));
+    }
+
+    @Test
+    public void testP2SHP2WSHMultisigVector() throws Exception {
+
+        //BIP143 P2SH-P2WSH 6-of-6 multisig example, 9.87654321 BTC, each key signs with another sighash type
+        Transaction tx = new Transaction(ByteUtil.fromHex("010000000136641869ca081e70f394c6948e8af409e18b619df2ed74aa106c1ca29787b96e0100000000ffffffff0200e9a435000000001976a914389ffce9cd9ae88dcc0631e88a821ffdbe9bfe2688acc0832f05000000001976a9147480a33f950689af511e6e84c138dbbd3c3ee41588ac00000000"));
+        Script witnessScript = Script.fromBytes(ByteUtil.fromHex("56210307b8ae49ac90a048e9b53357a2354b3334e9c8bee813ecb98e99a7e07e8c3ba32103b28f0c28bfab54554ae8c658ac5c3e0ce6e79ad336331f78c428dd43eea8449b21034b8113d703413d57761b8b9781957b8c0ac1dfe69f492580ca4195f50376ba4a21033400f6afecb833092a9a21cfdf1ed1376e58c5d1f47de74683123987e967a8f42103a6d48b1131e94ba04d9737d61acdaa1322008af9602b3b14862c07a1789aac162102d8b661b0b3302ee2f162b09e07a55ad5dfbe673a9f01d9f0c19617681024306b56ae"));
+        SegwitSigHash segwit = new SegwitSigHash(tx);
+        int[] types = {
+                TransactionSignature.SIGHASH_ALL,
+                TransactionSignature.SIGHASH_NONE,
+                TransactionSignature.SIGHASH_SINGLE,
+                TransactionSignature.SIGHASH_ALL | TransactionSignature.SIGHASH_ANYONECANPAY,
+                TransactionSignature.SIGHASH_NONE | TransactionSignature.SIGHASH_ANYONECANPAY,
+                TransactionSignature.SIGHASH_SINGLE | TransactionSignature.SIGHASH_ANYONECANPAY
+        };
+        String[] expected = {
+                "185c0be5263dce5b4bb50a047973c1b6272bfbd0103a89444597dc40b248ee7c",
+                "e9733bc60ea13c95c6527066bb975a2ff29a925e80aa14c213f686cbae5d2f36",
+                "1e1f1c303dc025bd664acb72e583e933fae4cff9148bf78c157d1e8f78530aea",
+                "2a67f03e63a6a422125878b40b82da593be8d4efaafe88ee528af6e5a9955c6e",
+                "781ba15f3779d5542ce8ecb5c18716733a5ee42a6f51488ec96154934e2c890a",
+                "511e8e52ed574121fc1b654970395502128263f62662e076dc6baf05c2e6a99b"
+        };
+        for (int i = 0; i < types.length; i++) {
+            byte[] hash = segwit.sighash(0, witnessScript, 987654321L, types[i]);
+            Assert.assertEquals(Integer.toHexString(types[i]), expected[i], ByteUtil.toHex(ByteUtil.reverseBytes(hash)));
+        }
+    }
+
+    @Test
+    public void testSigTypes() throws Exception {
+
+        Transaction tx = SigHashTest.transaction(3, 2);
+        SegwitSigHash segwit = new SegwitSigHash(tx);
+        Script scriptCode = Script.fromBytes(ByteUtil.fromHex("76a914a934a528778e10dccd33b741577601e51031ac9388ac"));
+        int[] types = { 0x01, 0x02, 0x03, 0x81, 0x82, 0x83 };
+        Set<String> hashes = new HashSet<String>();
+        for (int type : types) {
+            for (int index = 0; index < tx.inputs.size(); index++) {
+                hashes.add(ByteUtil.toHex(segwit.sighash(index, scriptCode, 1000L, type)));
+            }
+        }
+        //all distinct, each commits to its own outpoint even when no output or other input is signed
+        Assert.assertEquals(types.length * tx.inputs.size(), hashes.size());
+        //the cached hashes do not leak between instances of different transactions
+        tx.outputs.get(0).satoshis++;
+        Assert.assertFalse(ByteUtil.toHex(new SegwitSigHash(tx).getHashOutputs()).equals(ByteUtil.toHex(segwit.getHashOutputs())));
+        try {
+            segwit.sighash(3, scriptCode, 1000L, TransactionSignature.SIGHASH_ALL);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Missing input to sign", e.getMessage());
+        }
+        try {
+            segwit.sighash(0, scriptCode, TransactionSignature.SIGHASH_ALL);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Inputs not complete", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.bushidowallet.core.bitcoin.tx;
+
+import com.bushidowallet.core.Benchmark;
+import com.bushidowallet.core.bitcoin.script.Script;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SigHashBenchmark {
+
+    private static final String SUBSCRIPT = "76a914a934a528778e10dccd33b741577601e51031ac9388ac";
+
+    @Test
+    public void benchmarkAllInputs() throws Exception {
+
+        final int inputs = 100;
+        final Transaction tx = SigHashTest.transaction(inputs, 2);
+        final Script subscript = Script.fromBytes(ByteUtil.fromHex(SUBSCRIPT));
+        double copy = Benchmark.run("copy reference, " + inputs + " inputs", 200, 200, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                for (int index = 0; index < inputs; index++) {
+                    SigHashTest.reference(tx, TransactionSignature.SIGHASH_ALL, index, subscript);
+                }
+            }
+        });
+        double streamed = Benchmark.run("SigHash.sighash, " + inputs + " inputs", 200, 200, new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                for (int index = 0; index < inputs; index++) {
+                    SigHash.sighash(tx, TransactionSignature.SIGHASH_ALL, index, subscript);
+                }
+            }
+        });
+        System.out.println(String.format("streaming: %.2fx", copy / streamed));
+    }
+
+    /**
+     * Per input cost of hashing all inputs of consolidations: the prefix shared through midstates saves about half
+     * of the hashing, the rest still grows with the number of inputs (hashed after each signed input)
+     */
+    @Test
+    public void benchmarkComputeAll() throws Exception {
+
+        for (final int inputs : new int[] { 250, 500, 1000 }) {
+            final Transaction tx = SigHashTest.transaction(inputs, 1);
+            final Script subscript = Script.fromBytes(ByteUtil.fromHex(SUBSCRIPT));
+            final List<Script> scripts = new ArrayList<Script>();
+            for (int i = 0; i < inputs; i++) {
+                scripts.add(subscript);
+            }
+            int iterations = 1000 / inputs;
+            double single = Benchmark.run("SigHash.sighash, " + inputs + " inputs", iterations, 2 * iterations, new Benchmark.Task() {
+                @Override
+                public void run(int i) throws Exception {
+                    for (int index = 0; index < inputs; index++) {
+                        SigHash.sighash(tx, TransactionSignature.SIGHASH_ALL, index, subscript);
+                    }
+                }
+            });
+            double all = Benchmark.run("SigHash.computeAllSigHashes, " + inputs + " inputs", iterations, 2 * iterations, new Benchmark.Task() {
+                @Override
+                public void run(int i) throws Exception {
+                    SigHash.computeAllSigHashes(tx, TransactionSignature.SIGHASH_ALL, scripts);
+                }
+            });
+            System.out.println(String.format("%d inputs, per input: sighash %.1f us, computeAllSigHashes %.1f us, %.2fx",
+                    inputs, single / inputs / 1000, all / inputs / 1000, single / all));
+        }
+    }
+
+    /**
+     * Per input cost of the legacy, BIP143 and BIP341 sighashes: the first grows with the transaction, the others
+     * stay flat once the shared hashes are made
+     */
+    @Test
+    public void benchmarkSegwit() throws Exception {
+
+        for (final int inputs : new int[] { 10, 100, 500 }) {
+            final Transaction tx = TaprootSigHashTest.transaction(inputs, 2);
+            final Script scriptCode = Script.fromBytes(ByteUtil.fromHex(SUBSCRIPT));
+            int iterations = 5000 / inputs;
+            double legacy = Benchmark.run("SigHash.sighash, " + inputs + " inputs", iterations, 2 * iterations, new Benchmark.Task() {
+                @Override
+                public void run(int i) throws Exception {
+                    for (int index = 0; index < inputs; index++) {
+                        SigHash.sighash(tx, TransactionSignature.SIGHASH_ALL, index, scriptCode);
+                    }
+                }
+            });
+            double segwit = Benchmark.run("SegwitSigHash.sighash, " + inputs + " inputs", iterations, 2 * iterations, new Benchmark.Task() {
+                @Override
+                public void run(int i) throws Exception {
+                    SegwitSigHash hasher = new SegwitSigHash(tx);
+                    for (int index = 0; index < inputs; index++) {
+                        hasher.sighash(index, scriptCode, 1000L, TransactionSignature.SIGHASH_ALL);
+                    }
+                }
+            });
+            double taproot = Benchmark.run("TaprootSigHash.sighash, " + inputs + " inputs", iterations, 2 * iterations, new Benchmark.Task() {
+                @Override
+                public void run(int i) throws Exception {
+                    TaprootSigHash hasher = new TaprootSigHash(tx);
+                    for (int index = 0; index < inputs; index++) {
+                        hasher.sighash(index, TaprootSigHash.SIGHASH_DEFAULT);
+                    }
+                }
+            });
+            System.out.println(String.format("%d inputs, per input: legacy %.1f us, segwit %.1f us, taproot %.1f us",
+                    inputs, legacy / inputs / 1000, segwit / inputs / 1000, taproot / inputs / 1000));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.bushidowallet.core.bitcoin.tx;
+
+import com.bushidowallet.core.bitcoin.bip32.Hash;
+import com.bushidowallet.core.bitcoin.script.Chunk;
+import com.bushidowallet.core.bitcoin.script.Opcode;
+import com.bushidowallet.core.bitcoin.script.Script;
+import com.bushidowallet.core.bitcoin.tx.input.Input;
+import com.bushidowallet.core.bitcoin.tx.output.Output;
+import com.bushidowallet.core.bitcoin.util.ByteWriter;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SigHashTest {
+
+    private static final int[] TYPES = { 0x00, 0x01, 0x02, 0x03, 0x04, 0x41, 0x80, 0x81, 0x82, 0x83 };
+
+    //types hashed as by the previous copy-based SigHash, the others now follow Bitcoin Core
+    private static final int[] UNCHANGED_TYPES = { 0x00, 0x01, 0x02, 0x04, 0x41, 0x80 };
+
+    //hashes of transaction(4, 3) signing the P2PKH subscript below, { type, input index, hash }, as computed
+    //by Bitcoin Core's SignatureHash (here an independent implementation of it, bitcoinj 0.14)
+    private static final Object[][] CORE_VECTORS = {
+            { 0x00, 0, "29799283c82d5f020eed0bde9540406585d623669b6367c5ddd3b6d3e147c44c" },
+            { 0x00, 1, "aeb4bee5b62cc9c5671dda3bff9016a98c220c89f9630b2159e78cc01dc02728" },
+            { 0x00, 2, "55ae0088f02c79ec9b7e751ea87a25dcbb980e2f14ea3344cf458c5c3a7d2455" },
+            { 0x01, 0, "1a12bdd44fb913a473bb4c89446e44d68f25274f9c0194cddbfa7e792c71636b" },
+            { 0x01, 1, "f3fbc4fc5c68ac82157b6c90d21612a3834b806c110845a85af0d29b05b3e31f" },
+            { 0x01, 2, "4674c788606e69c896de28f0a3586226cd4863eef3bbf9b99cc13de14a704758" },
+            { 0x02, 0, "40135b2590c7f847abc00e4225c9190977ab09bbbcf0d11562f338bbaa55cad7" },
+            { 0x02, 1, "b9ec1ef11693b69340b6acfb54d6437435f3e321fced5a205258d5d447e58944" },
+            { 0x02, 2, "af2616656e6cb910f3b0783fc348293e66289a6a5442e2ecb29e0bfdfc70ecc2" },
+            { 0x03, 0, "02a0ba0f2fa931e198f1a0250754e63e2636596fa793f6bd05361f0f8c0aeed3" },
+            { 0x03, 1, "9aa6e7186fbdf6d06c7214502f8f1e1f148944dba96ff98a63ba3108080a48f4" },
+            { 0x03, 2, "e7d251330e7dbad2a8b0728b19eb1c5aaff39d688fd1800b89b2b0415283190f" },
+            { 0x04, 0, "a3b1e73f3c8ca4d8c587f2af7cd7c0fa7c05dddc184bb7055189b20eeef9a907" },
+            { 0x04, 1, "e2d7f028ff47f4c332de77d696cdbf160c0e9e1721407f171f21dfba3bce8ba9" },
+            { 0x04, 2, "df391b0979de9d3ec6e8c1f3bec1a623d74d98af470f933d354d3ac6007b82a6" },
+            { 0x41, 0, "f4f382a76364bedab8de3dc376b7f9ea2682685572409f72cc078a30f65099e6" },
+            { 0x41, 1, "12829aab77b52b03f5c3012c3e40ea8cec6c35081c1eb9f8ac0873cafb4d4342" },
+            { 0x41, 2, "4b7d75f56deb5916b09aec194b24f3b50426b231cd56bfc022d4b6e78a296bf5" },
+            { 0x80, 0, "6ee06f4ad76e6bfbae8e60616556d3287e630a88e1af61eb2bf6f63555a8ddc3" },
+            { 0x80, 1, "ae299d9546029f70c0748036cba8ccc679cfa88ad7e7d113df78c1a84e61034e" },
+            { 0x80, 2, "c50e6f716916282c99e5d3809ab6a733915054b803cea873499a7b97de342f7d" },
+            { 0x81, 0, "452358f819cc255ec9984134b348eefb649bf6679a26c4e60158aa29fd39b0c4" },
+            { 0x81, 1, "7b67dfbca48ecb8fca9b153f699eb051479250f6f82150089e1789c5492a3041" },
+            { 0x81, 2, "d8d56f210ede13583c04a08efdabbf646ccc2e03ac9fb16b6fead7b4bf570df6" },
+            { 0x82, 0, "08ca185b492e3da1a328aca87a1479672ac6b3985b91b66485eec5ad5eeb3fe5" },
+            { 0x82, 1, "d566dd882eb2dba1c3a7d1bccdff2d53380f00649d22b0137e4bcf6d3b21a481" },
+            { 0x82, 2, "b96771c9eab97c9f2f361b3d441cb10c2611eed9cd48e854bd70bd5e5063101f" },
+            { 0x83, 0, "e2f640c91da38ebff583d39f31b06b4ee3da2d12669c12fa6ff9f879c6495914" },
+            { 0x83, 1, "546e6fbe4dc3ed4ce8b56d3ae394fc614f4baf402768cb9206f99e6ea0b768fd" },
+            { 0x83, 2, "1f2073b13cf9927844b0e57998f0f58b7e0c69dfb7f5bb461c2a5a764df53391" },
+    };
+
+    @Test
+    public void testVector() throws Exception {
+
+        //the serialization signed in TransactionTest.testSigHash, without its trailing sighash type
+        String messageHex = "01000000015884e5db9de218238671572340b207ee85b628074e7e467096c267266baf77a4000000001976a914a934a528778e10dccd33b741577601e51031ac9388acffffffff0250c30000000000001976a914b08cf28bbf4b393dcbdbd69fb27f3436d8392e6e88ac409c0000000000001976a91492a637a6daa2be8cede265048f8fa02ddaa8111088ac00000000";
+        Transaction tx = new Transaction(ByteUtil.fromHex(messageHex));
+        Script subscript = tx.inputs.get(0).script;
+        tx.inputs.get(0).script = new Script();
+        Assert.assertEquals("a9bc004bc083427ca43074b291d512770326766353bb8dff6b0fb954a985d9e8",
+                ByteUtil.toHex(SigHash.sighash(tx, TransactionSignature.SIGHASH_ALL, 0, subscript)));
+    }
+
+    @Test
+    public void testCoreVectors() throws Exception {
+
+        Transaction tx = transaction(4, 3);
+        Script subscript = Script.fromBytes(ByteUtil.fromHex("76a914a934a528778e10dccd33b741577601e51031ac9388ac"));
+        for (Object[] vector : CORE_VECTORS) {
+            int type = (Integer) vector[0];
+            int index = (Integer) vector[1];
+            Assert.assertEquals(type + "/" + index, vector[2],
+                    ByteUtil.toHex(SigHash.sighash(tx, type, index, subscript)));
+        }
+        //no output at the index of the input: the SIGHASH_SINGLE bug hash, with or without ANYONECANPAY
+        Assert.assertEquals("0000000000000000000000000000000000000000000000000000000000000001",
+                ByteUtil.toHex(SigHash.sighash(tx, TransactionSignature.SIGHASH_SINGLE, 3, subscript)));
+        Assert.assertEquals("0000000000000000000000000000000000000000000000000000000000000001",
+                ByteUtil.toHex(SigHash.sighash(tx, TransactionSignature.SIGHASH_SINGLE
+                        | TransactionSignature.SIGHASH_ANYONECANPAY, 3, subscript)));
+    }
+
+    @Test
+    public void testMatchesCopyReference() throws Exception {
+
+        Transaction tx = transaction(4, 3);
+        Script subscript = Script.fromBytes(ByteUtil.fromHex("76a914a934a528778e10dccd33b741577601e51031ac9388ac"));
+        for (int type : UNCHANGED_TYPES) {
+            for (int index = 0; index < tx.inputs.size(); index++) {
+                Assert.assertEquals(type + "/" + index,
+                        ByteUtil.toHex(reference(tx, type, index, subscript)),
+                        ByteUtil.toHex(SigHash.sighash(tx, type, index, subscript)));
+            }
+        }
+    }
+
+    @Test
+    public void testCodeSeparators() throws Exception {
+
+        Transaction tx = transaction(2, 2);
+        Script subscript = Script.fromBytes(ByteUtil.fromHex("ab76a914a934a528778e10dccd33b741577601e51031ac93ab88ac"));
+        Script stripped = Script.fromBytes(ByteUtil.fromHex("76a914a934a528778e10dccd33b741577601e51031ac9388ac"));
+        Assert.assertEquals(ByteUtil.toHex(SigHash.sighash(tx, TransactionSignature.SIGHASH_ALL, 1, stripped)),
+                ByteUtil.toHex(SigHash.sighash(tx, TransactionSignature.SIGHASH_ALL, 1, subscript)));
+        Assert.assertEquals(ByteUtil.toHex(reference(tx, TransactionSignature.SIGHASH_ALL, 1, subscript)),
+                ByteUtil.toHex(SigHash.sighash(tx, TransactionSignature.SIGHASH_ALL, 1, subscript)));
+        //the subscript itself is left as is
+        Assert.assertEquals(Opcode.OP_CODESEPARATOR, subscript.getChunks().get(0).opcode.value);
+    }
+
+    @Test
+    public void testComputeAll() throws Exception {
+
+        Transaction tx = transaction(7, 4);
+        List<Script> scripts = new ArrayList<Script>();
+        for (int i = 0; i < tx.inputs.size(); i++) {
+            scripts.add(i == 2 ? null : Script.fromBytes(ByteUtil.fromHex("76a914" + (i == 5 ? "ab" : "") + "a934a528778e10dccd33b741577601e51031ac9388ac")));
+        }
+        for (int type : TYPES) {
+            byte[][] hashes = SigHash.computeAllSigHashes(tx, type, scripts);
+            Assert.assertEquals(tx.inputs.size(), hashes.length);
+            for (int index = 0; index < tx.inputs.size(); index++) {
+                if (scripts.get(index) == null) {
+                    Assert.assertNull(hashes[index]);
+                } else {
+                    Assert.assertEquals(type + "/" + index,
+                            ByteUtil.toHex(SigHash.sighash(tx, type, index, scripts.get(index))),
+                            ByteUtil.toHex(hashes[index]));
+                }
+            }
+        }
+        try {
+            SigHash.computeAllSigHashes(tx, TransactionSignature.SIGHASH_ALL, scripts.subList(0, 6));
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Expected one script per input", e.getMessage());
+        }
+    }
+
+    /**
+     * Copy-based reference: the previous SigHash.sighash, the transaction is copied through its serialization,
+     * modified, and serialized again
+     */
+    static byte[] reference(Transaction tx, int sigType, int index, Script script) throws Exception {
+        Transaction txCopy = new Transaction(tx.uncheckedSerialize());
+        Script scriptCopy = Script.fromBytes(script.getBytes());
+        scriptCopy.removeCodeSeparators();
+        for (Input input : txCopy.inputs) {
+            input.script = new Script();
+        }
+        txCopy.inputs.get(index).script = scriptCopy;
+        if (sigType == TransactionSignature.SIGHASH_NONE || sigType == TransactionSignature.SIGHASH_SINGLE) {
+            for (int j = 0; j < txCopy.inputs.size(); j++) {
+                if (j != index) {
+                    txCopy.inputs.get(j).sequence = 0;
+                }
+            }
+        }
+        if (sigType == TransactionSignature.SIGHASH_NONE) {
+            txCopy.outputs = new ArrayList<Output>();
+        } else if (sigType == TransactionSignature.SIGHASH_SINGLE) {
+            if (index > txCopy.outputs.size() - 1) {
+                return ByteUtil.fromHex("0000000000000000000000000000000000000000000000000000000000000001");
+            }
+            for (int k = 0; k < index; k++) {
+                txCopy.outputs.add(k, new Output(new Script(), -1L));
+            }
+        }
+        if (sigType == TransactionSignature.SIGHASH_ANYONECANPAY) {
+            Input input = txCopy.inputs.get(index);
+            txCopy.inputs = new ArrayList<Input>();
+            txCopy.inputs.add(input);
+        }
+        ByteWriter writer = new ByteWriter(0);
+        writer.putBytes(txCopy.uncheckedSerialize());
+        writer.putUInt32LE(sigType);
+        return ByteUtil.reverseBytes(Hash.hash(writer.toBytes()));
+    }
+
+    //inputs with scripts and distinct sequences, outputs with distinct values
+    static Transaction transaction(int inputCount, int outputCount) throws Exception {
+        Transaction tx = new Transaction();
+        for (int i = 0; i < inputCount; i++) {
+            Input input = new Input();
+            input.prevTxId = new Hash("prev " + i).sha256();
+            input.outputIndex = i;
+            input.script = new Script();
+            input.script.add(new Chunk(new Opcode(3), new byte[] { 1, 2, (byte) i }));
+            input.sequence = 0xfffffffeL - i;
+            tx.addInput(input);
+        }
+        for (int k = 0; k < outputCount; k++) {
+            tx.addOutput(new Output(Script.fromBytes(ByteUtil.fromHex("76a914b08cf28bbf4b393dcbdbd69fb27f3436d8392e6e88ac")), 50000L + k));
+        }
+        tx.nLockTime = 500000;
+        return tx;
+    }
+}
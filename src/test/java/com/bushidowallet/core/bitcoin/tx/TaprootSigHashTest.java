@@ -0,0 +1,197 @@
+package com.bushidowallet.core.bitcoin.tx;
+
+import com.bushidowallet.core.bitcoin.SegwitAddress;
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.bip32.Hash;
+import com.bushidowallet.core.bitcoin.ecdsa.TaggedHash;
+import com.bushidowallet.core.bitcoin.script.Script;
+import com.bushidowallet.core.bitcoin.tx.input.Input;
+import com.bushidowallet.core.bitcoin.tx.output.Output;
+import com.bushidowallet.core.bitcoin.util.ByteWriter;
+import com.bushidowallet.core.crypto.util.ByteUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.HashSet;
+import java.util.Set;
+
+public class TaprootSigHashTest {
+
+    private static final int[] TYPES = { 0x00, 0x01, 0x02, 0x03, 0x81, 0x82, 0x83 };
+
+    @BeforeClass
+    public static void init() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testKeyPathSpendingVector() throws Exception {
+
+        //BIP341 keyPathSpending test vector, its spent outputs and the sighashes of the key path inputs
+        Transaction tx = new Transaction(ByteUtil.fromHex("02000000097de20cbff686da83a54981d2b9bab3586f4ca7e48f57f5b55963115f3b334e9c010000000000000000d7b7cab57b1393ace2d064f4d4a2cb8af6def61273e127517d44759b6dafdd990000000000fffffffff8e1f583384333689228c5d28eac13366be082dc57441760d957275419a418420000000000fffffffff0689180aa63b30cb162a73c6d2a38b7eeda2a83ece74310fda0843ad604853b0100000000feffffffaa5202bdf6d8ccd2ee0f0202afbbb7461d9264a25e5bfd3c5a52ee1239e0ba6c0000000000feffffff956149bdc66faa968eb2be2d2faa29718acbfe3941215893a2a3446d32acd050000000000000000000e664b9773b88c09c32cb70a2a3e4da0ced63b7ba3b22f848531bbb1d5d5f4c94010000000000000000e9aa6b8e6c9de67619e6a3924ae25696bb7b694bb677a632a74ef7eadfd4eabf0000000000ffffffffa778eb6a263dc090464cd125c466b5a99667720b1c110468831d058aa1b82af10100000000ffffffff0200ca9a3b000000001976a91406afd46bcdfd22ef94ac122aa11f241244a37ecc88ac807840cb0000000020ac9a87f5594be208f8532db38cff670c450ed2fea8fcdefcc9a663f78bab962b0065cd1d"));
+        long[] amounts = { 420000000L, 462000000L, 294000000L, 504000000L, 630000000L, 378000000L, 672000000L, 546000000L, 588000000L };
+        String[] scripts = {
+                "512053a1f6e454df1aa2776a2814a721372d6258050de330b3c6d10ee8f4e0dda343",
+                "5120147c9c57132f6e7ecddba9800bb0c4449251c92a1e60371ee77557b6620f3ea3",
+                "76a914751e76e8199196d454941c45d1b3a323f1433bd688ac",
+                "5120e4d810fd50586274face62b8a807eb9719cef49c04177cc6b76a9a4251d5450e",
+                "512091b64d5324723a985170e4dc5a0f84c041804f2cd12660fa5dec09fc21783605",
+                "00147dd65592d0ab2fe0d0257d571abf032cd9db93dc",
+                "512075169f4001aa68f15bbed28b218df1d0a62cbbcf1188c6665110c293c907b831",
+                "5120712447206d7a5238acc7ff53fbe94a3b64539ad291c7cdbc490b7577e4b17df5",
+                "512077e30a5522dd9f894c3f8b8bd4c4b2cf82ca7da8a3ea6a239655c39c050ab220"
+        };
+        for (int i = 0; i < tx.inputs.size(); i++) {
+            tx.inputs.get(i).output = new Output(Script.fromBytes(ByteUtil.fromHex(scripts[i])), amounts[i]);
+        }
+        TaprootSigHash taproot = new TaprootSigHash(tx);
+        Assert.assertEquals("58a6964a4f5f8f0b642ded0a8a553be7622a719da71d1f5befcefcdee8e0fde6", ByteUtil.toHex(taproot.getShaAmounts()));
+        Assert.assertEquals("a2e6dab7c1f0dcd297c8d61647fd17d821541ea69c3cc37dcbad7f90d4eb4bc5", ByteUtil.toHex(taproot.getShaOutputs()));
+        Assert.assertEquals("e3b33bb4ef3a52ad1fffb555c0d82828eb22737036eaeb02a235d82b909c4c3f", ByteUtil.toHex(taproot.getShaPrevouts()));
+        Assert.assertEquals("23ad0f61ad2bca5ba6a7693f50fce988e17c3780bf2b1e720cfbb38fbdd52e21", ByteUtil.toHex(taproot.getShaScriptPubKeys()));
+        Assert.assertEquals("18959c7221ab5ce9e26c3cd67b22c24f8baa54bac281d8e6b05e400e6c3a957e", ByteUtil.toHex(taproot.getShaSequences()));
+
+        //{ input index, hash type, sigHash }
+        Object[][] inputs = {
+                { 0, 0x03, "2514a6272f85cfa0f45eb907fcb0d121b808ed37c6ea160a5a9046ed5526d555" },
+                { 1, 0x83, "325a644af47e8a5a2591cda0ab0723978537318f10e6a63d4eed783b96a71a4d" },
+                { 3, 0x01, "bf013ea93474aa67815b1b6cc441d23b64fa310911d991e713cd34c7f5d46669" },
+                { 4, 0x00, "4f900a0bae3f1446fd48490c2958b5a023228f01661cda3496a11da502a7f7ef" },
+                { 6, 0x02, "15f25c298eb5cdc7eb1d638dd2d45c97c4c59dcaec6679cfc16ad84f30876b85" },
+                { 7, 0x82, "cd292de50313804dabe4685e83f923d2969577191a3e1d2882220dca88cbeb10" },
+                { 8, 0x81, "cccb739eca6c13a8a89e6e5cd317ffe55669bbda23f2fd37b0f18755e008edd2" }
+        };
+        for (Object[] input : inputs) {
+            int index = (Integer) input[0];
+            Assert.assertEquals("input " + index, input[2], ByteUtil.toHex(taproot.sighash(index, (Integer) input[1])));
+        }
+    }
+
+    @Test
+    public void testMatchesReference() throws Exception {
+
+        Transaction tx = transaction(4, 3);
+        TaprootSigHash taproot = new TaprootSigHash(tx);
+        Set<String> hashes = new HashSet<String>();
+        for (int type : TYPES) {
+            for (int index = 0; index < tx.inputs.size(); index++) {
+                if ((type & 0x03) == TransactionSignature.SIGHASH_SINGLE && index >= tx.outputs.size()) {
+                    try {
+                        taproot.sighash(index, type);
+                        Assert.fail();
+                    } catch (Exception e) {
+                        Assert.assertEquals("No output matching SIGHASH_SINGLE input", e.getMessage());
+                    }
+                    continue;
+                }
+                String hash = ByteUtil.toHex(taproot.sighash(index, type));
+                Assert.assertEquals(ByteUtil.toHex(reference(tx, type, index)), hash);
+                hashes.add(hash);
+            }
+        }
+        //the hash type is committed, SIGHASH_DEFAULT and SIGHASH_ALL differ
+        Assert.assertEquals(TYPES.length * tx.inputs.size() - 2, hashes.size());
+        try {
+            taproot.sighash(0, 0x04);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Invalid sighash type", e.getMessage());
+        }
+        tx.inputs.get(0).output = null;
+        try {
+            new TaprootSigHash(tx);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Inputs not complete", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSignAndVerify() throws Exception {
+
+        ECKey internalKey = new ECKey(new Hash("taproot internal key").sha256(), true);
+        ECKey outputKey = internalKey.tweakTaproot(null);
+        byte[] program = outputKey.getXOnlyPublic();
+        Transaction tx = transaction(3, 2);
+        for (Input input : tx.inputs) {
+            input.output.script = SegwitAddress.fromTaprootKey(program).getScript();
+        }
+        TaprootSigHash taproot = new TaprootSigHash(tx);
+        for (int type : TYPES) {
+            byte[] signature = taproot.sign(outputKey, 1, type);
+            Assert.assertEquals(type == TaprootSigHash.SIGHASH_DEFAULT ? 64 : 65, signature.length);
+            Assert.assertTrue(taproot.verify(program, 1, signature));
+            Assert.assertFalse(taproot.verify(program, 0, signature));
+            Assert.assertFalse(taproot.verify(internalKey.getXOnlyPublic(), 1, signature));
+        }
+        //SIGHASH_DEFAULT may not be explicit
+        byte[] explicit = new byte[65];
+        System.arraycopy(taproot.sign(outputKey, 1, TaprootSigHash.SIGHASH_DEFAULT), 0, explicit, 0, 64);
+        Assert.assertFalse(taproot.verify(program, 1, explicit));
+        Assert.assertFalse(taproot.verify(program, 1, new byte[63]));
+    }
+
+    //the BIP341 message serialized in full, then hashed
+    private static byte[] reference(Transaction tx, int hashType, int index) throws Exception {
+        ByteWriter prevouts = new ByteWriter(0);
+        ByteWriter amounts = new ByteWriter(0);
+        ByteWriter scriptPubKeys = new ByteWriter(0);
+        ByteWriter sequences = new ByteWriter(0);
+        for (Input input : tx.inputs) {
+            prevouts.putBytes(ByteUtil.reverseBytes(input.prevTxId));
+            prevouts.putIntLE(input.outputIndex);
+            amounts.putLongLE(input.output.satoshis);
+            scriptPubKeys.putVarBytes(input.output.script.getBytes());
+            sequences.putUInt32(input.sequence);
+        }
+        ByteWriter outputs = new ByteWriter(0);
+        for (Output output : tx.outputs) {
+            output.write(outputs);
+        }
+        int outputType = hashType & 0x03;
+        boolean anyoneCanPay = (hashType & 0x80) != 0;
+        ByteWriter message = new ByteWriter(0);
+        message.putUInt8(0);
+        message.putUInt8(hashType);
+        message.putIntLE(tx.version);
+        message.putIntLE(tx.nLockTime);
+        if (!anyoneCanPay) {
+            message.putBytes(new Hash(prevouts.toBytes()).sha256());
+            message.putBytes(new Hash(amounts.toBytes()).sha256());
+            message.putBytes(new Hash(scriptPubKeys.toBytes()).sha256());
+            message.putBytes(new Hash(sequences.toBytes()).sha256());
+        }
+        if (outputType != 2 && outputType != 3) {
+            message.putBytes(new Hash(outputs.toBytes()).sha256());
+        }
+        message.putUInt8(0);
+        Input input = tx.inputs.get(index);
+        if (anyoneCanPay) {
+            message.putBytes(ByteUtil.reverseBytes(input.prevTxId));
+            message.putIntLE(input.outputIndex);
+            message.putLongLE(input.output.satoshis);
+            message.putVarBytes(input.output.script.getBytes());
+            message.putUInt32(input.sequence);
+        } else {
+            message.putIntLE(index);
+        }
+        if (outputType == 3) {
+            ByteWriter single = new ByteWriter(0);
+            tx.outputs.get(index).write(single);
+            message.putBytes(new Hash(single.toBytes()).sha256());
+        }
+        return new TaggedHash("TapSighash").hash(message.toBytes());
+    }
+
+    static Transaction transaction(int inputCount, int outputCount) throws Exception {
+        Transaction tx = SigHashTest.transaction(inputCount, outputCount);
+        for (int i = 0; i < inputCount; i++) {
+            tx.inputs.get(i).output = new Output(SegwitAddress.fromTaprootKey(new Hash("key " + i).sha256()).getScript(), 100000L + i);
+        }
+        tx.version = 2;
+        return tx;
+    }
+}
@@ -0,0 +1,53 @@
+package com.bushidowallet.core.bitcoin.tx;
+
+import com.bushidowallet.core.Benchmark;
+import com.bushidowallet.core.bitcoin.bip32.ECKey;
+import com.bushidowallet.core.bitcoin.bip32.Hash;
+import com.bushidowallet.core.bitcoin.ecdsa.SignatureCache;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Test;
+
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionBenchmark {
+
+    private static final int INPUTS = 600;
+
+    /**
+     * Signing a consolidation, each legacy sighash is linear in the size of the transaction, so all of them are
+     * quadratic: sign on an executor computes and verifies them in parallel and applies the signatures serially.
+     * The signature cache is cleared so every run verifies all signatures
+     */
+    @Test
+    public void benchmarkSignConsolidation() throws Exception {
+
+        Security.addProvider(new BouncyCastleProvider());
+        final List<ECKey> keys = new ArrayList<ECKey>();
+        keys.add(new ECKey(new Hash("consolidation 0").sha256(), true));
+        keys.add(new ECKey(new Hash("consolidation 1").sha256(), true));
+        Benchmark.Task sign = new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                SignatureCache.getDefault().clear();
+                TransactionTest.consolidation(keys, INPUTS).sign(keys, TransactionSignature.SIGHASH_ALL);
+            }
+        };
+        Benchmark.Task signParallel = new Benchmark.Task() {
+            @Override
+            public void run(int i) throws Exception {
+                SignatureCache.getDefault().clear();
+                TransactionTest.consolidation(keys, INPUTS).signParallel(keys, TransactionSignature.SIGHASH_ALL);
+            }
+        };
+        //both warmed up first, whichever is measured second otherwise runs on code compiled for the other
+        for (int i = 0; i < 3; i++) {
+            sign.run(i);
+            signParallel.run(i);
+        }
+        double serial = Benchmark.run("sign, " + INPUTS + " inputs", 1, 5, sign);
+        double parallel = Benchmark.run("signParallel, " + INPUTS + " inputs", 1, 5, signParallel);
+        System.out.println(String.format("parallel: %.2fx (%d cores)", serial / parallel, Runtime.getRuntime().availableProcessors()));
+    }
+}
@@ -3,16 +3,23 @@ package com.bushidowallet.core.bitcoin.tx;
 import com.bushidowallet.core.bitcoin.Address;
 import com.bushidowallet.core.bitcoin.bip32.ECKey;
 import com.bushidowallet.core.bitcoin.bip32.Hash;
+import com.bushidowallet.core.bitcoin.ecdsa.ECDSASignature;
+import com.bushidowallet.core.bitcoin.ecdsa.SignatureCache;
 import com.bushidowallet.core.bitcoin.script.Script;
+import com.bushidowallet.core.bitcoin.tx.input.Input;
+import com.bushidowallet.core.bitcoin.tx.input.MultiSigScriptHashInput;
 import com.bushidowallet.core.crypto.util.ByteUtil;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.math.BigInteger;
 import java.security.Security;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Created by Jesion on 2015-03-31.
@@ -52,6 +59,64 @@ public class TransactionTest {
         Assert.assertEquals(ByteUtil.toHex(serialized), TX1);
     }
 
+    @Test
+    public void testWitnessSerialize() throws Exception {
+
+        //BIP143 native P2WPKH example, signed: input 0 spends P2PK, input 1 P2WPKH
+        String signed = "01000000000102fff7f7881a8099afa6940d42d1e7f6362bec38171ea3edf433541db4e4ad969f00000000494830450221008b9d1dc26ba6a9cb62127b02742fa9d754cd3bebf337f7a55d114c8e5cdd30be022040529b194ba3f9281a99f2b1c0a19c0489bc22ede944ccf4ecbab4cc618ef3ed01eeffffffef51e1b804cc89d182d279655c3aa89e815b1b309fe287d9b2b55d57b90ec68a0100000000ffffffff02202cb206000000001976a9148280b37df378db99f66f85c95a783a76ac7a6d5988ac9093510d000000001976a9143bde42dbee7e4dbe6a21b2d50ce2f0167faa815988ac000247304402203609e17b84f6a7d30c80bfa610b5b4542f32a8a0d5447a12fb1366d7f01cc44a0220573a954c4518331561406f90300e8f3358f51928d43c212a8caed02de67eebee0121025476c2e83188368da1ff3e292e7acafcdb3566bb0ad253f62fc70f07aeee635711000000";
+        String legacy = "0100000002fff7f7881a8099afa6940d42d1e7f6362bec38171ea3edf433541db4e4ad969f00000000494830450221008b9d1dc26ba6a9cb62127b02742fa9d754cd3bebf337f7a55d114c8e5cdd30be022040529b194ba3f9281a99f2b1c0a19c0489bc22ede944ccf4ecbab4cc618ef3ed01eeffffffef51e1b804cc89d182d279655c3aa89e815b1b309fe287d9b2b55d57b90ec68a0100000000ffffffff02202cb206000000001976a9148280b37df378db99f66f85c95a783a76ac7a6d5988ac9093510d000000001976a9143bde42dbee7e4dbe6a21b2d50ce2f0167faa815988ac11000000";
+
+        Transaction tx = new Transaction(ByteUtil.fromHex(signed));
+        Assert.assertTrue(tx.hasWitness());
+        Assert.assertEquals(2, tx.inputs.size());
+        Assert.assertEquals(2, tx.outputs.size());
+        Assert.assertEquals(17, tx.nLockTime);
+        Assert.assertTrue(tx.inputs.get(0).witness.isEmpty());
+        Assert.assertEquals(2, tx.inputs.get(1).witness.size());
+        Assert.assertEquals("025476c2e83188368da1ff3e292e7acafcdb3566bb0ad253f62fc70f07aeee6357", ByteUtil.toHex(tx.inputs.get(1).witness.get(1)));
+        Assert.assertEquals(signed, tx.toHex());
+
+        //the txid does not commit to witnesses
+        Assert.assertEquals("e8151a2af31c368a35053ddd4bdb285a8595c769a3ad83e0fa02314a602d4609", ByteUtil.toHex(tx.getHash()));
+        Assert.assertEquals(ByteUtil.toHex(new Transaction(ByteUtil.fromHex(legacy)).getHash()), ByteUtil.toHex(tx.getHash()));
+        Assert.assertEquals("c36c38370907df2324d9ce9d149d191192f338b37665a82e78e76a12c909b762", ByteUtil.toHex(tx.getWitnessHash()));
+        Assert.assertEquals(233 * 3 + 343, tx.getWeight());
+        Assert.assertEquals(261, tx.getVirtualSize());
+
+        //the witness signs the BIP143 hash of the input
+        byte[] sig = tx.inputs.get(1).witness.get(0);
+        Assert.assertTrue(new SegwitSigHash(tx).verify(ECDSASignature.fromDERWithSigType(sig, 0, sig.length),
+                ECDSASignature.getSigType(sig, 0, sig.length),
+                tx.inputs.get(1).witness.get(1),
+                true,
+                1,
+                Script.fromBytes(ByteUtil.fromHex("76a9141d0f172a0ecb48aee1be1f2687d2963ae33f71a188ac")),
+                600000000L));
+
+        //without witnesses
+        Transaction legacyTx = new Transaction(ByteUtil.fromHex(legacy));
+        Assert.assertFalse(legacyTx.hasWitness());
+        Assert.assertEquals(legacy, legacyTx.toHex());
+        Assert.assertEquals(ByteUtil.toHex(legacyTx.getHash()), ByteUtil.toHex(legacyTx.getWitnessHash()));
+        Assert.assertEquals(233 * 4, legacyTx.getWeight());
+        Assert.assertEquals(233, legacyTx.getVirtualSize());
+
+        //a witness flag with only empty witnesses
+        String superfluous = legacy.substring(0, 8) + "0001" + legacy.substring(8, legacy.length() - 8) + "0000" + legacy.substring(legacy.length() - 8);
+        try {
+            new Transaction(ByteUtil.fromHex(superfluous));
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Superfluous witness record", e.getMessage());
+        }
+        try {
+            new Transaction(ByteUtil.fromHex(signed.substring(0, 10) + "02" + signed.substring(12)));
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Unknown transaction optional data", e.getMessage());
+        }
+    }
+
     @Test
     public void testFromUTXO() throws Exception {
 
@@ -177,6 +242,126 @@ public class TransactionTest {
         Assert.assertEquals(expectedSigScriptHex, ByteUtil.toHex(tx.inputs.get(0).script.getBytes()));
     }
 
+    @Test
+    public void testSignParallel() throws Exception {
+
+        List<ECKey> keys = new ArrayList<ECKey>();
+        keys.add(ECKey.ECKeyParser.parse("L1rjeUY9ffkApft853udougq6y5eT3xbyoNPcMnkpzhZUQrui9cn"));
+        keys.add(new ECKey(new Hash("parallel signing").sha256(), true));
+        keys.add(new ECKey(new Hash("parallel signing, uncompressed").sha256(), false));
+
+        Transaction serial = consolidation(keys, 30);
+        serial.sign(keys, TransactionSignature.SIGHASH_ALL);
+        Assert.assertTrue(serial.isFullySigned());
+
+        Transaction parallel = consolidation(keys, 30);
+        parallel.signParallel(keys, TransactionSignature.SIGHASH_ALL);
+        Assert.assertTrue(parallel.isFullySigned());
+        Assert.assertEquals(ByteUtil.toHex(serial.uncheckedSerialize()), ByteUtil.toHex(parallel.uncheckedSerialize()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Transaction pooled = consolidation(keys, 30);
+            pooled.sign(keys, TransactionSignature.SIGHASH_ALL, executor);
+            Assert.assertEquals(ByteUtil.toHex(serial.uncheckedSerialize()), ByteUtil.toHex(pooled.uncheckedSerialize()));
+
+            //failures surface as they do when signing serially
+            Transaction incomplete = consolidation(keys, 2);
+            incomplete.inputs.get(1).output = null;
+            try {
+                incomplete.sign(keys, TransactionSignature.SIGHASH_ALL, executor);
+                Assert.fail();
+            } catch (Exception e) {
+                Assert.assertEquals("Inputs not complete", e.getMessage());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSignatureCache() throws Exception {
+
+        SignatureCache previous = SignatureCache.getDefault();
+        SignatureCache cache = new SignatureCache(64);
+        SignatureCache.setDefault(cache);
+        try {
+            ECKey key = ECKey.ECKeyParser.parse("L1rjeUY9ffkApft853udougq6y5eT3xbyoNPcMnkpzhZUQrui9cn");
+            List<ECKey> keys = new ArrayList<ECKey>();
+            keys.add(key);
+            keys.add(new ECKey(new Hash("signature cache").sha256(), true));
+            keys.add(new ECKey(new Hash("signature cache, second cosigner").sha256(), true));
+
+            //P2PKH input
+            Transaction tx = consolidation(keys.subList(0, 1), 1);
+            Input input = tx.inputs.get(0);
+            TransactionSignature signature = input.getSignatures(tx, key, 0, TransactionSignature.SIGHASH_ALL, key.getPublicKeyHash()).get(0);
+            Assert.assertTrue(input.isValidSignature(tx, signature));
+            Assert.assertEquals(0, cache.getHits());
+            Assert.assertEquals(1, cache.size());
+            Assert.assertTrue(input.isValidSignature(tx, signature));
+            Assert.assertEquals(1, cache.getHits());
+            assertInvalidNotCached(cache, tx, input, signature);
+
+            //P2SH multisig input
+            cache.clear();
+            cache.resetStatistics();
+            UTXODescriptor utxo = new UTXODescriptor();
+            utxo.script = Script.buildScriptHashOut(Script.buildMultisigOut(keys, 2)).toString();
+            utxo.satoshis = 100000;
+            utxo.txId = ByteUtil.toHex(new Hash("multisig utxo").sha256());
+            utxo.outputIndex = 1;
+            List<UTXODescriptor> utxos = new ArrayList<UTXODescriptor>();
+            utxos.add(utxo);
+            Transaction multisig = new Transaction();
+            multisig.from(utxos, keys, 2);
+            multisig.to("1H6WmxpDEPX7L96FCPZzm1KPaVwZbzXrav", 50000);
+            MultiSigScriptHashInput multisigInput = (MultiSigScriptHashInput) multisig.inputs.get(0);
+            TransactionSignature cosigner = multisigInput.getSignatures(multisig, keys.get(1), 0, TransactionSignature.SIGHASH_ALL, null).get(0);
+            Assert.assertTrue(multisigInput.isValidSignature(multisig, cosigner));
+            Assert.assertEquals(0, cache.getHits());
+            Assert.assertTrue(multisigInput.isValidSignature(multisig, cosigner));
+            Assert.assertEquals(1, cache.getHits());
+            assertInvalidNotCached(cache, multisig, multisigInput, cosigner);
+        } finally {
+            SignatureCache.setDefault(previous);
+        }
+    }
+
+    //a tampered signature fails every time, it is never added to the cache
+    private static void assertInvalidNotCached(SignatureCache cache, Transaction tx, Input input, TransactionSignature valid) throws Exception {
+        TransactionSignature invalid = new TransactionSignature(valid.publicKey,
+                valid.publicKeyCompressed,
+                valid.prevTxId,
+                valid.outputIndex,
+                valid.inputIndex,
+                new ECDSASignature(valid.signature.r, valid.signature.s.add(BigInteger.ONE), true),
+                valid.sigType);
+        int size = cache.size();
+        long hits = cache.getHits();
+        Assert.assertFalse(input.isValidSignature(tx, invalid));
+        Assert.assertFalse(input.isValidSignature(tx, invalid));
+        Assert.assertEquals(size, cache.size());
+        Assert.assertEquals(hits, cache.getHits());
+    }
+
+    //spends inputs locked to the keys in turn, to a single output
+    static Transaction consolidation(List<ECKey> keys, int inputCount) throws Exception {
+        List<UTXODescriptor> utxos = new ArrayList<UTXODescriptor>();
+        for (int i = 0; i < inputCount; i++) {
+            UTXODescriptor utxo = new UTXODescriptor();
+            utxo.script = Script.fromAddress(new Address(keys.get(i % keys.size()).getPublicKeyHash())).toString();
+            utxo.satoshis = 100000 + i;
+            utxo.txId = ByteUtil.toHex(new Hash("utxo " + i).sha256());
+            utxo.outputIndex = i % 3;
+            utxos.add(utxo);
+        }
+        Transaction tx = new Transaction();
+        tx.from(utxos);
+        tx.to("1H6WmxpDEPX7L96FCPZzm1KPaVwZbzXrav", 50000L * inputCount);
+        return tx;
+    }
+
     @Test
     public void testSigHash() throws Exception {
         String messageHex = "01000000015884e5db9de218238671572340b207ee85b628074e7e467096c267266baf77a4000000001976a914a934a528778e10dccd33b741577601e51031ac9388acffffffff0250c30000000000001976a914b08cf28bbf4b393dcbdbd69fb27f3436d8392e6e88ac409c0000000000001976a91492a637a6daa2be8cede265048f8fa02ddaa8111088ac0000000001000000";
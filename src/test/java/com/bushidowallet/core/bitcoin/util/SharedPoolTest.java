@@ -0,0 +1,72 @@
+package com.bushidowallet.core.bitcoin.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class SharedPoolTest {
+
+    @Test
+    public void testInvokeAll() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+            for (int i = 0; i < 10; i++) {
+                final int value = i;
+                tasks.add(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return value * value;
+                    }
+                });
+            }
+            List<Integer> results = SharedPool.invokeAll(executor, tasks);
+            Assert.assertEquals(10, results.size());
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(i * i, results.get(i).intValue());
+            }
+
+            //the cause is rethrown and the task still running is interrupted
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch interrupted = new CountDownLatch(1);
+            List<Callable<Void>> failing = new ArrayList<Callable<Void>>();
+            failing.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    started.await();
+                    throw new Exception("Task failed");
+                }
+            });
+            failing.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    started.countDown();
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return null;
+                }
+            });
+            try {
+                SharedPool.invokeAll(executor, failing);
+                Assert.fail("Task failure not rethrown");
+            } catch (Exception e) {
+                Assert.assertEquals("Task failed", e.getMessage());
+            }
+            Assert.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            Assert.assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}